@@ -0,0 +1,147 @@
+package com.SimonMk116.gendev.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.ws.transport.http.HttpComponents5MessageSender;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one pooled Apache HttpClient per provider for the Spring-WS
+ * {@link org.springframework.ws.client.core.WebServiceTemplate}; the REST providers use the Reactor Netty pools of
+ * {@link ProviderHttpConnectors}.
+ * <p>
+ * Connections to a provider are kept alive and reused instead of paying a TCP and TLS handshake per request. Each
+ * provider's pool is configured with {@code provider.<name>.http.max-connections}, {@code .max-per-route},
+ * {@code .connect-timeout}, {@code .read-timeout}, {@code .connection-request-timeout} (waiting for a pooled
+ * connection), {@code .keep-alive} (upper bound for idle reuse) and {@code .idle-eviction} (interval of the
+ * background eviction of idle and expired connections). If a {@link MeterRegistry} is available, the pool is reported
+ * with the {@code httpcomponents.httpclient.pool.*} meters, tagged with {@code httpclient=<name>}.
+ * </p>
+ */
+@Component
+public class ProviderHttpClients {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderHttpClients.class);
+
+    static final int DEFAULT_MAX_CONNECTIONS = 50;
+    static final int DEFAULT_MAX_PER_ROUTE = 20;
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(15);
+    static final Duration DEFAULT_CONNECTION_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration DEFAULT_KEEP_ALIVE = Duration.ofSeconds(30);
+    static final Duration DEFAULT_IDLE_EVICTION = Duration.ofSeconds(10);
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CloseableHttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the registry.
+     *
+     * @param environment   The Spring {@link Environment} holding the {@code provider.<name>.http.*} properties.
+     * @param meterRegistry The registry the pool metrics are published to, if any.
+     */
+    @Autowired
+    public ProviderHttpClients(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * Returns the pooled client of a provider, creating it on first use.
+     *
+     * @param provider The provider key.
+     * @return The provider's client.
+     */
+    public CloseableHttpClient forProvider(String provider) {
+        return clients.computeIfAbsent(provider, this::create);
+    }
+
+    /**
+     * Returns a SOAP message sender backed by the provider's pooled client, creating the pool on first use.
+     *
+     * @param provider The provider key (e.g. {@code "webwunder"}).
+     * @return A message sender for {@link org.springframework.ws.client.core.WebServiceTemplate#setMessageSender}.
+     */
+    public HttpComponents5MessageSender messageSender(String provider) {
+        return new HttpComponents5MessageSender(forProvider(provider));
+    }
+
+    /**
+     * Closes all clients and their pools on shutdown.
+     */
+    @PreDestroy
+    public void closeAll() {
+        clients.values().forEach(client -> client.close(CloseMode.GRACEFUL));
+    }
+
+    private CloseableHttpClient create(String provider) {
+        String prefix = "provider." + provider + ".http.";
+        Duration keepAlive = duration(prefix + "keep-alive", DEFAULT_KEEP_ALIVE);
+        Duration idleEviction = duration(prefix + "idle-eviction", DEFAULT_IDLE_EVICTION);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(environment.getProperty(prefix + "max-connections", Integer.class, DEFAULT_MAX_CONNECTIONS))
+                .setMaxConnPerRoute(environment.getProperty(prefix + "max-per-route", Integer.class, DEFAULT_MAX_PER_ROUTE))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(prefix + "connect-timeout", DEFAULT_CONNECT_TIMEOUT))
+                        .setSocketTimeout(timeout(prefix + "read-timeout", DEFAULT_READ_TIMEOUT))
+                        // Check connections idle for a while before reuse; the upstream may have closed them
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(prefix + "connection-request-timeout", DEFAULT_CONNECTION_REQUEST_TIMEOUT))
+                        .setResponseTimeout(timeout(prefix + "read-timeout", DEFAULT_READ_TIMEOUT))
+                        .build())
+                // Honor the server's Keep-Alive header, but never keep a connection idle longer than keep-alive
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue offered = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    TimeValue limit = TimeValue.ofMilliseconds(keepAlive.toMillis());
+                    return offered.compareTo(limit) < 0 ? offered : limit;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEviction.toMillis()))
+                // Spring-WS sets Content-Length and Transfer-Encoding itself, which HttpClient rejects unless removed first
+                .addRequestInterceptorFirst(new HttpComponents5MessageSender.RemoveSoapHeadersInterceptor());
+        CloseableHttpClient client = builder.build();
+
+        if (meterRegistry != null) {
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, provider).bindTo(meterRegistry);
+        }
+        logger.info("Pooled HTTP client for {} created", provider);
+        return client;
+    }
+
+    private Duration duration(String key, Duration defaultValue) {
+        return environment.getProperty(key, Duration.class, defaultValue);
+    }
+
+    private Timeout timeout(String key, Duration defaultValue) {
+        return Timeout.ofMilliseconds(duration(key, defaultValue).toMillis());
+    }
+}
@@ -0,0 +1,106 @@
+package com.SimonMk116.gendev.config;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one Reactor Netty connection pool per provider for the {@link org.springframework.web.reactive.function.client.WebClient}s.
+ * <p>
+ * Instead of sharing Reactor Netty's global pool, every provider gets a dedicated {@link ConnectionProvider}, so
+ * the parallel requests of one provider reuse warm connections without competing with the others for pool slots.
+ * A provider's pool is configured with {@code provider.<name>.netty.max-connections},
+ * {@code .pending-acquire-max-count} and {@code .pending-acquire-timeout} (requests waiting for a connection),
+ * {@code .max-idle-time}, {@code .max-life-time} and {@code .eviction-interval} (background eviction), plus
+ * {@code .connect-timeout}, {@code .response-timeout} and {@code .http2}, which negotiates HTTP/2 via ALPN on TLS
+ * connections and falls back to HTTP/1.1. The pools report the {@code reactor.netty.connection.provider.*} meters
+ * to the global Micrometer registry, tagged with {@code name=<provider>}.
+ * </p>
+ */
+@Component
+public class ProviderHttpConnectors {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderHttpConnectors.class);
+
+    static final int DEFAULT_MAX_CONNECTIONS = 50;
+    static final int DEFAULT_PENDING_ACQUIRE_MAX_COUNT = 500;
+    static final Duration DEFAULT_PENDING_ACQUIRE_TIMEOUT = Duration.ofSeconds(10);
+    static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofSeconds(30);
+    static final Duration DEFAULT_MAX_LIFE_TIME = Duration.ofMinutes(5);
+    static final Duration DEFAULT_EVICTION_INTERVAL = Duration.ofSeconds(15);
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Environment environment;
+    private final Map<String, ConnectionProvider> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the registry.
+     *
+     * @param environment The Spring {@link Environment} holding the {@code provider.<name>.netty.*} properties.
+     */
+    @Autowired
+    public ProviderHttpConnectors(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Returns a connector using the provider's connection pool, creating the pool on first use.
+     *
+     * @param provider The provider key (e.g. {@code "servus"}).
+     * @return A connector for {@link org.springframework.web.reactive.function.client.WebClient.Builder#clientConnector}.
+     */
+    public ReactorClientHttpConnector forProvider(String provider) {
+        String prefix = "provider." + provider + ".netty.";
+        HttpClient httpClient = HttpClient.create(pools.computeIfAbsent(provider, this::createPool))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) duration(prefix + "connect-timeout", DEFAULT_CONNECT_TIMEOUT).toMillis())
+                .responseTimeout(duration(prefix + "response-timeout", DEFAULT_RESPONSE_TIMEOUT));
+        if (environment.getProperty(prefix + "http2", Boolean.class, false)) {
+            // Plain http:// URLs keep using HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    /**
+     * Closes all pools on shutdown.
+     */
+    @PreDestroy
+    public void disposeAll() {
+        pools.values().forEach(ConnectionProvider::dispose);
+    }
+
+    private ConnectionProvider createPool(String provider) {
+        String prefix = "provider." + provider + ".netty.";
+        ConnectionProvider pool = ConnectionProvider.builder(provider)
+                .maxConnections(environment.getProperty(prefix + "max-connections", Integer.class, DEFAULT_MAX_CONNECTIONS))
+                .pendingAcquireMaxCount(environment.getProperty(prefix + "pending-acquire-max-count", Integer.class, DEFAULT_PENDING_ACQUIRE_MAX_COUNT))
+                .pendingAcquireTimeout(duration(prefix + "pending-acquire-timeout", DEFAULT_PENDING_ACQUIRE_TIMEOUT))
+                .maxIdleTime(duration(prefix + "max-idle-time", DEFAULT_MAX_IDLE_TIME))
+                .maxLifeTime(duration(prefix + "max-life-time", DEFAULT_MAX_LIFE_TIME))
+                .evictInBackground(duration(prefix + "eviction-interval", DEFAULT_EVICTION_INTERVAL))
+                // Reuse the most recently released, i.e. warmest, connection first
+                .lifo()
+                .metrics(true)
+                .build();
+        logger.info("Connection pool for {} created", provider);
+        return pool;
+    }
+
+    private Duration duration(String key, Duration defaultValue) {
+        return environment.getProperty(key, Duration.class, defaultValue);
+    }
+}
@@ -1,10 +1,14 @@
 package com.SimonMk116.gendev.config;
 
+import com.SimonMk116.gendev.service.pingperfectservice.HmacSigner;
+import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectSigningFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.nio.charset.StandardCharsets;
+
 @Configuration
 public class WebClientConfig {
 
@@ -17,12 +21,32 @@ public class WebClientConfig {
     @Value("${provider.servus.password}")
     private String password;
 
+    @Value("${provider.pingperfect.signature-secret}")
+    private String pingPerfectSignatureSecret;
+
     @Bean(name = "servusSpeedWebClient")
-    public WebClient servusSpeedWebClient() {
+    public WebClient servusSpeedWebClient(ProviderHttpConnectors connectors) {
         return WebClient.builder()
                 .baseUrl(baseUrl)
+                .clientConnector(connectors.forProvider("servus"))
                 .defaultHeaders(headers -> headers.setBasicAuth(username, password))
                 .build();
     }
-}
 
+    @Bean(name = "byteMeWebClient")
+    public WebClient byteMeWebClient(ProviderHttpConnectors connectors) {
+        // The CSV body is consumed as a DataBuffer stream, so no in-memory codec limit applies
+        return WebClient.builder()
+                .clientConnector(connectors.forProvider("byteme"))
+                .build();
+    }
+
+    @Bean(name = "pingPerfectWebClient")
+    public WebClient pingPerfectWebClient(ProviderHttpConnectors connectors) {
+        // Adds X-Timestamp and X-Signature over the serialized body of every request, including retries
+        return WebClient.builder()
+                .clientConnector(connectors.forProvider("pingperfect"))
+                .filter(new PingPerfectSigningFilter(new HmacSigner(pingPerfectSignatureSecret.getBytes(StandardCharsets.UTF_8))))
+                .build();
+    }
+}
@@ -8,9 +8,9 @@ import org.springframework.ws.client.WebServiceClientException;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
 import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.transport.HeadersAwareSenderWebServiceConnection;
 import org.springframework.ws.transport.context.TransportContext;
 import org.springframework.ws.transport.context.TransportContextHolder;
-import org.springframework.ws.transport.http.HttpUrlConnection;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -31,13 +31,18 @@ public class WebServiceConfig {
         return marshaller;
     }
 
+    /**
+     * The {@link WebServiceTemplate} of the WebWunder SOAP API. Messages are sent through the pooled keep-alive
+     * client of the {@code webwunder} provider ({@code provider.webwunder.http.*}), so the parallel calls of a
+     * search share warm connections.
+     */
     @Bean
-    public WebServiceTemplate webServiceTemplate(Jaxb2Marshaller marshaller) {
+    public WebServiceTemplate webServiceTemplate(Jaxb2Marshaller marshaller, ProviderHttpClients httpClients) {
         WebServiceTemplate template = new WebServiceTemplate();
         template.setMarshaller(marshaller);
         template.setUnmarshaller(marshaller);
         template.setDefaultUri(endpoint);
-        //template.setMessageSender(messageSender);
+        template.setMessageSender(httpClients.messageSender("webwunder"));
         // Add custom interceptor
         template.setInterceptors(new ClientInterceptor[]{
                 new HttpHeaderInterceptor(apiKey)});
@@ -55,8 +60,10 @@ public class WebServiceConfig {
         public boolean handleRequest(MessageContext messageContext) {
             try {
                 TransportContext context = TransportContextHolder.getTransportContext();
-                HttpUrlConnection connection = (HttpUrlConnection) context.getConnection();
-                String uri = connection.getUri().toString();
+                if (!(context.getConnection() instanceof HeadersAwareSenderWebServiceConnection connection)) {
+                    return true;
+                }
+                String uri = context.getConnection().getUri().toString();
                 if (uri.startsWith("https://webwunder.gendev7.check24.fun/")) {  //is api connection
                     connection.addRequestHeader("X-Api-Key", apiKey);
                 }
@@ -1,17 +1,29 @@
 package com.SimonMk116.gendev.controller;
 
+import com.SimonMk116.gendev.dto.FilterDataDto;
+import com.SimonMk116.gendev.dto.SortCriteriaDataDto;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.InFlightSearchRegistry;
+import com.SimonMk116.gendev.service.aggregation.OfferDeduplicator;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import com.SimonMk116.gendev.service.aggregation.OfferStreamAggregator;
+import com.SimonMk116.gendev.service.aggregation.RankedOfferStream;
 import com.SimonMk116.gendev.service.bytemeservice.ByteMeService;
+import com.SimonMk116.gendev.service.cache.ProviderOfferCache;
 import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectService;
+import com.SimonMk116.gendev.service.resilience.CircuitBreakers;
 import com.SimonMk116.gendev.service.servusspeedservice.ServusSpeedClient;
 import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichService;
 import com.SimonMk116.gendev.service.webwunderservice.WebWunderService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,8 +31,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 
 /**
@@ -46,12 +60,58 @@ public class OfferController {
          * @return A {@link Flux} of {@link InternetOffer}s, representing a stream of available internet offers.
          */
         Flux<InternetOffer> getOffers(RequestAddress address);
+
+        /**
+         * Retrieves internet offers for a given address, narrowing the upstream requests to the given filter
+         * where the provider's API allows it. Offers not matching the filter may still be returned; the
+         * controller filters the aggregated stream in any case.
+         *
+         * @param address The {@link RequestAddress} to search offers for.
+         * @param filter  The client's {@link OfferFilter}.
+         * @return A {@link Flux} of {@link InternetOffer}s.
+         */
+        default Flux<InternetOffer> getOffers(RequestAddress address, OfferFilter filter) {
+            return getOffers(address);
+        }
+
+        /**
+         * Tells whether this provider can return any offer matching the filter, so that providers which
+         * cannot are not called at all.
+         *
+         * @param filter The client's {@link OfferFilter}.
+         * @return {@code false} if no offer of this provider can match the filter.
+         */
+        default boolean canSatisfy(OfferFilter filter) {
+            return true;
+        }
     }
     /**
-     * A list of all registered {@link InternetOfferService} implementations.
-     * Each service in this list is responsible for fetching offers from a specific provider.
+     * All registered {@link InternetOfferService} implementations.
+     * Each service in this map, keyed by its provider key, is responsible for fetching offers from a specific provider.
+     * It is guarded by the provider's circuit breaker ({@link CircuitBreakers}) and wrapped by the {@link ProviderOfferCache},
+     * so cached results are still served while a provider is skipped.
+     */
+    Map<String, InternetOfferService> services = new LinkedHashMap<>();
+
+    /**
+     * Registry used to coalesce identical concurrent searches into a single provider fan-out.
      */
-    List<InternetOfferService> services = new ArrayList<>();
+    private final InFlightSearchRegistry inFlightSearches;
+
+    /**
+     * Filters offers that a search has already emitted, e.g. from overlapping pages or provider calls.
+     */
+    private final OfferDeduplicator offerDeduplicator;
+
+    /**
+     * Ranks the offer stream for the sorted top-K delivery mode.
+     */
+    private final RankedOfferStream rankedOfferStream;
+
+    /**
+     * Merges the provider streams, cutting off providers that miss their deadline.
+     */
+    private final OfferStreamAggregator offerStreamAggregator;
 
     /**
      * Constructs an {@code OfferController} and injects various internet offer service implementations.
@@ -62,15 +122,25 @@ public class OfferController {
      * @param pingPerfectService The service for "PingPerfect" internet offers.
      * @param verbynDichService The service for "VerbynDich" internet offers.
      * @param servusSpeedClient The client service for "ServusSpeed" internet offers.
+     * @param inFlightSearches The registry used to share running searches between identical requests.
+     * @param offerCache The per-provider result cache wrapping every service.
+     * @param offerDeduplicator The stage removing duplicate offers from the merged stream.
+     * @param rankedOfferStream The ranking used for the sorted top-K delivery mode.
+     * @param offerStreamAggregator The stage merging the provider streams under per-provider deadlines.
+     * @param circuitBreakers The per-provider circuit breakers guarding every service.
      */
     @Autowired
-    public OfferController(ByteMeService byteMeService, WebWunderService webWunderService, PingPerfectService pingPerfectService, VerbynDichService verbynDichService, ServusSpeedClient servusSpeedClient) {
+    public OfferController(ByteMeService byteMeService, WebWunderService webWunderService, PingPerfectService pingPerfectService, VerbynDichService verbynDichService, ServusSpeedClient servusSpeedClient, InFlightSearchRegistry inFlightSearches, ProviderOfferCache offerCache, OfferDeduplicator offerDeduplicator, RankedOfferStream rankedOfferStream, OfferStreamAggregator offerStreamAggregator, CircuitBreakers circuitBreakers) {
+        this.inFlightSearches = inFlightSearches;
+        this.offerDeduplicator = offerDeduplicator;
+        this.rankedOfferStream = rankedOfferStream;
+        this.offerStreamAggregator = offerStreamAggregator;
 
-        services.add(verbynDichService);
-        services.add(byteMeService);
-        services.add(webWunderService);
-        services.add(pingPerfectService);
-        services.add(servusSpeedClient);
+        services.put("verbyndich", offerCache.wrap("verbyndich", circuitBreakers.wrap("verbyndich", verbynDichService)));
+        services.put("byteme", offerCache.wrap("byteme", circuitBreakers.wrap("byteme", byteMeService)));
+        services.put("webwunder", offerCache.wrap("webwunder", circuitBreakers.wrap("webwunder", webWunderService)));
+        services.put("pingperfect", offerCache.wrap("pingperfect", circuitBreakers.wrap("pingperfect", pingPerfectService)));
+        services.put("servus", offerCache.wrap("servus", circuitBreakers.wrap("servus", servusSpeedClient)));
     }
 
     /**
@@ -78,6 +148,17 @@ public class OfferController {
      * This endpoint consumes address details as request parameters and aggregates offers
      * from all configured internet offer service providers.
      * The results are streamed to the client as Server-Sent Events (SSE) as they become available.
+     * Identical concurrent searches (same normalized address) share a single provider fan-out:
+     * a later request replays the offers already emitted and then follows the running search.
+     * Offers that the search has already emitted are dropped before they are sent.
+     * Optional filters restrict the result: providers that cannot match them are not called,
+     * the others narrow their upstream requests where possible, and non-matching offers are dropped
+     * before serialization.
+     * Every provider has to complete within its deadline ({@code provider.<name>.deadline}); a provider that misses it
+     * is cut off and reported with a {@code provider-timeout} event, and a provider that fails does not end the
+     * stream. A provider whose circuit breaker is open is skipped right away and reported with a
+     * {@code provider-unavailable} event. A final {@code summary} event lists which providers answered, timed out,
+     * failed or were unavailable.
      *
      * @param street The street name of the address.
      * Must not be blank, max 100 characters, and contain valid street characters.
@@ -88,16 +169,63 @@ public class OfferController {
      * @param plz The postal code of the address.
      * Must not be blank, between 4 and 5 characters, and follow a standard numeric or numeric-hyphen format.
      * @param land The country represented by its countrycode, supporting "DE", "AT" or "CH".
-     * @return A {@link Flux} of {@link InternetOffer}s, representing a continuous stream of offers.
-     * The stream completes once all underlying service calls have finished.
+     * @param filters Optional offer filters ({@code provider}, {@code minPrice}, {@code maxPrice}, {@code minSpeed},
+     * {@code connectionType}, {@code isYoungTariff}, {@code tvIncluded}, {@code freeInstallation}) bound from the
+     * request parameters.
+     * @return A {@link Flux} of Server-Sent Events: one unnamed event per {@link InternetOffer}, the
+     * {@code provider-timeout} and {@code provider-unavailable} events and the final {@code summary} event.
+     * The stream completes once every provider has finished or reached its deadline.
      */
     @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<InternetOffer> getOffers(
+    public Flux<ServerSentEvent<Object>> getOffers(
             @RequestParam @NotBlank @Size(max = 100) @Pattern(regexp = "^[\\p{L}0-9 .,\\-'/]+$", message = "Invalid characters in street name") String street,
             @RequestParam(required = false) @Size(max = 10) @Pattern(regexp = "^[0-9a-zA-Z\\-/]*$", message = "Invalid characters in house number") String houseNumber,            @RequestParam @NotBlank @Size(max = 100) @Pattern(regexp = "^[\\p{L} .'-]+$", message = "Invalid characters in city name") String city,
             @RequestParam @NotBlank @Size(min = 4, max = 5) @Pattern(regexp = "^[0-9]{5}(?:-[0-9]{4})?$", message = "Invalid characters in postal code") String plz,
-            @RequestParam String land) {
+            @RequestParam String land,
+            FilterDataDto filters) {
+
+        return searchOffers(toAddress(street, houseNumber, city, plz, land), filters);
+    }
+
+    /**
+     * Retrieves the best offers for a specified address, ranked by a sort key, instead of every offer in arrival order.
+     * While the providers stream in, the best {@code top} offers are kept in a bounded heap. Whenever the ranking
+     * has changed, a {@code snapshot} Server-Sent Event with the current ranked list is sent periodically, and once
+     * all providers have finished a {@code final} event carries the final ordered list.
+     * The address parameters and filters are the same as for {@link #getOffers}.
+     *
+     * @param street The street name of the address.
+     * @param houseNumber The house number of the address.
+     * @param city The city name of the address.
+     * @param plz The postal code of the address.
+     * @param land The country represented by its countrycode, supporting "DE", "AT" or "CH".
+     * @param top The number of offers to deliver, between 1 and 100.
+     * @param sortKey The sort key: {@code monthlyCost} (default), {@code speed} or {@code effectivePrice}.
+     * @param sortOrder {@code asc} or {@code desc}; by default prices are ranked ascending and speed descending.
+     * @param filters Optional offer filters, see {@link #getOffers}.
+     * @return A {@link Flux} of ranked snapshot events, completed by the final ranking.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE, params = "top")
+    public Flux<ServerSentEvent<List<InternetOffer>>> getRankedOffers(
+            @RequestParam @NotBlank @Size(max = 100) @Pattern(regexp = "^[\\p{L}0-9 .,\\-'/]+$", message = "Invalid characters in street name") String street,
+            @RequestParam(required = false) @Size(max = 10) @Pattern(regexp = "^[0-9a-zA-Z\\-/]*$", message = "Invalid characters in house number") String houseNumber,
+            @RequestParam @NotBlank @Size(max = 100) @Pattern(regexp = "^[\\p{L} .'-]+$", message = "Invalid characters in city name") String city,
+            @RequestParam @NotBlank @Size(min = 4, max = 5) @Pattern(regexp = "^[0-9]{5}(?:-[0-9]{4})?$", message = "Invalid characters in postal code") String plz,
+            @RequestParam String land,
+            @RequestParam @Min(1) @Max(100) int top,
+            @RequestParam(defaultValue = "monthlyCost") @Pattern(regexp = "^(monthlyCost|speed|effectivePrice)$", message = "Invalid sort key") String sortKey,
+            @RequestParam(required = false) @Pattern(regexp = "^(asc|desc)$", message = "Invalid sort order") String sortOrder,
+            FilterDataDto filters) {
 
+        SortCriteriaDataDto sortCriteria = new SortCriteriaDataDto();
+        sortCriteria.setKey(sortKey);
+        sortCriteria.setOrder(sortOrder);
+        Flux<InternetOffer> offers = searchOffers(toAddress(street, houseNumber, city, plz, land), filters)
+                .mapNotNull(OfferStreamAggregator::offerOf);
+        return rankedOfferStream.rank(offers, sortCriteria, top);
+    }
+
+    private static RequestAddress toAddress(String street, String houseNumber, String city, String plz, String land) {
         //build address, currently only for ServusSpeed
         System.out.println("Received API call with params: " + street + ", " + houseNumber + ", " + city + ", " + plz + ", " + land);
         RequestAddress address = new RequestAddress();
@@ -111,11 +239,57 @@ public class OfferController {
         address.setPostleitzahl(plz);
         address.setStadt(city);
         address.setLand(land);
+        return address;
+    }
 
-        return Flux.merge(
-                services.stream()
-                        .map(service -> service.getOffers(address))
-                        .toList()
-        ).doOnComplete(() -> System.out.println("All offer streams completed."));
+    /**
+     * Runs (or joins) the provider fan-out for an address and returns the deduplicated, filtered event stream.
+     *
+     * @param address The searched address.
+     * @param filters The client's filters, may be empty.
+     * @return The event stream of the search, see {@link OfferStreamAggregator#aggregate(Map)}.
+     */
+    private Flux<ServerSentEvent<Object>> searchOffers(RequestAddress address, FilterDataDto filters) {
+        OfferFilter filter = OfferFilter.from(filters);
+        if (filter.isEmpty()) {
+            return inFlightSearches.join(address.normalizedKey(), () -> offerDeduplicator.deduplicate(
+                    offerStreamAggregator.aggregate(providerStreams(services, service -> service.getOffers(address))),
+                    OfferStreamAggregator::offerOf
+            ).doOnComplete(() -> System.out.println("All offer streams completed.")));
+        }
+
+        Map<String, InternetOfferService> selected = selectServices(filter);
+        return inFlightSearches.join(address.normalizedKey() + "|" + filter.key(), () -> offerDeduplicator.deduplicate(
+                offerStreamAggregator.aggregate(providerStreams(selected, service -> service.getOffers(address, filter)))
+                        .filter(event -> {
+                            InternetOffer offer = OfferStreamAggregator.offerOf(event);
+                            return offer == null || filter.test(offer);
+                        }),
+                OfferStreamAggregator::offerOf
+        ).doOnComplete(() -> System.out.println("All offer streams completed.")));
+    }
+
+    private static Map<String, Flux<InternetOffer>> providerStreams(Map<String, InternetOfferService> services,
+                                                                    Function<InternetOfferService, Flux<InternetOffer>> query) {
+        Map<String, Flux<InternetOffer>> streams = new LinkedHashMap<>();
+        services.forEach((provider, service) -> streams.put(provider, Flux.defer(() -> query.apply(service))));
+        return streams;
+    }
+
+    /**
+     * Selects the services that are queried for a filtered search: only the requested provider (unknown
+     * providers are ignored by {@link OfferFilter}) and only providers that can satisfy the filter.
+     *
+     * @param filter The client's filter.
+     * @return The services to query, keyed by provider key.
+     */
+    private Map<String, InternetOfferService> selectServices(OfferFilter filter) {
+        Map<String, InternetOfferService> selected = new LinkedHashMap<>();
+        services.forEach((provider, service) -> {
+            if (filter.includesProvider(provider) && service.canSatisfy(filter)) {
+                selected.put(provider, service);
+            }
+        });
+        return selected;
     }
-}
\ No newline at end of file
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Locale;
+
 /**
  * Represents a physical address used in API requests, typically for querying services
  * that require location-specific information, such as internet offer availability.
@@ -22,4 +24,27 @@ public class RequestAddress {
      * The country name of the address represented by countrycode(e.g., "DE", "AT", "CH").
      */
     private String land;
+
+    /**
+     * Builds a canonical key for this address that is insensitive to case and redundant whitespace.
+     * Two searches for the same physical address yield the same key, which makes it suitable for
+     * coalescing and caching provider results.
+     *
+     * @return A lower-cased, whitespace-normalized key of all address components.
+     */
+    public String normalizedKey() {
+        return String.join("|",
+                normalize(strasse),
+                normalize(hausnummer),
+                normalize(postleitzahl),
+                normalize(stadt),
+                normalize(land));
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
 }
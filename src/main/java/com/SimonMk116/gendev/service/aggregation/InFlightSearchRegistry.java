@@ -0,0 +1,77 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Registry of offer searches that are currently in flight, keyed by a normalized search key.
+ * <p>
+ * When several clients search for the same address at the same moment, only the first one
+ * triggers the fan-out to the providers. Every later subscriber attaches to the already running
+ * stream: it first receives all offers that have been emitted so far (replay) and then follows
+ * the live stream until it completes. Once the shared search terminates (complete, error or
+ * cancellation of all subscribers) it is removed from the registry, so the next search starts fresh.
+ * </p>
+ */
+@Component
+public class InFlightSearchRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(InFlightSearchRegistry.class);
+
+    private final ConcurrentMap<String, Flux<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a stream for the given search key, joining an identical search that is already
+     * running or starting a new one if none exists.
+     *
+     * @param key    The normalized key identifying identical searches (e.g. a normalized address).
+     * @param search Supplier of the upstream search. It is only invoked when no search for the key is in flight,
+     *               and only once the returned stream is subscribed.
+     * @param <T>    The element type of the search stream.
+     * @return A {@link Flux} that replays already emitted elements of the shared search and then follows it live.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> join(String key, Supplier<Flux<T>> search) {
+        return Flux.defer(() -> {
+            boolean[] created = {false};
+            Flux<T> shared = (Flux<T>) inFlight.computeIfAbsent(key, k -> {
+                created[0] = true;
+                return share(k, search);
+            });
+            if (!created[0]) {
+                logger.info("Joining in-flight search for key {}", key);
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * Returns the number of searches that are currently in flight.
+     *
+     * @return The number of registered in-flight searches.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private <T> Flux<T> share(String key, Supplier<Flux<T>> search) {
+        AtomicReference<Flux<T>> self = new AtomicReference<>();
+        Flux<T> shared = Flux.defer(search)
+                .doFinally(signal -> {
+                    // Only remove our own entry; a newer search for the same key may already be registered.
+                    inFlight.remove(key, self.get());
+                    logger.debug("In-flight search for key {} finished with {}", key, signal);
+                })
+                .replay()
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+}
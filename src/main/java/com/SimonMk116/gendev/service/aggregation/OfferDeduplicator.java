@@ -0,0 +1,120 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Function;
+
+/**
+ * Drops offers that have already been emitted by the same search.
+ * <p>
+ * Overlapping page readers and providers that query several connection types may deliver the same offer more than
+ * once. Every search gets its own compact set of {@link OfferIds#fingerprint(InternetOffer) offer fingerprints};
+ * an offer whose fingerprint has been seen before is filtered out before it is encoded and sent to the client.
+ * The set holds at most {@code offers.dedup.max-fingerprints} entries per search. Once it is full, further offers
+ * are passed through unchecked, so memory stays bounded at the cost of possibly letting late duplicates through.
+ * </p>
+ */
+@Component
+public class OfferDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfferDeduplicator.class);
+
+    static final int DEFAULT_MAX_FINGERPRINTS = 4096;
+
+    @Value("${offers.dedup.max-fingerprints:" + DEFAULT_MAX_FINGERPRINTS + "}")
+    private int maxFingerprints = DEFAULT_MAX_FINGERPRINTS;
+
+    /**
+     * Returns the given offer stream without duplicates.
+     *
+     * @param offers The merged offer stream of a single search. Its signals must be serialized, as guaranteed
+     *               by {@link Flux#merge}.
+     * @return A {@link Flux} emitting every distinct offer once, in order of first appearance.
+     */
+    public Flux<InternetOffer> deduplicate(Flux<InternetOffer> offers) {
+        return deduplicate(offers, Function.identity());
+    }
+
+    /**
+     * Returns the given stream without duplicate offers. Items that do not carry an offer are passed through.
+     *
+     * @param items   The merged stream of a single search. Its signals must be serialized, as guaranteed
+     *                by {@link Flux#merge}.
+     * @param offerOf Extracts the offer carried by an item, or returns {@code null} if it carries none.
+     * @param <T>     The item type.
+     * @return A {@link Flux} emitting every distinct offer once, in order of first appearance.
+     */
+    public <T> Flux<T> deduplicate(Flux<T> items, Function<? super T, InternetOffer> offerOf) {
+        return Flux.defer(() -> {
+            FingerprintSet seen = new FingerprintSet(maxFingerprints);
+            int[] dropped = {0};
+            return items
+                    .filter(item -> {
+                        InternetOffer offer = offerOf.apply(item);
+                        if (offer == null) {
+                            return true;
+                        }
+                        boolean added = seen.add(OfferIds.fingerprint(offer));
+                        if (!added) {
+                            dropped[0]++;
+                        }
+                        return added;
+                    })
+                    .doOnComplete(() -> {
+                        if (dropped[0] > 0) {
+                            logger.info("Dropped {} duplicate offers", dropped[0]);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Open-addressing hash set of {@code long} fingerprints with a fixed capacity. Not thread-safe.
+     */
+    static final class FingerprintSet {
+        // 0 marks a free slot; a fingerprint of 0 is stored as 1, the collision is irrelevant in practice
+        private static final long EMPTY = 0L;
+
+        private final long[] table;
+        private final int mask;
+        private final int maxSize;
+        private int size;
+
+        FingerprintSet(int maxSize) {
+            this.maxSize = Math.max(0, maxSize);
+            // Keep the load factor at or below 0.5 so probe sequences stay short
+            int capacity = Integer.highestOneBit(Math.max(1, this.maxSize) * 2 - 1) << 1;
+            this.table = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * Adds a fingerprint.
+         *
+         * @param fingerprint The fingerprint to add.
+         * @return {@code false} if the fingerprint was already present, {@code true} otherwise
+         * (including when the set is full and the fingerprint could not be remembered).
+         */
+        boolean add(long fingerprint) {
+            long value = fingerprint == EMPTY ? 1L : fingerprint;
+            int index = (int) (value ^ (value >>> 32)) & mask;
+            while (table[index] != EMPTY) {
+                if (table[index] == value) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            if (size >= maxSize) {
+                return true;
+            }
+            table[index] = value;
+            size++;
+            return true;
+        }
+    }
+}
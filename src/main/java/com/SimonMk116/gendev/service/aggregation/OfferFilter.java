@@ -0,0 +1,180 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import com.SimonMk116.gendev.dto.FilterDataDto;
+import com.SimonMk116.gendev.model.InternetOffer;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Normalized view of the offer filters a client sent with its search (see {@link FilterDataDto}).
+ * <p>
+ * The filter is used in two places: providers use it to narrow their upstream requests where their API allows it
+ * (e.g. a single connection type), and the aggregated stream is filtered with {@link #test(InternetOffer)} before
+ * offers are serialized. Unset criteria do not restrict the result. The contract duration of the DTO is not
+ * evaluated, as its format is not defined. The provider is matched exactly against the known provider keys and
+ * display names; unknown providers are ignored.
+ * </p>
+ */
+public final class OfferFilter implements Predicate<InternetOffer> {
+
+    /**
+     * A filter without any criteria; every offer matches.
+     */
+    public static final OfferFilter NONE = new OfferFilter(null, null, null, null, null, false, false, false);
+
+    // Provider keys by the lower-case letters of the names clients may send
+    private static final Map<String, String> PROVIDER_KEYS = Map.of(
+            "verbyndich", "verbyndich",
+            "byteme", "byteme",
+            "webwunder", "webwunder",
+            "pingperfect", "pingperfect",
+            "servus", "servus",
+            "servusspeed", "servus");
+
+    private final String provider;
+    private final Integer minPrice;
+    private final Integer maxPrice;
+    private final Integer minSpeed;
+    private final String connectionType;
+    private final boolean youngTariff;
+    private final boolean tvIncluded;
+    private final boolean installationIncluded;
+
+    private OfferFilter(String provider, Integer minPrice, Integer maxPrice, Integer minSpeed, String connectionType,
+                        boolean youngTariff, boolean tvIncluded, boolean installationIncluded) {
+        this.provider = provider;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.minSpeed = minSpeed;
+        this.connectionType = connectionType;
+        this.youngTariff = youngTariff;
+        this.tvIncluded = tvIncluded;
+        this.installationIncluded = installationIncluded;
+    }
+
+    /**
+     * Creates a filter from the DTO sent by the client.
+     *
+     * @param filters The client's filters, may be {@code null}.
+     * @return The normalized filter, {@link #NONE} if no criterion is set.
+     */
+    public static OfferFilter from(FilterDataDto filters) {
+        if (filters == null) {
+            return NONE;
+        }
+        OfferFilter filter = new OfferFilter(
+                normalizeProvider(filters.getProvider()),
+                filters.getMinPrice(),
+                filters.getMaxPrice(),
+                filters.getMinSpeed(),
+                normalizeConnectionType(filters.getConnectionType()),
+                Boolean.TRUE.equals(filters.getIsYoungTariff()),
+                Boolean.TRUE.equals(filters.getTvIncluded()),
+                Boolean.TRUE.equals(filters.getFreeInstallation()));
+        return filter.isEmpty() ? NONE : filter;
+    }
+
+    /**
+     * @return {@code true} if the filter has no criteria.
+     */
+    public boolean isEmpty() {
+        return provider == null && minPrice == null && maxPrice == null && minSpeed == null && connectionType == null
+                && !youngTariff && !tvIncluded && !installationIncluded;
+    }
+
+    /**
+     * Checks whether offers of a provider are requested.
+     *
+     * @param providerKey The provider key (e.g. {@code "webwunder"}).
+     * @return {@code true} if no known provider is selected or the selected provider is the given one.
+     */
+    public boolean includesProvider(String providerKey) {
+        return provider == null || provider.equals(providerKey);
+    }
+
+    /**
+     * @return The requested connection type in upper case ({@code FIBRE} is normalized to {@code FIBER}),
+     * or {@code null} if any connection type is accepted.
+     */
+    public String getConnectionType() {
+        return connectionType;
+    }
+
+    /**
+     * @return {@code true} if only offers with an included installation service are requested.
+     */
+    public boolean requiresInstallation() {
+        return installationIncluded;
+    }
+
+    /**
+     * Builds a key that is equal for filters with the same criteria, suitable for coalescing and caching searches.
+     *
+     * @return The key, empty for {@link #NONE}.
+     */
+    public String key() {
+        if (isEmpty()) {
+            return "";
+        }
+        return String.join(",",
+                String.valueOf(provider), String.valueOf(minPrice), String.valueOf(maxPrice), String.valueOf(minSpeed),
+                String.valueOf(connectionType), String.valueOf(youngTariff), String.valueOf(tvIncluded),
+                String.valueOf(installationIncluded));
+    }
+
+    /**
+     * Checks an offer against all criteria except the provider, which is applied when selecting the providers.
+     *
+     * @param offer The offer to check.
+     * @return {@code true} if the offer satisfies the filter.
+     */
+    @Override
+    public boolean test(InternetOffer offer) {
+        if (minPrice != null && offer.getMonthlyCostInCent() < minPrice) {
+            return false;
+        }
+        if (maxPrice != null && offer.getMonthlyCostInCent() > maxPrice) {
+            return false;
+        }
+        if (minSpeed != null && offer.getSpeed() < minSpeed) {
+            return false;
+        }
+        if (connectionType != null && !connectionType.equals(normalizeConnectionType(offer.getConnectionType()))) {
+            return false;
+        }
+        if (youngTariff && (offer.getMaxAge() == null || offer.getMaxAge() <= 0)) {
+            return false;
+        }
+        if (tvIncluded && (offer.getTv() == null || offer.getTv().isBlank())) {
+            return false;
+        }
+        return !installationIncluded || Boolean.TRUE.equals(offer.getInstallationService());
+    }
+
+    private static String normalizeProvider(String provider) {
+        if (provider == null) {
+            return null;
+        }
+        // "Servus Speed", "servus-speed" and "ServusSpeed" all select the provider key "servus"
+        String normalized = provider.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+        return PROVIDER_KEYS.get(normalized);
+    }
+
+    private static String normalizeConnectionType(String connectionType) {
+        if (connectionType == null || connectionType.isBlank()) {
+            return null;
+        }
+        String normalized = connectionType.trim().toUpperCase(Locale.ROOT);
+        if (normalized.equals("ALL")) {
+            return null;
+        }
+        return normalized.equals("FIBRE") ? "FIBER" : normalized;
+    }
+
+    @Override
+    public String toString() {
+        return "OfferFilter{" + key() + "}";
+    }
+}
@@ -0,0 +1,134 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Derives stable product ids for providers that do not deliver an id of their own, and fingerprints
+ * used to recognize duplicate offers.
+ * <p>
+ * Both are 64-bit MurmurHash3 values of the normalized offer content (strings trimmed and lower-cased),
+ * so the same tariff gets the same id on every search and in every JVM. Offers with identical content share an id.
+ * </p>
+ */
+public final class OfferIds {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private OfferIds() {
+    }
+
+    /**
+     * Computes the content-derived id of an offer.
+     *
+     * @param prefix The provider-specific prefix of the id (e.g. {@code "ping-"}).
+     * @param offer  The fully populated offer; its current product id is ignored.
+     * @return The prefix followed by 16 hexadecimal characters.
+     */
+    public static String contentId(String prefix, InternetOffer offer) {
+        Hasher hasher = HASH.newHasher();
+        putContent(hasher, offer);
+        return prefix + String.format("%016x", hasher.hash().asLong());
+    }
+
+    /**
+     * Computes the fingerprint of an offer, covering its product id and its content.
+     * Two offers with the same fingerprint are treated as the same offer.
+     *
+     * @param offer The offer to fingerprint.
+     * @return A 64-bit hash of the offer.
+     */
+    public static long fingerprint(InternetOffer offer) {
+        Hasher hasher = HASH.newHasher();
+        putString(hasher, offer.getProductId());
+        putContent(hasher, offer);
+        return hasher.hash().asLong();
+    }
+
+    private static void putContent(Hasher hasher, InternetOffer offer) {
+        putString(hasher, offer.getProviderName());
+        hasher.putInt(offer.getSpeed());
+        hasher.putInt(offer.getMonthlyCostInCent());
+        hasher.putInt(offer.getAfterTwoYearsMonthlyCost());
+        putString(hasher, offer.getConnectionType());
+        putInteger(hasher, offer.getDurationInMonths());
+        hasher.putByte(offer.getInstallationService() == null ? (byte) 2 : (byte) (offer.getInstallationService() ? 1 : 0));
+        putString(hasher, offer.getTv());
+        putInteger(hasher, offer.getLimitFrom());
+        putInteger(hasher, offer.getMaxAge());
+        putString(hasher, offer.getVoucherType());
+        putInteger(hasher, offer.getVoucherValue());
+        putInteger(hasher, offer.getDiscount());
+        hasher.putInt(offer.getDiscountDuration());
+        hasher.putInt(offer.getDiscountCap());
+        putInteger(hasher, offer.getPercentage());
+        putInteger(hasher, offer.getMaxDiscountInCent());
+        putInteger(hasher, offer.getDiscountInCent());
+        putInteger(hasher, offer.getMinOrderValueInCent());
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        String normalized = collapseWhitespace(value).toLowerCase(Locale.ROOT);
+        // Length prefix keeps adjacent fields from running into each other
+        hasher.putInt(normalized.length()).putString(normalized, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Trims a value and collapses every run of whitespace into a single space, like
+     * {@code value.trim().replaceAll("\\s+", " ")} but in a single pass without a regex. Values that are already
+     * normalized, which are most of them, are returned without copying.
+     */
+    private static String collapseWhitespace(String value) {
+        String trimmed = value.trim();
+        int length = trimmed.length();
+        int i = 0;
+        // Trimmed values neither start nor end with whitespace, so only runs and non-space whitespace need a copy
+        while (i < length) {
+            char c = trimmed.charAt(i);
+            if (isWhitespace(c) && (c != ' ' || isWhitespace(trimmed.charAt(i + 1)))) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return trimmed;
+        }
+        StringBuilder collapsed = new StringBuilder(length).append(trimmed, 0, i);
+        boolean inWhitespace = false;
+        for (; i < length; i++) {
+            char c = trimmed.charAt(i);
+            if (!isWhitespace(c)) {
+                collapsed.append(c);
+                inWhitespace = false;
+            } else if (!inWhitespace) {
+                collapsed.append(' ');
+                inWhitespace = true;
+            }
+        }
+        return collapsed.toString();
+    }
+
+    /**
+     * @return Whether the character belongs to the regex class {@code \s}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static void putInteger(Hasher hasher, Integer value) {
+        if (value == null) {
+            hasher.putBoolean(false);
+        } else {
+            hasher.putBoolean(true).putInt(value);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * The keys offers can be ranked by in the sorted delivery mode of the offer search.
+ */
+public enum OfferSortKey {
+
+    /**
+     * The monthly cost during the initial contract period, cheapest first by default.
+     */
+    MONTHLY_COST("monthlyCost", true, InternetOffer::getMonthlyCostInCent),
+    /**
+     * The advertised speed, fastest first by default.
+     */
+    SPEED("speed", false, InternetOffer::getSpeed),
+    /**
+     * The average monthly cost over the first 24 months after deducting the offer's voucher,
+     * cheapest first by default. See {@link #effectiveMonthlyCostInCent(InternetOffer)}.
+     */
+    EFFECTIVE_PRICE("effectivePrice", true, OfferSortKey::effectiveMonthlyCostInCent);
+
+    private static final int MONTHS = 24;
+
+    private final String key;
+    private final boolean ascendingByDefault;
+    private final ToIntFunction<InternetOffer> value;
+
+    OfferSortKey(String key, boolean ascendingByDefault, ToIntFunction<InternetOffer> value) {
+        this.key = key;
+        this.ascendingByDefault = ascendingByDefault;
+        this.value = value;
+    }
+
+    /**
+     * Resolves a sort key by its request name.
+     *
+     * @param key The name used in requests (e.g. {@code "monthlyCost"}), case-insensitive.
+     * @return The matching sort key.
+     * @throws IllegalArgumentException If the name is unknown.
+     */
+    public static OfferSortKey fromKey(String key) {
+        for (OfferSortKey sortKey : values()) {
+            if (sortKey.key.equalsIgnoreCase(key)) {
+                return sortKey;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort key: " + key);
+    }
+
+    /**
+     * Returns the comparator ranking the best offer first.
+     *
+     * @param order {@code "asc"} or {@code "desc"}; {@code null} selects the key's natural direction.
+     * @return A comparator that orders by this key and, for equal values, by product id.
+     */
+    public Comparator<InternetOffer> comparator(String order) {
+        boolean ascending = order == null ? ascendingByDefault : !"desc".equalsIgnoreCase(order);
+        Comparator<InternetOffer> byValue = Comparator.comparingInt(value);
+        return (ascending ? byValue : byValue.reversed())
+                .thenComparing(InternetOffer::getProductId, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    /**
+     * Computes the average monthly cost over the first 24 months, in cents.
+     * An absolute voucher is deducted if the minimum order value is reached; a percentage voucher is applied
+     * to the 24-month total and limited by its maximum discount.
+     *
+     * @param offer The offer.
+     * @return The effective monthly cost in cents.
+     */
+    static int effectiveMonthlyCostInCent(InternetOffer offer) {
+        long total = (long) offer.getMonthlyCostInCent() * MONTHS;
+        long discount = 0;
+        if ("PERCENTAGE".equals(offer.getVoucherType()) && offer.getPercentage() != null) {
+            discount = total * offer.getPercentage() / 100;
+            if (offer.getMaxDiscountInCent() != null) {
+                discount = Math.min(discount, offer.getMaxDiscountInCent());
+            }
+        } else if ("ABSOLUTE".equals(offer.getVoucherType())) {
+            Integer amount = offer.getDiscountInCent() != null ? offer.getDiscountInCent() : offer.getVoucherValue();
+            Integer minOrderValue = offer.getMinOrderValueInCent();
+            if (amount != null && (minOrderValue == null || total >= minOrderValue)) {
+                discount = amount;
+            }
+        }
+        return (int) (Math.max(0, total - discount) / MONTHS);
+    }
+}
@@ -0,0 +1,187 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import com.SimonMk116.gendev.service.resilience.ProviderUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges the offer streams of several providers into one stream of Server-Sent Events, bounding each provider
+ * by a deadline.
+ * <p>
+ * Every provider gets {@code provider.<name>.deadline} (default {@code offers.provider-deadline}) to deliver its
+ * offers. Offers are emitted as unnamed events. A provider that has not completed by its deadline is cut off,
+ * which counts as a failed call for its {@link CircuitBreaker}, and reported with a {@value #PROVIDER_TIMEOUT_EVENT} event; a provider that fails is skipped without ending the other
+ * streams. A provider skipped by its open circuit breaker ({@link ProviderUnavailableException}) is reported with a
+ * {@value #PROVIDER_UNAVAILABLE_EVENT} event. Once all providers are done, a {@value #SUMMARY_EVENT} event lists which
+ * providers answered, timed out, failed or were unavailable.
+ * </p>
+ */
+@Component
+public class OfferStreamAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfferStreamAggregator.class);
+
+    /**
+     * Name of the event reporting a provider that missed its deadline.
+     */
+    public static final String PROVIDER_TIMEOUT_EVENT = "provider-timeout";
+    /**
+     * Name of the event reporting a provider skipped by its open circuit breaker.
+     */
+    public static final String PROVIDER_UNAVAILABLE_EVENT = "provider-unavailable";
+    /**
+     * Name of the final event summarizing the outcome of every provider.
+     */
+    public static final String SUMMARY_EVENT = "summary";
+
+    static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+
+    /**
+     * Payload of a {@value #PROVIDER_TIMEOUT_EVENT} event.
+     *
+     * @param provider        The provider key.
+     * @param deadlineMillis  The deadline the provider missed, in milliseconds.
+     * @param offersDelivered The number of offers the provider delivered before it was cut off.
+     */
+    public record ProviderTimeout(String provider, long deadlineMillis, int offersDelivered) {
+    }
+
+    /**
+     * Payload of a {@value #PROVIDER_UNAVAILABLE_EVENT} event.
+     *
+     * @param provider         The provider key.
+     * @param retryAfterMillis The time until the provider's circuit breaker probes it again, in milliseconds.
+     */
+    public record ProviderUnavailable(String provider, long retryAfterMillis) {
+    }
+
+    /**
+     * Payload of the {@value #SUMMARY_EVENT} event.
+     *
+     * @param answered       The providers that completed in time.
+     * @param timedOut       The providers that were cut off at their deadline.
+     * @param failed         The providers that failed with an error.
+     * @param unavailable    The providers skipped by their open circuit breaker.
+     * @param durationMillis The time from subscription until the last provider was done, in milliseconds.
+     */
+    public record SearchSummary(List<String> answered, List<String> timedOut, List<String> failed,
+                                List<String> unavailable, long durationMillis) {
+    }
+
+    private final Environment environment;
+    private final Duration defaultDeadline;
+
+    /**
+     * Constructs the aggregator.
+     *
+     * @param environment The Spring {@link Environment} used to resolve the per-provider deadlines.
+     */
+    @Autowired
+    public OfferStreamAggregator(Environment environment) {
+        this.environment = environment;
+        this.defaultDeadline = environment.getProperty("offers.provider-deadline", Duration.class, DEFAULT_DEADLINE);
+    }
+
+    /**
+     * Returns the deadline of a provider.
+     *
+     * @param provider The provider key.
+     * @return The configured deadline.
+     */
+    public Duration deadlineFor(String provider) {
+        return environment.getProperty("provider." + provider + ".deadline", Duration.class, defaultDeadline);
+    }
+
+    /**
+     * Merges the given provider streams.
+     *
+     * @param providers The offer streams keyed by provider key; they are subscribed when the result is subscribed.
+     * @return The merged events: offers, {@value #PROVIDER_TIMEOUT_EVENT} events and a final {@value #SUMMARY_EVENT}.
+     */
+    public Flux<ServerSentEvent<Object>> aggregate(Map<String, Flux<InternetOffer>> providers) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            List<String> answered = new ArrayList<>();
+            List<String> timedOut = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            List<String> unavailable = new ArrayList<>();
+            List<Flux<ServerSentEvent<Object>>> streams = new ArrayList<>();
+            providers.forEach((provider, offers) -> streams.add(withDeadline(provider, offers, answered, timedOut, failed, unavailable)));
+            return Flux.merge(streams)
+                    .concatWith(Flux.defer(() -> {
+                        SearchSummary summary;
+                        synchronized (answered) {
+                            summary = new SearchSummary(List.copyOf(answered), List.copyOf(timedOut), List.copyOf(failed),
+                                    List.copyOf(unavailable), Duration.ofNanos(System.nanoTime() - start).toMillis());
+                        }
+                        logger.info("Offer search finished: {}", summary);
+                        return Flux.just(ServerSentEvent.<Object>builder(summary).event(SUMMARY_EVENT).build());
+                    }));
+        });
+    }
+
+    private Flux<ServerSentEvent<Object>> withDeadline(String provider, Flux<InternetOffer> offers,
+                                                       List<String> answered, List<String> timedOut, List<String> failed,
+                                                       List<String> unavailable) {
+        Duration deadline = deadlineFor(provider);
+        AtomicBoolean expired = new AtomicBoolean();
+        AtomicInteger delivered = new AtomicInteger();
+        Mono<Long> timer = Mono.delay(deadline).doOnNext(tick -> expired.set(true));
+        return CircuitBreaker.takeUntilDeadline(offers, timer)
+                .doOnNext(offer -> delivered.incrementAndGet())
+                .map(offer -> ServerSentEvent.<Object>builder(offer).build())
+                .concatWith(Flux.defer(() -> {
+                    if (!expired.get()) {
+                        record(answered, answered, provider);
+                        return Flux.empty();
+                    }
+                    record(answered, timedOut, provider);
+                    logger.warn("Provider {} missed its deadline of {} after {} offers", provider, deadline, delivered.get());
+                    return Flux.just(ServerSentEvent.<Object>builder(new ProviderTimeout(provider, deadline.toMillis(), delivered.get()))
+                            .event(PROVIDER_TIMEOUT_EVENT)
+                            .build());
+                }))
+                .onErrorResume(ProviderUnavailableException.class, error -> {
+                    record(answered, unavailable, provider);
+                    return Flux.just(ServerSentEvent.<Object>builder(new ProviderUnavailable(provider, error.getRetryAfter().toMillis()))
+                            .event(PROVIDER_UNAVAILABLE_EVENT)
+                            .build());
+                })
+                .onErrorResume(error -> {
+                    record(answered, failed, provider);
+                    logger.warn("Provider {} failed: {}", provider, error.toString());
+                    return Flux.empty();
+                });
+    }
+
+    private static void record(Object lock, List<String> outcome, String provider) {
+        synchronized (lock) {
+            outcome.add(provider);
+        }
+    }
+
+    /**
+     * Extracts the offer carried by an event.
+     *
+     * @param event An event produced by {@link #aggregate(Map)}.
+     * @return The offer, or {@code null} for status events.
+     */
+    public static InternetOffer offerOf(ServerSentEvent<?> event) {
+        return event.data() instanceof InternetOffer offer ? offer : null;
+    }
+}
@@ -0,0 +1,113 @@
+package com.SimonMk116.gendev.service.aggregation;
+
+import com.SimonMk116.gendev.dto.SortCriteriaDataDto;
+import com.SimonMk116.gendev.model.InternetOffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Turns an offer stream into ranked top-K snapshots.
+ * <p>
+ * While the providers stream in, the best {@code top} offers by the requested {@link OfferSortKey} are kept in a
+ * bounded heap. Every {@code offers.ranking.snapshot-interval} in which the ranking changed, a {@code snapshot}
+ * event with the current ranked list is emitted; after the last provider has finished, a {@code final} event carries
+ * the final ordered list. Clients asking for a few offers therefore neither receive nor sort the whole result.
+ * </p>
+ */
+@Component
+public class RankedOfferStream {
+
+    /**
+     * Name of the events carrying an intermediate ranking.
+     */
+    public static final String SNAPSHOT_EVENT = "snapshot";
+    /**
+     * Name of the event carrying the final ranking.
+     */
+    public static final String FINAL_EVENT = "final";
+
+    static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMillis(500);
+
+    @Value("${offers.ranking.snapshot-interval:PT0.5S}")
+    private Duration snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+
+    /**
+     * Ranks the given offers.
+     *
+     * @param offers       The offer stream of a single search.
+     * @param sortCriteria The sort key ({@code monthlyCost}, {@code speed} or {@code effectivePrice}) and the
+     *                     optional order ({@code asc} or {@code desc}).
+     * @param top          The number of offers to keep, at least {@code 1}.
+     * @return A {@link Flux} of {@code snapshot} events followed by one {@code final} event.
+     */
+    public Flux<ServerSentEvent<List<InternetOffer>>> rank(Flux<InternetOffer> offers, SortCriteriaDataDto sortCriteria, int top) {
+        Comparator<InternetOffer> comparator = OfferSortKey.fromKey(sortCriteria.getKey()).comparator(sortCriteria.getOrder());
+        return Flux.defer(() -> {
+            TopOffers ranking = new TopOffers(comparator, Math.max(1, top));
+            return offers
+                    .buffer(snapshotInterval)
+                    .concatMap(batch -> ranking.addAll(batch)
+                            ? Flux.just(event(SNAPSHOT_EVENT, ranking.ranked()))
+                            : Flux.empty())
+                    .concatWith(Flux.defer(() -> Flux.just(event(FINAL_EVENT, ranking.ranked()))));
+        });
+    }
+
+    private static ServerSentEvent<List<InternetOffer>> event(String name, List<InternetOffer> offers) {
+        return ServerSentEvent.builder(offers).event(name).build();
+    }
+
+    /**
+     * Bounded heap of the best offers. The worst kept offer is at the head, so a better offer replaces it in
+     * {@code O(log k)}. Not thread-safe.
+     */
+    static final class TopOffers {
+        private final Comparator<InternetOffer> comparator;
+        private final int capacity;
+        private final PriorityQueue<InternetOffer> heap;
+
+        TopOffers(Comparator<InternetOffer> comparator, int capacity) {
+            this.comparator = comparator;
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(capacity, comparator.reversed());
+        }
+
+        /**
+         * Adds offers to the ranking.
+         *
+         * @param offers The offers to add.
+         * @return {@code true} if at least one offer entered the ranking.
+         */
+        boolean addAll(List<InternetOffer> offers) {
+            boolean changed = false;
+            for (InternetOffer offer : offers) {
+                if (heap.size() < capacity) {
+                    heap.add(offer);
+                    changed = true;
+                } else if (comparator.compare(offer, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(offer);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * @return The kept offers, best first.
+         */
+        List<InternetOffer> ranked() {
+            List<InternetOffer> ranked = new ArrayList<>(heap);
+            ranked.sort(comparator);
+            return ranked;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.SimonMk116.gendev.service.bytemeservice;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental parser for the CSV body returned by the ByteMe API.
+ * <p>
+ * The body is fed chunk by chunk as it arrives from the network. Bytes are decoded as UTF-8 (multibyte characters
+ * may be split across chunks) and run through a small CSV state machine following the RFC 4180 rules of
+ * {@code CSVFormat.DEFAULT}: comma separated, double-quoted fields with {@code ""} escapes and embedded line breaks,
+ * {@code \n}, {@code \r\n} or {@code \r} record separators and empty lines ignored. The first record is the header;
+ * every following record is mapped to an {@link InternetOffer} as soon as its line is complete.
+ * </p>
+ * Instances are stateful and must only be used for a single response.
+ */
+final class ByteMeCsvParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ByteMeCsvParser.class);
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+    private ByteBuffer undecoded = ByteBuffer.allocate(0);
+
+    private final StringBuilder field = new StringBuilder();
+    private List<String> values = new ArrayList<>();
+    private boolean inQuotes;
+    private boolean quotedField;
+    private boolean quoteClosed;
+    private boolean afterCarriageReturn;
+
+    private Map<String, Integer> header;
+
+    /**
+     * Feeds the next chunk of the response body into the parser.
+     *
+     * @param bytes The raw bytes of the chunk.
+     * @return The offers whose records were completed by this chunk, in order of appearance.
+     */
+    List<InternetOffer> feed(byte[] bytes) {
+        ByteBuffer input;
+        if (undecoded.hasRemaining()) {
+            input = ByteBuffer.allocate(undecoded.remaining() + bytes.length);
+            input.put(undecoded).put(bytes).flip();
+        } else {
+            input = ByteBuffer.wrap(bytes);
+        }
+        List<InternetOffer> offers = new ArrayList<>();
+        decode(input, false, offers);
+        // Keep an incomplete multibyte sequence for the next chunk
+        undecoded = input.hasRemaining() ? ByteBuffer.allocate(input.remaining()).put(input).flip() : ByteBuffer.allocate(0);
+        return offers;
+    }
+
+    /**
+     * Signals the end of the response body and completes a trailing record without line break.
+     *
+     * @return The offers of records that were only completed by the end of the body.
+     */
+    List<InternetOffer> finish() {
+        List<InternetOffer> offers = new ArrayList<>();
+        decode(undecoded, true, offers);
+        decoder.flush(chars);
+        drain(offers);
+        if (quotedField || field.length() > 0 || !values.isEmpty()) {
+            endRecord(offers);
+        }
+        return offers;
+    }
+
+    private void decode(ByteBuffer input, boolean endOfInput, List<InternetOffer> offers) {
+        CoderResult result;
+        do {
+            result = decoder.decode(input, chars, endOfInput);
+            drain(offers);
+        } while (result.isOverflow());
+    }
+
+    private void drain(List<InternetOffer> offers) {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            accept(chars.get(), offers);
+        }
+        chars.clear();
+    }
+
+    private void accept(char c, List<InternetOffer> offers) {
+        boolean skipLineFeed = afterCarriageReturn && c == '\n';
+        afterCarriageReturn = false;
+        if (skipLineFeed) {
+            return; // Second half of a \r\n separator
+        }
+        if (inQuotes) {
+            if (c == '"') {
+                inQuotes = false;
+                quoteClosed = true;
+            } else {
+                field.append(c);
+            }
+            return;
+        }
+        switch (c) {
+            case ',' -> endField();
+            case '\r' -> {
+                afterCarriageReturn = true;
+                endRecord(offers);
+            }
+            case '\n' -> endRecord(offers);
+            case '"' -> {
+                if (quoteClosed) {
+                    // Escaped quote ("") inside a quoted field
+                    field.append('"');
+                    inQuotes = true;
+                    quoteClosed = false;
+                } else if (!quotedField && field.length() == 0) {
+                    inQuotes = true;
+                    quotedField = true;
+                } else {
+                    field.append(c);
+                }
+            }
+            default -> {
+                quoteClosed = false;
+                field.append(c);
+            }
+        }
+    }
+
+    private void endField() {
+        values.add(field.toString());
+        field.setLength(0);
+        quotedField = false;
+        quoteClosed = false;
+    }
+
+    private void endRecord(List<InternetOffer> offers) {
+        if (values.isEmpty() && field.length() == 0 && !quotedField) {
+            return; // Empty lines are ignored
+        }
+        endField();
+        List<String> record = values;
+        values = new ArrayList<>(record.size());
+        if (header == null) {
+            header = new HashMap<>();
+            for (int i = 0; i < record.size(); i++) {
+                header.putIfAbsent(record.get(i), i);
+            }
+            return;
+        }
+        InternetOffer offer = toOffer(record);
+        if (offer != null) {
+            offers.add(offer);
+        }
+    }
+
+    private InternetOffer toOffer(List<String> record) {
+        if (isNullOrEmpty(record, "productId") ||
+                isNullOrEmpty(record, "providerName") ||
+                isNullOrEmpty(record, "speed") ||
+                isNullOrEmpty(record, "monthlyCostInCent") ||
+                isNullOrEmpty(record, "afterTwoYearsMonthlyCost")) {
+            logger.warn("ByteMe CSV: Missing mandatory field(s). Skipping record: {}", record);
+            return null;
+        }
+
+        try {
+            return InternetOffer.builder()
+                    .productId(get(record, "productId"))
+                    .providerName(get(record, "providerName"))
+                    .speed(Integer.parseInt(get(record, "speed")))
+                    .monthlyCostInCent(Integer.parseInt(get(record, "monthlyCostInCent")))
+                    .afterTwoYearsMonthlyCost(Integer.parseInt(get(record, "afterTwoYearsMonthlyCost")))
+                    // Optional fields; columns missing from the header or record are treated as null
+                    .durationInMonths(parseOptionalInt(get(record, "durationInMonths")))
+                    .connectionType(parseOptionalString(get(record, "connectionType")))
+                    .installationService(parseOptionalBoolean(get(record, "installationService")))
+                    .tv(parseOptionalString(get(record, "tv")))
+                    .limitFrom(parseOptionalInt(get(record, "limitFrom")))
+                    .maxAge(parseOptionalInt(get(record, "maxAge")))
+                    .voucherType(get(record, "voucherType"))
+                    .voucherValue(parseOptionalInt(get(record, "voucherValue")))
+                    .build();
+        } catch (NumberFormatException e) {
+            logger.warn("ByteMe CSV: Invalid numeric data in record: {}. Skipping record. Error: {}", record, e.getMessage());
+            return null;
+        }
+    }
+
+    private String get(List<String> record, String fieldName) {
+        Integer index = header.get(fieldName);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    private boolean isNullOrEmpty(List<String> record, String fieldName) {
+        String value = get(record, fieldName);
+        return value == null || value.isEmpty();
+    }
+
+    private static String parseOptionalString(String value) {
+        return (value == null || value.isBlank() || "null".equalsIgnoreCase(value.trim())) ? null : value;
+    }
+
+    private static Integer parseOptionalInt(String value) {
+        return (value == null || value.isBlank()) || "null".equalsIgnoreCase(value.trim()) ? null : Integer.parseInt(value);
+    }
+
+    private static Boolean parseOptionalBoolean(String value) {
+        return (value == null || value.isBlank()) || "null".equalsIgnoreCase(value.trim()) ? null : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,173 @@
+package com.SimonMk116.gendev.service.cache;
+
+import com.SimonMk116.gendev.controller.OfferController;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Aggregated result cache for the internet offer providers.
+ * <p>
+ * Each {@link OfferController.InternetOfferService} can be wrapped with {@link #wrap(String, OfferController.InternetOfferService)}.
+ * The wrapper caches the complete offer list per provider and normalized {@link RequestAddress}. Entries are served
+ * directly while they are younger than the provider's TTL ({@code provider.<name>.cache-ttl}). Expired entries are
+ * still served during the stale-while-revalidate window ({@code provider.<name>.cache-stale-while-revalidate}) while
+ * a single background refresh fetches a fresh result. The cache is bounded by the total number of cached offers
+ * ({@code offers.cache.max-offers}). Results of searches narrowed by an {@link OfferFilter} are cached under their own
+ * key; a fresh complete result is also served to filtered searches. Only complete results are cached: a provider
+ * that gave up with {@link CircuitBreaker#giveUp(Throwable)}, possibly after emitting some offers, leaves the cache
+ * untouched.
+ * </p>
+ */
+@Component
+public class ProviderOfferCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderOfferCache.class);
+
+    /**
+     * The TTL of providers without a {@code provider.<name>.cache-ttl}.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    static final Duration DEFAULT_STALE_WHILE_REVALIDATE = Duration.ofMinutes(30);
+    static final long DEFAULT_MAX_OFFERS = 50_000;
+
+    private final Environment environment;
+    private final Cache<String, CachedOffers> cache;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs the cache and sizes it from the {@code offers.cache.max-offers} property.
+     *
+     * @param environment The Spring {@link Environment} used to resolve the per-provider cache settings.
+     */
+    @Autowired
+    public ProviderOfferCache(Environment environment) {
+        this.environment = environment;
+        long maxOffers = environment.getProperty("offers.cache.max-offers", Long.class, DEFAULT_MAX_OFFERS);
+        this.cache = CacheBuilder.newBuilder()
+                // Weigh entries by their number of offers so the bound reflects memory rather than addresses
+                .maximumWeight(maxOffers)
+                .weigher((String key, CachedOffers value) -> value.offers().size() + 1)
+                .build();
+    }
+
+    /**
+     * Wraps a provider service with this cache, using the provider's configured TTL and stale window.
+     *
+     * @param provider The provider name, used in the cache key and to look up {@code provider.<name>.*} settings.
+     * @param delegate The provider service that is queried on cache misses and refreshes.
+     * @return An {@link OfferController.InternetOfferService} serving cached results where possible.
+     */
+    public OfferController.InternetOfferService wrap(String provider, OfferController.InternetOfferService delegate) {
+        Duration ttl = environment.getProperty("provider." + provider + ".cache-ttl", Duration.class, DEFAULT_TTL);
+        Duration staleWindow = environment.getProperty("provider." + provider + ".cache-stale-while-revalidate", Duration.class, DEFAULT_STALE_WHILE_REVALIDATE);
+        logger.info("Caching {} offers with TTL {} and stale-while-revalidate window {}", provider, ttl, staleWindow);
+        return new OfferController.InternetOfferService() {
+            @Override
+            public Flux<InternetOffer> getOffers(RequestAddress address) {
+                return ProviderOfferCache.this.getOffers(provider, address, OfferFilter.NONE, ttl, staleWindow,
+                        () -> delegate.getOffers(address));
+            }
+
+            @Override
+            public Flux<InternetOffer> getOffers(RequestAddress address, OfferFilter filter) {
+                if (filter.isEmpty()) {
+                    return getOffers(address);
+                }
+                return ProviderOfferCache.this.getOffers(provider, address, filter, ttl, staleWindow,
+                        () -> delegate.getOffers(address, filter));
+            }
+
+            @Override
+            public boolean canSatisfy(OfferFilter filter) {
+                return filter.isEmpty() || delegate.canSatisfy(filter);
+            }
+        };
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Flux<InternetOffer> getOffers(String provider, RequestAddress address, OfferFilter filter,
+                                          Duration ttl, Duration staleWindow, Supplier<Flux<InternetOffer>> fetch) {
+        return Flux.defer(() -> {
+            String unfilteredKey = provider + "|" + address.normalizedKey();
+            if (!filter.isEmpty()) {
+                // A fresh unfiltered result contains every offer a filtered search could return
+                CachedOffers unfiltered = cache.getIfPresent(unfilteredKey);
+                if (unfiltered != null && Duration.ofNanos(System.nanoTime() - unfiltered.storedAtNanos()).compareTo(ttl) <= 0) {
+                    return Flux.fromIterable(unfiltered.offers());
+                }
+            }
+            // Results narrowed by a filter are cached separately from the complete result
+            String key = filter.isEmpty() ? unfilteredKey : unfilteredKey + "|" + filter.key();
+            CachedOffers cached = cache.getIfPresent(key);
+            if (cached != null) {
+                Duration age = Duration.ofNanos(System.nanoTime() - cached.storedAtNanos());
+                if (age.compareTo(ttl) <= 0) {
+                    logger.debug("Serving {} cached {} offers for {}", cached.offers().size(), provider, key);
+                    return Flux.fromIterable(cached.offers());
+                }
+                if (age.compareTo(ttl.plus(staleWindow)) <= 0) {
+                    logger.debug("Serving stale {} offers for {} while revalidating", provider, key);
+                    refreshInBackground(key, provider, fetch);
+                    return Flux.fromIterable(cached.offers());
+                }
+                cache.invalidate(key);
+            }
+            return fetchAndStore(key, fetch);
+        });
+    }
+
+    private Flux<InternetOffer> fetchAndStore(String key, Supplier<Flux<InternetOffer>> fetch) {
+        List<InternetOffer> received = new ArrayList<>();
+        // Only complete results are cached; errors, cancellations and providers that gave up leave the cache untouched
+        return CircuitBreaker.doOnSuccess(fetch.get().doOnNext(received::add), () -> store(key, received));
+    }
+
+    private void refreshInBackground(String key, String provider, Supplier<Flux<InternetOffer>> fetch) {
+        if (!refreshing.add(key)) {
+            return; // A refresh for this entry is already running
+        }
+        Flux.defer(() -> fetchAndStore(key, fetch))
+                // Providers may still block during assembly, so never refresh on the request thread
+                .subscribeOn(Schedulers.boundedElastic())
+                .then()
+                .doFinally(signal -> refreshing.remove(key))
+                .subscribe(
+                        null,
+                        error -> logger.warn("Background refresh of {} offers for {} failed: {}", provider, key, error.getMessage()));
+    }
+
+    private void store(String key, List<InternetOffer> offers) {
+        if (offers.isEmpty()) {
+            // Providers report failures as empty results, so an empty list is not worth remembering
+            return;
+        }
+        cache.put(key, new CachedOffers(List.copyOf(offers), System.nanoTime()));
+    }
+
+    private record CachedOffers(List<InternetOffer> offers, long storedAtNanos) {
+    }
+}
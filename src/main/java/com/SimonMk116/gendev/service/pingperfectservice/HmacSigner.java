@@ -0,0 +1,189 @@
+package com.SimonMk116.gendev.service.pingperfectservice;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * HMAC-SHA256 signer for the PingPerfect request signature {@code hex(HMAC(secret, timestamp + ":" + payload))}.
+ * <p>
+ * Looking up and initializing a {@link Mac}, concatenating the data to sign and hex-encoding byte by byte cost
+ * several allocations per request. A signer keeps initialized {@link Mac}s together with reusable input and digest
+ * buffers in a small pool: the timestamp and payload are UTF-8 encoded straight into the input buffer and the
+ * digest is hex-encoded from a lookup table, so signing into a caller-provided buffer allocates nothing beyond what
+ * the JDK's HMAC implementation does internally. The pool, rather than a thread-local, also pays off when the calls
+ * run on short-lived virtual threads.
+ * </p>
+ * Instances are thread-safe.
+ */
+public final class HmacSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_IDLE = 32;
+
+    /**
+     * Length of the hex-encoded signature.
+     */
+    public static final int SIGNATURE_LENGTH = 64;
+
+    private final SecretKeySpec key;
+    private final BlockingQueue<State> pool = new ArrayBlockingQueue<>(MAX_IDLE);
+
+    /**
+     * Creates a signer.
+     *
+     * @param secret The shared secret.
+     */
+    public HmacSigner(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        // Fail on startup rather than on the first request if the algorithm is unavailable
+        pool.offer(new State(key));
+    }
+
+    /**
+     * Signs a request.
+     *
+     * @param timestamp The value of the {@code X-Timestamp} header.
+     * @param payload   The request body.
+     * @return The lowercase hex-encoded signature.
+     */
+    public String sign(CharSequence timestamp, CharSequence payload) {
+        State state = acquire();
+        state.sign(timestamp, payload, state.hex);
+        String signature = new String(state.hex, StandardCharsets.ISO_8859_1);
+        pool.offer(state);
+        return signature;
+    }
+
+    /**
+     * Signs a request into a buffer.
+     *
+     * @param timestamp The value of the {@code X-Timestamp} header.
+     * @param payload   The request body.
+     * @param hex       Receives the lowercase hex-encoded signature as ASCII in its first {@link #SIGNATURE_LENGTH} bytes.
+     */
+    public void sign(CharSequence timestamp, CharSequence payload, byte[] hex) {
+        State state = acquire();
+        state.sign(timestamp, payload, hex);
+        pool.offer(state);
+    }
+
+    /**
+     * Signs a request whose body has already been serialized, without decoding it again.
+     *
+     * @param timestamp The value of the {@code X-Timestamp} header.
+     * @param payload   The readable bytes of the request body, e.g. from {@code DataBuffer#readableByteBuffers()}.
+     *                  Their positions are advanced.
+     * @return The lowercase hex-encoded signature.
+     */
+    public String sign(CharSequence timestamp, Iterator<ByteBuffer> payload) {
+        State state = acquire();
+        state.begin(timestamp);
+        while (payload.hasNext()) {
+            state.mac.update(payload.next());
+        }
+        state.finish(state.hex);
+        String signature = new String(state.hex, StandardCharsets.ISO_8859_1);
+        pool.offer(state);
+        return signature;
+    }
+
+    private State acquire() {
+        State state = pool.poll();
+        return state != null ? state : new State(key);
+    }
+
+    /**
+     * An initialized {@link Mac} with its buffers, used by one thread at a time.
+     */
+    private static final class State {
+
+        private final Mac mac;
+        private final byte[] digest;
+        private final byte[] hex = new byte[SIGNATURE_LENGTH];
+        private byte[] input = new byte[512];
+
+        State(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize " + ALGORITHM, e);
+            }
+            digest = new byte[mac.getMacLength()];
+        }
+
+        void sign(CharSequence timestamp, CharSequence payload, byte[] hex) {
+            int length = encode(timestamp, 0);
+            length = put(length, (byte) ':');
+            length = encode(payload, length);
+            mac.update(input, 0, length);
+            finish(hex);
+        }
+
+        void begin(CharSequence timestamp) {
+            int length = encode(timestamp, 0);
+            length = put(length, (byte) ':');
+            mac.update(input, 0, length);
+        }
+
+        void finish(byte[] hex) {
+            try {
+                // Also resets the Mac for the next signature
+                mac.doFinal(digest, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException("Digest buffer too small", e);
+            }
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xf];
+            }
+        }
+
+        /**
+         * Appends the UTF-8 encoding of the characters to the input, growing it if needed.
+         */
+        private int encode(CharSequence chars, int position) {
+            for (int i = 0; i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                if (c < 0x80) {
+                    position = put(position, (byte) c);
+                } else if (c < 0x800) {
+                    position = put(position, (byte) (0xc0 | (c >> 6)));
+                    position = put(position, (byte) (0x80 | (c & 0x3f)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < chars.length()
+                        && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                    position = put(position, (byte) (0xf0 | (codePoint >> 18)));
+                    position = put(position, (byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                    position = put(position, (byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                    position = put(position, (byte) (0x80 | (codePoint & 0x3f)));
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogates are encoded as '?', like String.getBytes does
+                    position = put(position, (byte) '?');
+                } else {
+                    position = put(position, (byte) (0xe0 | (c >> 12)));
+                    position = put(position, (byte) (0x80 | ((c >> 6) & 0x3f)));
+                    position = put(position, (byte) (0x80 | (c & 0x3f)));
+                }
+            }
+            return position;
+        }
+
+        private int put(int position, byte b) {
+            if (position == input.length) {
+                input = Arrays.copyOf(input, input.length * 2);
+            }
+            input[position] = b;
+            return position + 1;
+        }
+    }
+}
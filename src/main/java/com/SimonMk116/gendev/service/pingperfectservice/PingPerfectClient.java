@@ -1,27 +1,39 @@
 package com.SimonMk116.gendev.service.pingperfectservice;
 
 import com.SimonMk116.gendev.dto.SearchRequests;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.time.Instant;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Client service for interacting with the PingPerfect internet offer API.
- * This class handles the construction of requests, including secure HMAC-SHA256 signatures,
- * sending HTTP POST requests, and processing JSON responses.
- * It also incorporates a retry mechanism for transient server errors.
+ * This class handles the construction of requests, sending HTTP POST requests with the reactive
+ * {@link WebClient} of the provider, and parsing the streamed JSON responses into offers. The {@code X-Timestamp} and
+ * {@code X-Signature} headers are added by the {@link PingPerfectSigningFilter} of that {@link WebClient}
+ * over the serialized request body.
+ * Transient server and network errors are retried with a non-blocking exponential backoff, so a search
+ * holds no thread while waiting on the API.
  */
 @Component
 public class PingPerfectClient {
@@ -30,102 +42,106 @@ public class PingPerfectClient {
     private String apiUrl;
     @Value("${provider.pingperfect.client-id}")
     private String clientId;
-    @Value("${provider.pingperfect.signature-secret}")
-    private String signatureSecret;
 
     private static final Logger logger = LoggerFactory.getLogger(PingPerfectClient.class);
 
-    private final RestTemplate restTemplate;
+    private final WebClient webClient;
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 500;
 
     /**
-     * Constructs a new {@code PingPerfectClient} with the provided {@link RestTemplate}.
-     * Spring will automatically inject the {@link RestTemplate} bean.
+     * Constructs a new {@code PingPerfectClient} with the provided {@link WebClient}.
+     * Spring injects the {@code pingPerfectWebClient} bean, which signs every request.
      *
-     * @param restTemplate The {@link RestTemplate} instance to be used for HTTP communication.
+     * @param webClient The signing {@link WebClient} instance to be used for HTTP communication.
      */
     @Autowired
-    public PingPerfectClient(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public PingPerfectClient(@Qualifier("pingPerfectWebClient") WebClient webClient) {
+        this.webClient = webClient;
     }
 
     /**
      * Retrieves internet offers from the PingPerfect API for a given search request.
-     * This method constructs the request body, generates the required HMAC signature,
-     * sends the POST request, and handles transient server errors with a retry mechanism.
+     * The request is sent lazily on subscription, and the JSON array in the response body is parsed while it
+     * streams in by a {@link PingPerfectOfferParser}: every offer is emitted as soon as it has been received, without
+     * building a tree of the whole response. Server errors 500 and 503 as well as network errors are retried up to
+     * {@code MAX_RETRIES} attempts in total, with an exponential backoff starting at {@code RETRY_DELAY_MS}, as long
+     * as no offer has been emitted yet; other errors are not retried.
      *
      * @param request The {@link SearchRequests} object containing the address and other search criteria.
-     * @return A {@link JsonNode} representing the JSON response body from the PingPerfect API.
-     * Returns {@code null} if the request fails after all retries or if an unexpected error occurs.
+     * @return A {@link Flux} of the valid offers in the order of the response.
+     * If the request fails with a server error, a timeout or a connection error after all retries, or the response
+     * breaks off after some offers, the failure is reported to the provider's {@link CircuitBreaker} and the Flux
+     * completes after the offers emitted so far. Client errors (4xx) and unusable responses without any offer, which
+     * point to a problem with the request rather than with the provider, are logged and complete empty without
+     * counting against the breaker.
      */
-    public JsonNode getInternetOffers(SearchRequests request) {
-        int retryCount = 0;
-        while (retryCount < MAX_RETRIES) {
-            try {
-                // 1. Create the request body from SearchRequests
-                String jsonPayload = buildRequestBody(request);
-
-                // 2. Generate timestamp and signature
-                String timestamp = String.valueOf(Instant.now().getEpochSecond());
-                String signature = generateSignature(timestamp, jsonPayload);
-
-                // 3. Set up headers
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
-                headers.set("X-Client-Id", clientId);
-                headers.set("X-Timestamp", timestamp);
-                headers.set("X-Signature", signature);
-
-                HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-
-                // 4. Send the request to the API and receive the response
-                ResponseEntity<JsonNode> response = restTemplate.exchange(
-                        apiUrl,
-                        HttpMethod.POST,
-                        entity,
-                        JsonNode.class
-                );
-
-                // Return the response body (JSON node)
-                return response.getBody();
+    public Flux<InternetOffer> getInternetOffers(SearchRequests request) {
+        return Flux.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return Flux.defer(() -> streamOffers(request))
+                    .doOnNext(offer -> emitted.set(true))
+                    .retryWhen(Retry.backoff(MAX_RETRIES - 1, Duration.ofMillis(RETRY_DELAY_MS))
+                            // Retrying after offers were emitted would emit them twice
+                            .filter(e -> !emitted.get() && isTransient(e))
+                            .doBeforeRetry(retrySignal -> logger.warn("PingPerfect API error: {}. Retrying... (Attempt {}/{})",
+                                    retrySignal.failure().getMessage(), retrySignal.totalRetries() + 2, MAX_RETRIES))
+                            .onRetryExhaustedThrow((spec, signal) -> {
+                                logger.warn("Max retries reached. Failed to get internet offers after {} attempts.", MAX_RETRIES);
+                                return signal.failure();
+                            }))
+                    .onErrorResume(e -> {
+                        if (!emitted.get() && !isProviderFailure(e)) {
+                            logger.warn("PingPerfect API: Request not served: {}. Not retrying.", e.getMessage());
+                            return Flux.empty();
+                        }
+                        logger.error("PingPerfect API: Error occurred while retrieving internet offers: {}", e.getMessage());
+                        // Let the circuit breaker count the failed call; a partial result must not be cached either
+                        return CircuitBreaker.giveUp(e);
+                    });
+        });
+    }
 
-            } catch (HttpServerErrorException e) {
-                // Handle specific server errors (500, 503) as transient, triggering a retry
-                if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE || e.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR) {
-                    retryCount++;
-                    logger.warn("Server error ({}): Retrying... (Attempt {}/" + MAX_RETRIES + ")", e.getStatusCode(), retryCount);
-                    try {
-                        Thread.sleep(RETRY_DELAY_MS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        logger.error("PingPerfect API: Thread interrupted during retry delay.", ie);
-                        return null; // Or handle interruption as needed
+    /**
+     * Performs a single POST request against the PingPerfect API and parses the body while it streams in.
+     */
+    private Flux<InternetOffer> streamOffers(SearchRequests request) {
+        PingPerfectOfferParser parser = new PingPerfectOfferParser();
+        return webClient.post()
+                .uri(apiUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Client-Id", clientId)
+                .bodyValue(buildRequestBody(request))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .concatMapIterable(buffer -> {
+                    try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                        List<InternetOffer> offers = new ArrayList<>();
+                        while (chunks.hasNext()) {
+                            offers.addAll(parser.feed(chunks.next()));
+                        }
+                        return offers;
+                    } finally {
+                        DataBufferUtils.release(buffer);
                     }
-                } else {
-                    // For other HTTP errors (e.g., 4xx client errors), do not retry                    e.printStackTrace();
-                    return null;
-                }
+                })
+                .concatWith(Flux.defer(() -> Flux.fromIterable(parser.finish())));
+    }
 
-            } catch (RestClientException e) {
-                // Handle other client-side or network exceptions that might be transient
-                retryCount++;
-                logger.warn("Network or client error encountered. Retrying... (Attempt {}/" + MAX_RETRIES + "): {}", retryCount, e.getMessage());
-                try {
-                    Thread.sleep(RETRY_DELAY_MS);
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                    logger.error("PingPerfect API: Thread interrupted during retry delay.", ex);
-                    return null;
-                }
-            } catch (Exception e) {
-                // Catch any other unexpected exceptions during the process
-                logger.error("PingPerfect API: Unexpected error occurred while retrieving internet offers: {}", e.getMessage(), e);
-                return null; // Indicate failure
-            }
-        }
-        logger.warn("Max retries reached. Failed to get internet offers after " + MAX_RETRIES + "attempts.");
-        return null;
+    private static boolean isTransient(Throwable throwable) {
+        // Server errors 500 and 503 and network errors are transient; other HTTP errors (e.g. 4xx) are not
+        return throwable instanceof WebClientRequestException
+                || (throwable instanceof WebClientResponseException e
+                && (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE || e.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+
+    private static boolean isProviderFailure(Throwable throwable) {
+        // Server errors, timeouts and connection errors mean the provider is unhealthy; client errors (e.g. a
+        // rejected signature) and unusable bodies do not
+        return throwable instanceof WebClientRequestException
+                || throwable instanceof TimeoutException
+                || throwable instanceof IOException
+                || (throwable instanceof WebClientResponseException e && e.getStatusCode().is5xxServerError());
     }
 
     /**
@@ -145,34 +161,4 @@ public class PingPerfectClient {
                 "\"wantsFiber\": " + request.isWantsFibre() +
                 "}";
     }
-
-    /**
-     * Generates an HMAC-SHA256 signature for the PingPerfect API request.
-     * The signature is computed using a secret key, timestamp, and the request payload.
-     * This ensures the integrity and authenticity of the request.
-     *
-     * @param timestamp The Unix epoch timestamp (in seconds) used in the 'X-Timestamp' header.
-     * @param payload The JSON request body string that is sent to the API.
-     * @return The hexadecimal string representation of the HMAC-SHA256 signature.
-     * @throws Exception If there is an issue with cryptographic operations (e.g., algorithm not found).
-     */
-    private String generateSignature(String timestamp, String payload) throws Exception {
-        // Concatenate the timestamp and request body to create the data to sign
-        String dataToSign = timestamp + ":" + payload;
-
-        // Compute HMAC-SHA256 Signature
-        Mac mac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKey = new SecretKeySpec(signatureSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        mac.init(secretKey);
-        byte[] hashBytes = mac.doFinal(dataToSign.getBytes(StandardCharsets.UTF_8));
-
-        // Convert hash to hexadecimal string
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hashBytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hexString.append('0');
-            hexString.append(hex);
-        }
-        return hexString.toString();
-    }
 }
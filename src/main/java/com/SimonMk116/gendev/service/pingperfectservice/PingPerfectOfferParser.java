@@ -0,0 +1,346 @@
+package com.SimonMk116.gendev.service.pingperfectservice;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferIds;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.codec.DecodingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for the JSON array of offers returned by the PingPerfect API.
+ * <p>
+ * The body is fed chunk by chunk as it arrives from the network into Jackson's non-blocking {@link JsonParser},
+ * which keeps tokens split across chunks. The parser walks the token stream itself and only collects the fields of
+ * the offer it is currently in, so no {@code JsonNode} tree is built: every array element is mapped to an
+ * {@link InternetOffer} as soon as its closing brace has been received. Offers with missing or invalid mandatory
+ * fields are skipped; a response that is not an array yields no offers.
+ * </p>
+ * Instances are stateful and must only be used for a single response.
+ */
+public final class PingPerfectOfferParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(PingPerfectOfferParser.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String PRODUCT_INFO = "productInfo";
+    private static final String PRICING_DETAILS = "pricingDetails";
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    // The parser keeps no reference to fed input once it has been consumed, so one array serves all chunks
+    private byte[] chunk = new byte[0];
+
+    // Number of containers enclosing the next token: 1 inside the array, 2 inside an offer, 3 inside its sections
+    private int depth;
+    private boolean started;
+    private boolean array;
+    private int index = -1;
+    private OfferFields current;
+    private String section;
+    private String field;
+
+    /**
+     * Creates a parser for one response.
+     */
+    public PingPerfectOfferParser() {
+        try {
+            parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create a non-blocking JSON parser", e);
+        }
+        feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next chunk of the response body into the parser. The chunk is copied in bulk into a reused array,
+     * which Jackson's byte array parser reads faster than a {@link ByteBuffer}, in particular a direct one; its
+     * buffer may be released afterwards.
+     *
+     * @param bytes The raw bytes of the chunk; its position is advanced to the limit.
+     * @return The offers completed by this chunk, in order of appearance.
+     * @throws DecodingException If the body is not valid JSON.
+     */
+    public List<InternetOffer> feed(ByteBuffer bytes) {
+        List<InternetOffer> offers = new ArrayList<>();
+        try {
+            int length = bytes.remaining();
+            if (chunk.length < length) {
+                chunk = new byte[length];
+            }
+            bytes.get(chunk, 0, length);
+            feeder.feedInput(chunk, 0, length);
+            drain(offers);
+        } catch (IOException e) {
+            throw invalid(e);
+        }
+        return offers;
+    }
+
+    /**
+     * Signals the end of the response body.
+     *
+     * @return The offers that were only completed by the end of the body; normally none.
+     * @throws DecodingException If the body is empty, truncated or not valid JSON.
+     */
+    public List<InternetOffer> finish() {
+        List<InternetOffer> offers = new ArrayList<>();
+        try {
+            feeder.endOfInput();
+            drain(offers);
+            parser.close();
+        } catch (IOException e) {
+            throw invalid(e);
+        }
+        if (!started) {
+            throw new DecodingException("Empty PingPerfect response");
+        }
+        return offers;
+    }
+
+    private void drain(List<InternetOffer> offers) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    startContainer(token);
+                    depth++;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    endContainer(offers);
+                }
+                case FIELD_NAME -> field = parser.currentName();
+                default -> value(token);
+            }
+        }
+    }
+
+    private void startContainer(JsonToken token) {
+        switch (depth) {
+            case 0 -> start(token == JsonToken.START_ARRAY);
+            case 1 -> {
+                if (array) {
+                    index++;
+                    if (token == JsonToken.START_OBJECT) {
+                        current = new OfferFields();
+                    } else {
+                        logger.warn("PingPerfect: Skipping offer #{}, which is not a JSON object", index);
+                    }
+                }
+            }
+            case 2 -> {
+                if (current != null) {
+                    boolean object = token == JsonToken.START_OBJECT;
+                    section = null;
+                    if (PRODUCT_INFO.equals(field)) {
+                        current.productInfo = object;
+                        section = object ? PRODUCT_INFO : null;
+                    } else if (PRICING_DETAILS.equals(field)) {
+                        current.pricingDetails = object;
+                        section = object ? PRICING_DETAILS : null;
+                    }
+                }
+            }
+            default -> {
+                // Nested deeper than the fields of an offer, not needed
+            }
+        }
+    }
+
+    private void endContainer(List<InternetOffer> offers) {
+        if (depth == 2) {
+            section = null;
+        } else if (depth == 1 && current != null) {
+            InternetOffer offer = current.toOffer(index);
+            if (offer != null) {
+                offers.add(offer);
+            }
+            current = null;
+        }
+    }
+
+    private void value(JsonToken token) throws IOException {
+        switch (depth) {
+            case 0 -> start(false);
+            case 1 -> {
+                if (array) {
+                    index++;
+                    logger.warn("PingPerfect: Skipping offer #{}, which is not a JSON object", index);
+                }
+            }
+            case 2 -> {
+                if (current != null) {
+                    offerField(token);
+                }
+            }
+            case 3 -> {
+                if (current != null && section != null) {
+                    sectionField(token);
+                }
+            }
+            default -> {
+                // Nested deeper than the fields of an offer, not needed
+            }
+        }
+    }
+
+    private void start(boolean isArray) {
+        if (started) {
+            return; // Trailing content after the top-level value
+        }
+        started = true;
+        array = isArray;
+        if (!isArray) {
+            logger.warn("PingPerfect: No valid response or non-array JSON");
+        }
+    }
+
+    private void offerField(JsonToken token) throws IOException {
+        switch (field) {
+            case "providerName" -> current.providerName = string(token);
+            case PRODUCT_INFO -> current.productInfo = false;
+            case PRICING_DETAILS -> current.pricingDetails = false;
+            default -> {
+                // Not mapped
+            }
+        }
+    }
+
+    private void sectionField(JsonToken token) throws IOException {
+        if (PRODUCT_INFO.equals(section)) {
+            switch (field) {
+                case "speed" -> current.speed = integer(token);
+                case "contractDurationInMonths" -> current.contractDurationInMonths = integer(token);
+                case "connectionType" -> current.connectionType = string(token);
+                case "tv" -> current.tv = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                case "limitFrom" -> current.limitFrom = asInt();
+                case "maxAge" -> current.maxAge = asInt();
+                default -> {
+                    // Not mapped
+                }
+            }
+        } else {
+            switch (field) {
+                case "monthlyCostInCent" -> current.monthlyCostInCent = integer(token);
+                case "installationService" -> current.installationService = string(token);
+                default -> {
+                    // Not mapped
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The text of a string value, {@code null} for any other value.
+     */
+    private String string(JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+    /**
+     * @return The value of an integer that fits into an {@code int}, {@code null} for any other value.
+     */
+    private Integer integer(JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT
+                ? parser.getIntValue()
+                : null;
+    }
+
+    /**
+     * Converts any scalar to an {@code int} like {@code JsonNode#asInt()}: numbers are truncated, numeric strings
+     * parsed, and everything else becomes 0.
+     */
+    private int asInt() {
+        try {
+            return parser.getValueAsInt(0);
+        } catch (IOException e) {
+            return 0; // Out of the int range
+        }
+    }
+
+    private static DecodingException invalid(IOException e) {
+        String message = e instanceof JsonProcessingException processing ? processing.getOriginalMessage() : e.getMessage();
+        return new DecodingException("Invalid PingPerfect response: " + message, e);
+    }
+
+    /**
+     * The fields of the offer being parsed; {@code null} if missing or of the wrong type.
+     */
+    private static final class OfferFields {
+
+        String providerName;
+        boolean productInfo;
+        Integer speed;
+        Integer contractDurationInMonths;
+        String connectionType;
+        String tv;
+        int limitFrom;
+        int maxAge;
+        boolean pricingDetails;
+        Integer monthlyCostInCent;
+        String installationService;
+
+        InternetOffer toOffer(int index) {
+            // --- MANDATORY FIELD CHECKS ---
+            if (providerName == null || providerName.isEmpty()) {
+                return skip(index, "providerName");
+            }
+            if (!productInfo) {
+                return skip(index, PRODUCT_INFO);
+            }
+            if (speed == null) {
+                return skip(index, "speed");
+            }
+            if (contractDurationInMonths == null) {
+                return skip(index, "contractDurationInMonths");
+            }
+            if (connectionType == null || connectionType.isEmpty()) {
+                return skip(index, "connectionType");
+            }
+            if (!pricingDetails) {
+                return skip(index, PRICING_DETAILS);
+            }
+            if (monthlyCostInCent == null) {
+                return skip(index, "monthlyCostInCent");
+            }
+            if (installationService == null || installationService.isEmpty()) {
+                return skip(index, "installationService");
+            }
+            boolean installationIncluded = "true".equalsIgnoreCase(installationService)
+                    || "yes".equalsIgnoreCase(installationService);
+
+            InternetOffer offer = InternetOffer.builder()
+                    .providerName(providerName)
+                    .speed(speed)
+                    .durationInMonths(contractDurationInMonths)
+                    .connectionType(connectionType)
+                    .tv(tv)
+                    .limitFrom(limitFrom) // 0 if not present
+                    .maxAge(maxAge) // 0 if not present
+                    .monthlyCostInCent(monthlyCostInCent)
+                    .installationService(installationIncluded)
+                    .afterTwoYearsMonthlyCost(0)
+                    .build();
+            // Stable id derived from the offer content
+            offer.setProductId(OfferIds.contentId("ping-", offer));
+            return offer;
+        }
+
+        private InternetOffer skip(int index, String fieldName) {
+            logger.warn("PingPerfect: Missing or invalid mandatory '{}' in offer #{}. Skipping offer: {} ({})",
+                    fieldName, index, providerName, connectionType);
+            return null;
+        }
+    }
+}
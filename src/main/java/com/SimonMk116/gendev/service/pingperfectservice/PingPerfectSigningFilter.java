@@ -0,0 +1,101 @@
+package com.SimonMk116.gendev.service.pingperfectservice;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+
+/**
+ * {@link ExchangeFilterFunction} adding the PingPerfect request signature: the {@code X-Timestamp} header (Unix epoch
+ * seconds) and the {@code X-Signature} header {@code hex(HMAC-SHA256(secret, timestamp + ":" + body))}.
+ * <p>
+ * The signature is computed over the bytes the body writer actually sends, so it cannot diverge from the body on the
+ * wire. The request is decorated so that the serialized body is joined, signed with the {@link HmacSigner} and
+ * written after the headers have been added, right before the request is committed. Every attempt of a retried
+ * request is signed with a fresh timestamp.
+ * </p>
+ */
+public class PingPerfectSigningFilter implements ExchangeFilterFunction {
+
+    static final String TIMESTAMP_HEADER = "X-Timestamp";
+    static final String SIGNATURE_HEADER = "X-Signature";
+
+    private final HmacSigner signer;
+    private final Clock clock;
+
+    /**
+     * Constructs a filter signing with the system clock.
+     *
+     * @param signer The signer holding the shared secret.
+     */
+    public PingPerfectSigningFilter(HmacSigner signer) {
+        this(signer, Clock.systemUTC());
+    }
+
+    PingPerfectSigningFilter(HmacSigner signer, Clock clock) {
+        this.signer = signer;
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        BodyInserter<?, ? super ClientHttpRequest> body = request.body();
+        ClientRequest signed = ClientRequest.from(request)
+                .body((outputMessage, context) -> body.insert(new SigningRequest(outputMessage), context))
+                .build();
+        return next.exchange(signed);
+    }
+
+    /**
+     * Holds back the serialized body until it has been signed.
+     */
+    private class SigningRequest extends ClientHttpRequestDecorator {
+
+        SigningRequest(ClientHttpRequest delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body).flatMap(buffer -> {
+                String timestamp = timestamp();
+                String signature;
+                try (DataBuffer.ByteBufferIterator payload = buffer.readableByteBuffers()) {
+                    signature = signer.sign(timestamp, payload);
+                } catch (RuntimeException e) {
+                    DataBufferUtils.release(buffer);
+                    return Mono.error(e);
+                }
+                sign(timestamp, signature);
+                return super.writeWith(Mono.just(buffer));
+            });
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.defer(() -> {
+                String timestamp = timestamp();
+                sign(timestamp, signer.sign(timestamp, ""));
+                return super.setComplete();
+            });
+        }
+
+        private String timestamp() {
+            return String.valueOf(clock.instant().getEpochSecond());
+        }
+
+        private void sign(String timestamp, String signature) {
+            getHeaders().set(TIMESTAMP_HEADER, timestamp);
+            getHeaders().set(SIGNATURE_HEADER, signature);
+        }
+    }
+}
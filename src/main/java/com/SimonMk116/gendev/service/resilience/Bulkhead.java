@@ -0,0 +1,245 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dedicated, bounded thread pool for the blocking calls of a single provider.
+ * <p>
+ * Every provider with a blocking client gets its own bulkhead (see {@link Bulkheads}), so a hung provider can only
+ * exhaust its own {@code threads} and {@code queueCapacity} instead of the shared
+ * {@link Schedulers#boundedElastic()} pool. A task submitted while all threads are busy and the queue is full is
+ * rejected: a call subscribed on {@link #getScheduler()} then fails with a {@link RejectedExecutionException}
+ * right away instead of waiting behind the hung calls.
+ * </p>
+ * <p>
+ * In the virtual-thread mode every call gets its own virtual thread instead of a pooled platform thread, and
+ * {@code threads} only bounds how many of them run the call at the same time. Blocking calls, including retry
+ * sleeps, then park a cheap virtual thread rather than holding a platform thread, so a large {@code threads}
+ * value does not need a large platform thread pool.
+ * </p>
+ */
+public class Bulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(Bulkhead.class);
+
+    private final String provider;
+    private final int maxThreads;
+    // Exactly one of the two is set, depending on the mode
+    private final ThreadPoolExecutor pool;
+    private final VirtualThreadExecutor virtualThreads;
+    private final Scheduler scheduler;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a bulkhead backed by a pool of platform threads.
+     *
+     * @param provider      The provider key, used for thread names and logging.
+     * @param threads       The maximum number of concurrent blocking calls.
+     * @param queueCapacity The maximum number of calls waiting for a thread.
+     */
+    public Bulkhead(String provider, int threads, int queueCapacity) {
+        this(provider, threads, queueCapacity, false);
+    }
+
+    /**
+     * Creates a bulkhead.
+     *
+     * @param provider       The provider key, used for thread names and logging.
+     * @param threads        The maximum number of concurrent blocking calls.
+     * @param queueCapacity  The maximum number of calls waiting for a thread.
+     * @param virtualThreads {@code true} to run every call on its own virtual thread, {@code false} for a pool of
+     *                       platform threads.
+     */
+    public Bulkhead(String provider, int threads, int queueCapacity, boolean virtualThreads) {
+        this.provider = provider;
+        this.maxThreads = Math.max(1, threads);
+        int capacity = Math.max(1, queueCapacity);
+        ExecutorService executor;
+        if (virtualThreads) {
+            this.pool = null;
+            this.virtualThreads = new VirtualThreadExecutor(provider, maxThreads, capacity, this::reject);
+            executor = this.virtualThreads;
+        } else {
+            this.virtualThreads = null;
+            this.pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(capacity), threadFactory(provider), (task, ignored) -> reject());
+            // Idle providers do not keep their threads around
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        this.scheduler = Schedulers.fromExecutorService(executor, "bulkhead-" + provider);
+    }
+
+    /**
+     * @return The {@link Scheduler} running the provider's blocking calls, e.g. for {@code subscribeOn}.
+     */
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The provider key.
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return The number of calls waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return pool != null ? pool.getQueue().size() : virtualThreads.getQueueDepth();
+    }
+
+    /**
+     * @return The number of threads currently running a call.
+     */
+    public int getActiveCount() {
+        return pool != null ? pool.getActiveCount() : virtualThreads.getActiveCount();
+    }
+
+    /**
+     * @return The maximum number of concurrent calls.
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @return {@code true} if every call runs on its own virtual thread.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * @return The number of calls rejected because the bulkhead was full, since startup.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops the threads of the bulkhead; calls still running are interrupted.
+     */
+    public void dispose() {
+        scheduler.dispose();
+    }
+
+    private void reject() {
+        rejected.incrementAndGet();
+        logger.warn("Bulkhead for {} is full ({} calls running, {} queued), rejecting the call",
+                provider, getActiveCount(), getQueueDepth());
+        throw new RejectedExecutionException("Bulkhead for " + provider + " is full");
+    }
+
+    private static ThreadFactory threadFactory(String provider) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bulkhead-" + provider + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Starts a virtual thread per task; at most {@code maxRunning} of them run their task at a time, the others wait
+     * on a semaphore. Tasks beyond {@code maxRunning + queueCapacity} are rejected.
+     */
+    private static final class VirtualThreadExecutor extends AbstractExecutorService {
+
+        private final ExecutorService threadPerTask;
+        private final Semaphore running;
+        private final int maxRunning;
+        private final int maxAdmitted;
+        private final Runnable onRejected;
+        private final AtomicInteger admitted = new AtomicInteger();
+
+        VirtualThreadExecutor(String provider, int maxRunning, int queueCapacity, Runnable onRejected) {
+            this.threadPerTask = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("bulkhead-" + provider + "-virtual-", 1).factory());
+            this.running = new Semaphore(maxRunning, true);
+            this.maxRunning = maxRunning;
+            this.maxAdmitted = maxRunning + queueCapacity;
+            this.onRejected = onRejected;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (admitted.incrementAndGet() > maxAdmitted) {
+                admitted.decrementAndGet();
+                onRejected.run();
+                return;
+            }
+            try {
+                threadPerTask.execute(() -> {
+                    try {
+                        running.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        admitted.decrementAndGet();
+                        return;
+                    }
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                        admitted.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                admitted.decrementAndGet();
+                throw e;
+            }
+        }
+
+        int getActiveCount() {
+            return maxRunning - running.availablePermits();
+        }
+
+        int getQueueDepth() {
+            return Math.max(0, admitted.get() - getActiveCount());
+        }
+
+        @Override
+        public void shutdown() {
+            threadPerTask.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return threadPerTask.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return threadPerTask.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return threadPerTask.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return threadPerTask.awaitTermination(timeout, unit);
+        }
+    }
+}
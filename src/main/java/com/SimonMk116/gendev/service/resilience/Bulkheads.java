@@ -0,0 +1,95 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link Bulkhead} of each provider and publishes its metrics.
+ * <p>
+ * The bulkhead of a provider is configured with {@code provider.<name>.bulkhead.threads},
+ * {@code .queue-capacity} and {@code .virtual-threads}, which switches the provider to a virtual thread per call.
+ * If a {@link MeterRegistry} is available, every bulkhead is reported with the gauges {@code bulkhead.queue.depth}, {@code bulkhead.active.threads} and {@code bulkhead.max.threads} and the counter
+ * {@code bulkhead.rejected}, tagged with the {@code provider}.
+ * </p>
+ */
+@Component
+public class Bulkheads {
+
+    static final int DEFAULT_THREADS = 10;
+    static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the registry.
+     *
+     * @param environment   The Spring {@link Environment} holding the {@code provider.<name>.bulkhead.*} properties.
+     * @param meterRegistry The registry the bulkhead metrics are published to, if any.
+     */
+    @Autowired
+    public Bulkheads(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry.getIfAvailable();
+    }
+
+    /**
+     * Returns the bulkhead of a provider, creating it on first use.
+     *
+     * @param provider The provider key (e.g. {@code "webwunder"}).
+     * @return The provider's bulkhead.
+     */
+    public Bulkhead forProvider(String provider) {
+        return bulkheads.computeIfAbsent(provider, this::create);
+    }
+
+    /**
+     * Stops the threads of all bulkheads on shutdown.
+     */
+    @PreDestroy
+    public void disposeAll() {
+        bulkheads.values().forEach(Bulkhead::dispose);
+    }
+
+    private Bulkhead create(String provider) {
+        String prefix = "provider." + provider + ".bulkhead.";
+        Bulkhead bulkhead = new Bulkhead(provider,
+                environment.getProperty(prefix + "threads", Integer.class, DEFAULT_THREADS),
+                environment.getProperty(prefix + "queue-capacity", Integer.class, DEFAULT_QUEUE_CAPACITY),
+                environment.getProperty(prefix + "virtual-threads", Boolean.class, false));
+        if (meterRegistry != null) {
+            register(bulkhead);
+        }
+        return bulkhead;
+    }
+
+    private void register(Bulkhead bulkhead) {
+        String provider = bulkhead.getProvider();
+        Gauge.builder("bulkhead.queue.depth", bulkhead, Bulkhead::getQueueDepth)
+                .description("Blocking calls waiting for a thread of the provider's bulkhead")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.active.threads", bulkhead, Bulkhead::getActiveCount)
+                .description("Threads of the provider's bulkhead running a call")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.max.threads", bulkhead, Bulkhead::getMaxThreads)
+                .description("Size of the provider's bulkhead")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        FunctionCounter.builder("bulkhead.rejected", bulkhead, Bulkhead::getRejectedCount)
+                .description("Calls rejected because the provider's bulkhead was full")
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,293 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for the offer searches of a single provider.
+ * <p>
+ * While {@link State#CLOSED closed}, the outcomes of the last {@code window} calls are recorded. Once at least
+ * {@code minimumCalls} are known and the failure rate reaches {@code failureRateThreshold} percent, the breaker
+ * {@link State#OPEN opens}: calls fail immediately with a {@link ProviderUnavailableException} instead of paying
+ * the provider's retries. After {@code openDuration} it is {@link State#HALF_OPEN half-open} and lets up to
+ * {@code halfOpenProbes} calls through; if they all succeed the breaker closes, a failing probe opens it again.
+ * </p>
+ * <p>
+ * A call fails if it terminates with an error, or if the provider gave up internally and reported it with
+ * {@link #giveUp(Throwable)} before completing with an empty result, or if it was cut off at its deadline with
+ * {@link #takeUntilDeadline(Flux, Publisher)}, so that a hanging provider opens the breaker instead of costing every
+ * search the full deadline. Other cancelled calls are not counted.
+ * </p>
+ * <p>
+ * Giving up is also reported to callers further downstream that observe the call with
+ * {@link #doOnSuccess(Flux, Runnable)}, such as the result caches, so that the partial result of a provider that
+ * gave up after emitting some offers is not mistaken for a complete one.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * The states of a breaker.
+     */
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String provider;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    // Ring buffer of the outcomes of the last calls, true for failures
+    private final boolean[] outcomes;
+    private int recorded;
+    private int nextOutcome;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    /**
+     * Creates a breaker.
+     *
+     * @param provider             The provider key.
+     * @param failureRateThreshold The failure rate in percent at which the breaker opens.
+     * @param window               The number of most recent calls the failure rate is computed from.
+     * @param minimumCalls         The number of calls needed before the failure rate is evaluated.
+     * @param openDuration         How long the breaker stays open before probing.
+     * @param halfOpenProbes       The number of probe calls in the half-open state.
+     */
+    public CircuitBreaker(String provider, int failureRateThreshold, int window, int minimumCalls, Duration openDuration, int halfOpenProbes) {
+        this(provider, failureRateThreshold, window, minimumCalls, openDuration, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(String provider, int failureRateThreshold, int window, int minimumCalls, Duration openDuration,
+                   int halfOpenProbes, LongSupplier nanoClock) {
+        this.provider = provider;
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minimumCalls = Math.clamp(minimumCalls, 1, outcomes.length);
+        this.openDuration = openDuration;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs a call through the breaker.
+     *
+     * @param call Supplies the provider's offer stream; not invoked while the breaker is open.
+     * @param <T>  The element type.
+     * @return The call's elements, or a {@link ProviderUnavailableException} if the breaker is open.
+     */
+    public <T> Flux<T> execute(Supplier<Flux<T>> call) {
+        return Flux.deferContextual(context -> {
+            Permission permission = tryAcquire();
+            if (permission == null) {
+                return Flux.error(new ProviderUnavailableException(provider, retryAfter()));
+            }
+            GiveUpMarker marker = new GiveUpMarker(context.getOrDefault(GiveUpMarker.class, null));
+            Deadline deadline = context.getOrDefault(Deadline.class, null);
+            return call.get()
+                    .doOnComplete(() -> onResult(permission, marker.gaveUp.get()))
+                    .doOnError(error -> onResult(permission, true))
+                    .doOnCancel(() -> {
+                        if (deadline != null && deadline.expired.get()) {
+                            onResult(permission, true);
+                        } else {
+                            onCancel(permission);
+                        }
+                    })
+                    .contextWrite(inner -> inner.put(GiveUpMarker.class, marker));
+        });
+    }
+
+    /**
+     * Reports that a provider gave up on a request and will complete with an empty result instead of an error, so
+     * that the call counts as failed. Meant for {@code onErrorResume} handlers of provider services.
+     *
+     * @param error The error the provider gave up on.
+     * @param <T>   The element type.
+     * @return An empty {@link Mono}.
+     */
+    public static <T> Mono<T> giveUp(Throwable error) {
+        return Mono.deferContextual(context -> {
+            context.<GiveUpMarker>getOrEmpty(GiveUpMarker.class).ifPresent(GiveUpMarker::mark);
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Runs an action once a call has completed without the provider having given up on it with
+     * {@link #giveUp(Throwable)}, i.e. once it has delivered its complete result. Meant for caches, which must neither
+     * store the offers a provider emitted before it gave up nor the empty result it gave up with.
+     *
+     * @param call   The provider's offer stream.
+     * @param action Runs after the call completed without giving up.
+     * @param <T>    The element type.
+     * @return The call's elements.
+     */
+    public static <T> Flux<T> doOnSuccess(Flux<T> call, Runnable action) {
+        return Flux.deferContextual(context -> {
+            GiveUpMarker marker = new GiveUpMarker(context.getOrDefault(GiveUpMarker.class, null));
+            return call
+                    .doOnComplete(() -> {
+                        if (!marker.gaveUp.get()) {
+                            action.run();
+                        }
+                    })
+                    .contextWrite(inner -> inner.put(GiveUpMarker.class, marker));
+        });
+    }
+
+    /**
+     * Cuts off a call once its deadline has passed, like {@link Flux#takeUntilOther(Publisher)}. Unlike a plain
+     * cancellation, the cut-off counts as a failed call for the breakers running the call.
+     *
+     * @param call     The provider's offer stream, possibly guarded by a breaker.
+     * @param deadline Emits once the deadline has passed.
+     * @param <T>      The element type.
+     * @return The call's elements until the deadline.
+     */
+    public static <T> Flux<T> takeUntilDeadline(Flux<T> call, Publisher<?> deadline) {
+        return Flux.defer(() -> {
+            Deadline expiry = new Deadline();
+            // The flag is set before the call is cancelled, so the breaker sees it in its cancel handler
+            return call
+                    .contextWrite(context -> context.put(Deadline.class, expiry))
+                    .takeUntilOther(Flux.from(deadline).doOnNext(tick -> expiry.expired.set(true)));
+        });
+    }
+
+    /**
+     * @return The current state; an open breaker whose open duration has elapsed reports {@link State#HALF_OPEN}.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && openDurationElapsed()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Closes the breaker and forgets the recorded calls.
+     */
+    public synchronized void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        nextOutcome = 0;
+        failures = 0;
+    }
+
+    synchronized Permission tryAcquire() {
+        if (state == State.OPEN) {
+            if (!openDurationElapsed()) {
+                return null;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probesSucceeded = 0;
+            logger.info("Circuit breaker for {} half-open, probing", provider);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probesSucceeded >= halfOpenProbes) {
+                return null;
+            }
+            probesInFlight++;
+            return Permission.PROBE;
+        }
+        return Permission.CALL;
+    }
+
+    private synchronized void onResult(Permission permission, boolean failed) {
+        if (permission == Permission.PROBE) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            probesInFlight--;
+            if (failed) {
+                open();
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recorded == outcomes.length && outcomes[nextOutcome]) {
+            failures--;
+        }
+        outcomes[nextOutcome] = failed;
+        if (failed) {
+            failures++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+        recorded = Math.min(recorded + 1, outcomes.length);
+        if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    private synchronized void onCancel(Permission permission) {
+        if (permission == Permission.PROBE && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    private void open() {
+        logger.warn("Circuit breaker for {} opened, skipping the provider for {}", provider, openDuration);
+        state = State.OPEN;
+        openedAtNanos = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        logger.info("Circuit breaker for {} closed", provider);
+        reset();
+    }
+
+    private boolean openDurationElapsed() {
+        return nanoClock.getAsLong() - openedAtNanos >= openDuration.toNanos();
+    }
+
+    private synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = openDuration.toNanos() - (nanoClock.getAsLong() - openedAtNanos);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    enum Permission {CALL, PROBE}
+
+    private static final class Deadline {
+        final AtomicBoolean expired = new AtomicBoolean();
+    }
+
+    /**
+     * Records that a provider gave up, for the innermost observer and every observer further downstream.
+     */
+    private static final class GiveUpMarker {
+        final AtomicBoolean gaveUp = new AtomicBoolean();
+        final GiveUpMarker outer;
+
+        GiveUpMarker(GiveUpMarker outer) {
+            this.outer = outer;
+        }
+
+        void mark() {
+            for (GiveUpMarker marker = this; marker != null; marker = marker.outer) {
+                marker.gaveUp.set(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import com.SimonMk116.gendev.controller.OfferController;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link CircuitBreaker} of each provider and wraps the provider services with it.
+ * <p>
+ * A provider's breaker is configured with {@code provider.<name>.circuit-breaker.failure-rate-threshold} (percent),
+ * {@code .window}, {@code .minimum-calls}, {@code .open-duration} and {@code .half-open-probes}.
+ * </p>
+ */
+@Component
+public class CircuitBreakers {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakers.class);
+
+    static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    static final int DEFAULT_WINDOW = 20;
+    static final int DEFAULT_MINIMUM_CALLS = 10;
+    static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+    private final Environment environment;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the registry.
+     *
+     * @param environment The Spring {@link Environment} holding the {@code provider.<name>.circuit-breaker.*} properties.
+     */
+    @Autowired
+    public CircuitBreakers(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Returns the breaker of a provider, creating it on first use.
+     *
+     * @param provider The provider key (e.g. {@code "byteme"}).
+     * @return The provider's breaker.
+     */
+    public CircuitBreaker forProvider(String provider) {
+        return breakers.computeIfAbsent(provider, this::create);
+    }
+
+    /**
+     * Wraps a provider service with the provider's circuit breaker. While the breaker is open, the wrapper's offer
+     * streams fail immediately with a {@link ProviderUnavailableException}.
+     *
+     * @param provider The provider key.
+     * @param delegate The provider service.
+     * @return An {@link OfferController.InternetOfferService} guarded by the breaker.
+     */
+    public OfferController.InternetOfferService wrap(String provider, OfferController.InternetOfferService delegate) {
+        CircuitBreaker breaker = forProvider(provider);
+        return new OfferController.InternetOfferService() {
+            @Override
+            public Flux<InternetOffer> getOffers(RequestAddress address) {
+                return breaker.execute(() -> delegate.getOffers(address));
+            }
+
+            @Override
+            public Flux<InternetOffer> getOffers(RequestAddress address, OfferFilter filter) {
+                return breaker.execute(() -> delegate.getOffers(address, filter));
+            }
+
+            @Override
+            public boolean canSatisfy(OfferFilter filter) {
+                return delegate.canSatisfy(filter);
+            }
+        };
+    }
+
+    /**
+     * Closes all breakers and forgets the recorded calls.
+     */
+    public void resetAll() {
+        breakers.values().forEach(CircuitBreaker::reset);
+    }
+
+    private CircuitBreaker create(String provider) {
+        String prefix = "provider." + provider + ".circuit-breaker.";
+        CircuitBreaker breaker = new CircuitBreaker(provider,
+                environment.getProperty(prefix + "failure-rate-threshold", Integer.class, DEFAULT_FAILURE_RATE_THRESHOLD),
+                environment.getProperty(prefix + "window", Integer.class, DEFAULT_WINDOW),
+                environment.getProperty(prefix + "minimum-calls", Integer.class, DEFAULT_MINIMUM_CALLS),
+                environment.getProperty(prefix + "open-duration", Duration.class, DEFAULT_OPEN_DURATION),
+                environment.getProperty(prefix + "half-open-probes", Integer.class, DEFAULT_HALF_OPEN_PROBES));
+        logger.info("Circuit breaker for {} created", provider);
+        return breaker;
+    }
+}
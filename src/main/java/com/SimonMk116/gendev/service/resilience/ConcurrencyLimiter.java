@@ -0,0 +1,206 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive (AIMD) limit for the number of concurrent requests to a single provider.
+ * <p>
+ * One instance per provider is shared by all searches of this node (see {@link ConcurrencyLimiters}), so the node as
+ * a whole respects the upstream's capacity. A request waits in FIFO order until fewer than {@link #getLimit()}
+ * requests are in flight. The limit grows additively by one per limit's worth of fast responses while it is
+ * actually used, and shrinks multiplicatively by {@code backoffRatio} when the upstream answers with 429 or 5xx,
+ * times out, or responds more than {@code latencyTolerance} times slower than the lowest latency seen recently.
+ * Only requests started after the last decrease can decrease the limit again, so a burst of slow responses backs
+ * off once rather than once per response. The limit always stays between {@code minLimit} and {@code maxLimit}.
+ * </p>
+ */
+public class ConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    // Lets the no-load latency drift up by 1% per sample, so a permanently slower upstream becomes the new baseline
+    static final double MIN_LATENCY_DRIFT = 1.01;
+
+    private final String provider;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final Deque<MonoSink<Permit>> waiting = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double minLatencyNanos = Double.MAX_VALUE;
+    private long lastBackoffNanos;
+    private boolean backedOff;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param provider         The provider key, used for logging.
+     * @param initialLimit     The limit before any response has been observed.
+     * @param minLimit         The lower bound of the limit, at least {@code 1}.
+     * @param maxLimit         The upper bound of the limit.
+     * @param latencyTolerance The factor by which a response may be slower than the no-load latency before the
+     *                         limit is decreased.
+     * @param backoffRatio     The factor the limit is multiplied with on overload, between {@code 0} and {@code 1}.
+     */
+    public ConcurrencyLimiter(String provider, int initialLimit, int minLimit, int maxLimit, double latencyTolerance, double backoffRatio) {
+        this.provider = provider;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Runs a request once a slot is free and feeds its outcome back into the limit.
+     *
+     * @param request The request to run; it is subscribed when a slot has been acquired.
+     * @param <T>     The element type.
+     * @return The request's elements.
+     */
+    public <T> Flux<T> limit(Flux<T> request) {
+        return Flux.usingWhen(acquire(), permit -> request,
+                permit -> Mono.fromRunnable(() -> release(permit, Outcome.SUCCESS)),
+                (permit, error) -> Mono.fromRunnable(() -> release(permit, isOverload(error) ? Outcome.OVERLOAD : Outcome.IGNORED)),
+                permit -> Mono.fromRunnable(() -> release(permit, Outcome.IGNORED)));
+    }
+
+    /**
+     * Reports an overload response that the caller handles without an error signal (e.g. a 429 mapped to an empty
+     * result), so that the limit backs off anyway.
+     */
+    public void recordOverload() {
+        long now = System.nanoTime();
+        synchronized (this) {
+            // The request's start is unknown; assume it took the no-load latency
+            backOff(minLatencyNanos == Double.MAX_VALUE ? now : now - (long) minLatencyNanos);
+        }
+    }
+
+    /**
+     * @return The current limit, rounded down.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return The upper bound of the limit.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * @return The number of requests currently in flight.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+            boolean granted;
+            synchronized (this) {
+                granted = inFlight < (int) limit;
+                if (granted) {
+                    inFlight++;
+                } else {
+                    waiting.addLast(sink);
+                    sink.onCancel(() -> {
+                        synchronized (this) {
+                            waiting.remove(sink);
+                        }
+                    });
+                }
+            }
+            if (granted) {
+                sink.success(new Permit(System.nanoTime()));
+            }
+        })
+                // A permit granted to a request that has been cancelled meanwhile is returned right away
+                .doOnDiscard(Permit.class, permit -> release(permit, Outcome.IGNORED));
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        List<MonoSink<Permit>> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (outcome == Outcome.OVERLOAD) {
+                backOff(permit.startNanos());
+            } else if (outcome == Outcome.SUCCESS) {
+                onSuccess(permit.startNanos(), System.nanoTime() - permit.startNanos());
+            }
+            while (!waiting.isEmpty() && inFlight < (int) limit) {
+                granted.add(waiting.pollFirst());
+                inFlight++;
+            }
+        }
+        long now = System.nanoTime();
+        granted.forEach(sink -> sink.success(new Permit(now)));
+    }
+
+    // Called while holding the lock
+    private void onSuccess(long startNanos, long latencyNanos) {
+        minLatencyNanos = Math.min(latencyNanos, minLatencyNanos * MIN_LATENCY_DRIFT);
+        if (latencyNanos > minLatencyNanos * latencyTolerance) {
+            backOff(startNanos);
+        } else if (inFlight + 1 >= limit / 2) {
+            // Only grow while the limit is actually used, otherwise idle periods would inflate it
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    // Called while holding the lock
+    private void backOff(long requestStartNanos) {
+        if (backedOff && requestStartNanos - lastBackoffNanos < 0) {
+            return;
+        }
+        backedOff = true;
+        lastBackoffNanos = System.nanoTime();
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) previous != (int) limit) {
+            logger.info("Concurrency limit for {} lowered to {}", provider, (int) limit);
+        }
+    }
+
+    /**
+     * Tells whether an error indicates that the upstream is overloaded: a 429 or 5xx response or a timeout.
+     *
+     * @param error The error of a request.
+     * @return {@code true} for overload errors.
+     */
+    static boolean isOverload(Throwable error) {
+        if (error instanceof WebClientResponseException ex) {
+            return ex.getStatusCode().is5xxServerError() || ex.getStatusCode().value() == 429;
+        }
+        return error instanceof TimeoutException || error instanceof ReadTimeoutException;
+    }
+
+    private enum Outcome {SUCCESS, OVERLOAD, IGNORED}
+
+    private record Permit(long startNanos, AtomicBoolean released) {
+        Permit(long startNanos) {
+            this(startNanos, new AtomicBoolean());
+        }
+    }
+}
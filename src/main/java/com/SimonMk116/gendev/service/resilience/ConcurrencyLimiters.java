@@ -0,0 +1,69 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the node-wide {@link ConcurrencyLimiter} of each provider.
+ * <p>
+ * The limiter of a provider is configured with {@code provider.<name>.concurrency.initial}, {@code .min},
+ * {@code .max}, {@code .latency-tolerance} and {@code .backoff-ratio}.
+ * </p>
+ */
+@Component
+public class ConcurrencyLimiters {
+
+    static final int DEFAULT_INITIAL = 4;
+    static final int DEFAULT_MIN = 1;
+    static final int DEFAULT_MAX = 32;
+    static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    static final double DEFAULT_BACKOFF_RATIO = 0.75;
+
+    private final Environment environment;
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the registry.
+     *
+     * @param environment The Spring {@link Environment} holding the {@code provider.<name>.concurrency.*} properties.
+     */
+    @Autowired
+    public ConcurrencyLimiters(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Returns the limiter of a provider, creating it on first use.
+     *
+     * @param provider The provider key (e.g. {@code "servus"}).
+     * @return The provider's limiter, shared by all callers.
+     */
+    public ConcurrencyLimiter forProvider(String provider) {
+        return limiters.computeIfAbsent(provider, this::create);
+    }
+
+    /**
+     * Creates a limiter with the default settings, for services that are not managed by Spring.
+     *
+     * @param provider     The provider key.
+     * @param initialLimit The initial limit.
+     * @return A new limiter.
+     */
+    public static ConcurrencyLimiter withDefaults(String provider, int initialLimit) {
+        return new ConcurrencyLimiter(provider, initialLimit, DEFAULT_MIN, DEFAULT_MAX, DEFAULT_LATENCY_TOLERANCE, DEFAULT_BACKOFF_RATIO);
+    }
+
+    private ConcurrencyLimiter create(String provider) {
+        String prefix = "provider." + provider + ".concurrency.";
+        return new ConcurrencyLimiter(provider,
+                environment.getProperty(prefix + "initial", Integer.class, DEFAULT_INITIAL),
+                environment.getProperty(prefix + "min", Integer.class, DEFAULT_MIN),
+                environment.getProperty(prefix + "max", Integer.class, DEFAULT_MAX),
+                environment.getProperty(prefix + "latency-tolerance", Double.class, DEFAULT_LATENCY_TOLERANCE),
+                environment.getProperty(prefix + "backoff-ratio", Double.class, DEFAULT_BACKOFF_RATIO));
+    }
+}
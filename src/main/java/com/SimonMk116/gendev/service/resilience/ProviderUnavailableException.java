@@ -0,0 +1,36 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import java.time.Duration;
+
+/**
+ * Signals that a provider is skipped because its {@link CircuitBreaker} is open.
+ */
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final String provider;
+    private final Duration retryAfter;
+
+    /**
+     * @param provider   The provider key.
+     * @param retryAfter The time until the breaker lets probe requests through again.
+     */
+    public ProviderUnavailableException(String provider, Duration retryAfter) {
+        super("Provider " + provider + " is unavailable, retrying in " + retryAfter.toMillis() + " ms");
+        this.provider = provider;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return The provider key.
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return The time until the breaker lets probe requests through again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,197 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Hedges the requests of a single provider against slow upstream responses.
+ * <p>
+ * The latencies of successful requests are kept in a sliding window. Once enough samples are known, a request that
+ * has not answered after the window's 95th percentile latency is sent a second time, and whichever attempt signals
+ * first wins; the other one is cancelled. Hedges are limited by a budget: every request earns
+ * {@code budgetPercent / 100} hedge tokens and every hedge spends one, so hedging adds at most {@code budgetPercent}
+ * percent of upstream load. Instances are created per provider by {@link RequestHedgers}.
+ * </p>
+ */
+public class RequestHedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+
+    static final double PERCENTILE = 0.95;
+    // Allows a short burst of hedges after a quiet period without exceeding the budget in the long run
+    static final double MAX_TOKENS = 10;
+
+    private final String provider;
+    private final boolean enabled;
+    private final double tokensPerRequest;
+    private final int minSamples;
+    private final Duration minDelay;
+    private final long[] latencies;
+    private int samples;
+    private int nextSample;
+    private double tokens;
+    private long requests;
+    private long hedges;
+
+    /**
+     * Creates a hedger.
+     *
+     * @param provider      The provider key, used for logging.
+     * @param enabled       Whether requests are hedged at all.
+     * @param budgetPercent The maximum additional upstream load caused by hedges, in percent of the requests.
+     * @param minSamples    The number of latency samples needed before requests are hedged.
+     * @param windowSize    The number of most recent latency samples the percentile is computed from.
+     * @param minDelay      The lower bound for the hedge delay.
+     */
+    public RequestHedger(String provider, boolean enabled, double budgetPercent, int minSamples, int windowSize, Duration minDelay) {
+        this.provider = provider;
+        this.enabled = enabled;
+        this.tokensPerRequest = Math.max(0, budgetPercent) / 100;
+        this.minSamples = Math.max(1, minSamples);
+        this.latencies = new long[Math.max(this.minSamples, windowSize)];
+        this.minDelay = minDelay;
+    }
+
+    /**
+     * Creates a hedger that passes requests through unchanged.
+     *
+     * @param provider The provider key.
+     * @return A disabled hedger.
+     */
+    public static RequestHedger disabled(String provider) {
+        return new RequestHedger(provider, false, 0, 1, 1, Duration.ZERO);
+    }
+
+    /**
+     * @return {@code true} if requests are hedged.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hedges a request.
+     *
+     * @param request The request. It must be cold, i.e. send a new upstream request on every subscription.
+     * @param <T>     The response type.
+     * @return A {@link Mono} signalling the result of the first attempt to finish.
+     */
+    public <T> Mono<T> hedge(Mono<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return hedge(request, attempt -> attempt);
+    }
+
+    private <T> Mono<T> hedge(Mono<T> request, UnaryOperator<Mono<T>> hedgeAttempt) {
+        return Mono.defer(() -> {
+            Duration delay = startRequest();
+            Mono<T> primary = timed(request);
+            if (delay == null) {
+                return primary;
+            }
+            Mono<T> hedge = Mono.delay(delay).flatMap(tick -> {
+                if (!tryAcquireHedge()) {
+                    return Mono.never();
+                }
+                logger.debug("Hedging {} request after {} ms", provider, delay.toMillis());
+                return hedgeAttempt.apply(timed(request));
+            });
+            return Mono.firstWithSignal(primary, hedge);
+        });
+    }
+
+    /**
+     * Hedges a request whose response is streamed as several elements. If hedging is enabled, each attempt is
+     * buffered until it has completed, so that elements of both attempts are never mixed.
+     *
+     * @param request The request. It must be cold, i.e. send a new upstream request on every subscription.
+     * @param <T>     The element type.
+     * @return A {@link Flux} of the elements of the first attempt to finish.
+     */
+    public <T> Flux<T> hedgeMany(Flux<T> request) {
+        if (!enabled) {
+            return request;
+        }
+        return hedge(request.collectList()).flatMapIterable(elements -> elements);
+    }
+
+    /**
+     * Hedges a request that has to wait for a slot of a {@link ConcurrencyLimiter}, like
+     * {@link #hedgeMany(Flux)}. Both the latency and the hedge delay are measured from the moment the primary attempt
+     * holds its slot, so time spent waiting for a slot is neither sampled nor hedged; a hedge waits for a slot of
+     * its own.
+     *
+     * @param request The request. It must be cold, i.e. send a new upstream request on every subscription.
+     * @param limiter The limiter of the provider.
+     * @param <T>     The element type.
+     * @return A {@link Flux} of the elements of the first attempt to finish.
+     */
+    public <T> Flux<T> hedgeMany(Flux<T> request, ConcurrencyLimiter limiter) {
+        if (!enabled) {
+            return limiter.limit(request);
+        }
+        Mono<List<T>> hedged = hedge(request.collectList(), attempt -> limiter.limit(attempt.flux()).singleOrEmpty());
+        return limiter.limit(hedged.flatMapIterable(elements -> elements));
+    }
+
+    private <T> Mono<T> timed(Mono<T> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.doOnSuccess(value -> recordLatency(System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Counts a request, earns its hedge tokens and returns the hedge delay.
+     *
+     * @return The delay after which the request is hedged, or {@code null} if too few latencies are known.
+     */
+    synchronized Duration startRequest() {
+        requests++;
+        tokens = Math.min(MAX_TOKENS, tokens + tokensPerRequest);
+        if (samples < minSamples) {
+            return null;
+        }
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        Duration percentile = Duration.ofNanos(sorted[(int) Math.ceil(PERCENTILE * samples) - 1]);
+        return percentile.compareTo(minDelay) < 0 ? minDelay : percentile;
+    }
+
+    synchronized boolean tryAcquireHedge() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        hedges++;
+        return true;
+    }
+
+    synchronized void recordLatency(long nanos) {
+        latencies[nextSample] = nanos;
+        nextSample = (nextSample + 1) % latencies.length;
+        samples = Math.min(samples + 1, latencies.length);
+    }
+
+    /**
+     * @return The number of requests passed to {@link #hedge(Mono)}.
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return The number of hedges sent.
+     */
+    public synchronized long getHedges() {
+        return hedges;
+    }
+}
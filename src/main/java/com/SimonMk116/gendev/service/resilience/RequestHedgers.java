@@ -0,0 +1,62 @@
+package com.SimonMk116.gendev.service.resilience;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the {@link RequestHedger} of each provider from its configuration.
+ * <p>
+ * Hedging is opt-in per provider ({@code provider.<name>.hedge.enabled}); the budget
+ * ({@code hedge.budget-percent}), the number of latency samples needed before hedging ({@code hedge.min-samples}),
+ * the size of the latency window ({@code hedge.window}) and the minimum hedge delay ({@code hedge.min-delay}) can be
+ * set per provider as well.
+ * </p>
+ */
+@Component
+public class RequestHedgers {
+
+    static final double DEFAULT_BUDGET_PERCENT = 10;
+    static final int DEFAULT_MIN_SAMPLES = 20;
+    static final int DEFAULT_WINDOW = 256;
+    static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(50);
+
+    private final Environment environment;
+    private final Map<String, RequestHedger> hedgers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the factory.
+     *
+     * @param environment The Spring {@link Environment} holding the {@code provider.<name>.hedge.*} properties.
+     */
+    @Autowired
+    public RequestHedgers(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Returns the hedger of a provider, creating it on first use.
+     *
+     * @param provider The provider key (e.g. {@code "servus"}).
+     * @return The provider's hedger; a disabled one unless hedging is enabled for the provider.
+     */
+    public RequestHedger forProvider(String provider) {
+        return hedgers.computeIfAbsent(provider, this::create);
+    }
+
+    private RequestHedger create(String provider) {
+        String prefix = "provider." + provider + ".hedge.";
+        if (!environment.getProperty(prefix + "enabled", Boolean.class, false)) {
+            return RequestHedger.disabled(provider);
+        }
+        return new RequestHedger(provider, true,
+                environment.getProperty(prefix + "budget-percent", Double.class, DEFAULT_BUDGET_PERCENT),
+                environment.getProperty(prefix + "min-samples", Integer.class, DEFAULT_MIN_SAMPLES),
+                environment.getProperty(prefix + "window", Integer.class, DEFAULT_WINDOW),
+                environment.getProperty(prefix + "min-delay", Duration.class, DEFAULT_MIN_DELAY));
+    }
+}
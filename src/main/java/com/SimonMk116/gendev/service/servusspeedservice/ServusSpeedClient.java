@@ -5,9 +5,12 @@ import com.SimonMk116.gendev.dto.DetailedResponseData;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
 import com.SimonMk116.gendev.model.ServusSpeedProduct;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiter;
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiters;
+import com.SimonMk116.gendev.service.resilience.RequestHedger;
+import com.SimonMk116.gendev.service.resilience.RequestHedgers;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import io.netty.handler.timeout.ReadTimeoutException;
@@ -19,11 +22,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -39,10 +39,12 @@ import java.util.stream.StreamSupport;
 /**
  * Service client for integrating with the "ServusSpeed" internet offer provider.
  * This class implements {@link OfferController.InternetOfferService} and is responsible for
- * fetching internet offers from ServusSpeed using both synchronous (RestTemplate) and
- * reactive (WebClient) HTTP calls. It includes logic for fetching available product IDs,
+ * fetching internet offers from ServusSpeed using reactive (WebClient) HTTP calls only, so the whole
+ * pipeline is lazy and starts concurrently with the other providers. It includes logic for fetching available product IDs,
  * fetching detailed product information in parallel, and an in-memory caching mechanism
- * for fetched offers.
+ * for fetched offers. Slow product-detail requests can be hedged with a {@link RequestHedger}
+ * ({@code provider.servus.hedge.*}), and the number of concurrent product-detail requests of all searches
+ * is bounded by the adaptive {@link ConcurrencyLimiter} of the provider ({@code provider.servus.concurrency.*}).
  */
 @Service
 @RequiredArgsConstructor
@@ -50,34 +52,44 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
 
     /**
      * {@link WebClient} instance, qualified for ServusSpeed, used for reactive HTTP calls
-     * to fetch detailed product information.
+     * to fetch the available product IDs and detailed product information.
      */
     @Autowired
     @Qualifier("servusSpeedWebClient")
     private final WebClient webClient;
 
+    @Value("${provider.servus.base-url}")
+    private String baseUrl;
+
+    private static final Logger logger = LoggerFactory.getLogger(ServusSpeedClient.class);
+
+    private RequestHedger hedger = RequestHedger.disabled("servus");
+
+    private ConcurrencyLimiter limiter = ConcurrencyLimiters.withDefaults("servus", INITIAL_CONCURRENCY);
+
     /**
-     * {@link RestTemplate} instance, qualified for ServusSpeed, used for synchronous HTTP calls
-     * to fetch available product IDs.
+     * Sets up hedging of product-detail requests as configured for the {@code servus} provider.
+     *
+     * @param hedgers The factory of the per-provider {@link RequestHedger}s.
      */
     @Autowired
-    @Qualifier("servusSpeedRestTemplate")
-    private final RestTemplate restTemplate;
-
-    @Value("${provider.servus.base-url}")
-    private String baseUrl;
+    public void setRequestHedgers(RequestHedgers hedgers) {
+        this.hedger = hedgers.forProvider("servus");
+    }
 
     /**
-     * {@link ObjectMapper} instance used for JSON serialization and deserialization.
-     * Automatically injected by Spring.
+     * Uses the node-wide concurrency limiter of the {@code servus} provider for product-detail requests.
+     *
+     * @param limiters The registry of the per-provider {@link ConcurrencyLimiter}s.
      */
     @Autowired
-    private ObjectMapper objectMapper;
-    private static final Logger logger = LoggerFactory.getLogger(ServusSpeedClient.class);
+    public void setConcurrencyLimiters(ConcurrencyLimiters limiters) {
+        this.limiter = limiters.forProvider("servus");
+    }
 
     public static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 300;
-    static final int PARALLEL = 3;
+    static final int INITIAL_CONCURRENCY = 3;
 
     /**
      * Stores an {@link InternetOffer} in the in-memory cache, using its product ID as the key.
@@ -105,87 +117,71 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
 
     /**
      * Fetches the list of available product IDs for a given address.
-     * This method uses RestTemplate for a synchronous call.
+     * This method uses the ServusSpeed WebClient and is evaluated lazily on subscription.
+     * Server errors (5xx) and network errors are retried up to {@code MAX_RETRIES} attempts in total;
+     * client errors (4xx) are not retried.
      *
      * @param address The request address containing street, house number, postcode, city, and country.
-     * @return A list of product IDs, or an empty list if an error occurs or no IDs are found.
+     * @return A {@link Mono} emitting the list of product IDs, or an empty list if an error occurs or no IDs are found.
      */
-    private List<String> getAvailableProductIds(RequestAddress address) {
+    Mono<List<String>> getAvailableProductIds(RequestAddress address) {
         String url = baseUrl + "/api/external/available-products";
-        logger.info("Fetching available product IDs from URL: {}", url);
-        logger.debug("Sending request for available products with address: {}", address);
-
-        // Build the request body using ObjectMapper
-        ObjectNode addressNode = objectMapper.createObjectNode()
-                .put("strasse", address.getStrasse())
-                .put("hausnummer", address.getHausnummer())
-                .put("postleitzahl", address.getPostleitzahl())
-                .put("stadt", address.getStadt())
-                .put("land", address.getLand());    //only DE is supported
-
-        ObjectNode requestBody = objectMapper.createObjectNode()
-                .set("address", addressNode);
-
-        // Set headers
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<String> requestEntity = new HttpEntity<>(requestBody.toString(), headers);
-
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                // Make the POST request using the pre-configured RestTemplate
-                ResponseEntity<JsonNode> response = restTemplate.postForEntity(url, requestEntity, JsonNode.class);
-
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    // Assuming the response body is a JSON array of strings
-                    JsonNode responseBody = response.getBody();
-                    if (responseBody.isObject() && response.getBody().has("availableProducts")) {
-                        JsonNode productsArrayNode = responseBody.get("availableProducts");
-                        if (productsArrayNode.isArray()) {
-                            List<String> productIds = StreamSupport.stream(productsArrayNode.spliterator(), false)
-                                    .map(JsonNode::asText)
-                                    .collect(Collectors.toList());
-                            logger.info("Successfully fetched {} available product IDs.", productIds.size());
-                            logger.debug("Available product IDs: {}", productIds);
-                            return productIds;
-                        } else {
-                            logger.warn("Value of 'availableProducts' is not an array: {}", productsArrayNode.getNodeType());
-                            return Collections.emptyList();
-                        }
-                    } else {
-                        logger.warn("Response body is not an object or does not contain 'availableProducts' field: {}", responseBody.getNodeType());
-                        return Collections.emptyList();
+        //only DE is supported
+        Map<String, RequestAddress> requestBody = Collections.singletonMap("address", address);
+
+        return Mono.defer(() -> {
+                    logger.info("Fetching available product IDs from URL: {}", url);
+                    logger.debug("Sending request for available products with address: {}", address);
+                    return webClient.post()
+                            .uri(url)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(requestBody)
+                            .retrieve()
+                            .bodyToMono(JsonNode.class);
+                })
+                .retryWhen(Retry.fixedDelay(MAX_RETRIES - 1, Duration.ofMillis(RETRY_DELAY_MS))
+                        .filter(throwable -> throwable instanceof WebClientRequestException
+                                || (throwable instanceof WebClientResponseException ex && ex.getStatusCode().is5xxServerError()))
+                        .doBeforeRetry(retrySignal -> logger.warn("Error on attempt {}/{} while fetching product IDs: {}. Retrying in {}ms...",
+                                retrySignal.totalRetries() + 1, MAX_RETRIES, retrySignal.failure().getMessage(), RETRY_DELAY_MS))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .map(this::extractProductIds)
+                .defaultIfEmpty(Collections.emptyList())
+                .onErrorResume(e -> {
+                    if (e instanceof WebClientResponseException ex && ex.getStatusCode().is4xxClientError()) {
+                        logger.error("Client error while fetching product IDs: {} - {}", ex.getStatusCode(), ex.getResponseBodyAsString());
+                        return Mono.just(Collections.emptyList());
                     }
-                } else {
-                    logger.error("Failed to fetch available product IDs. Status: {} Body: {}", response.getStatusCode(), response.getBody());
-                    return Collections.emptyList();
-                }
-            } catch (HttpClientErrorException e) {
-                logger.error("Client error on attempt {}/{}: {} - {}", attempt, MAX_RETRIES, e.getStatusCode(), e.getResponseBodyAsString());
-                break; // Don't retry on 4xx errors
-            } catch (HttpServerErrorException e) {
-                logger.warn("Server error on attempt {}/{}: {}. Retrying in {}ms...", attempt, MAX_RETRIES, e.getMessage(), RETRY_DELAY_MS);
-            } catch (RestClientException e) {
-                logger.warn("Rest client error on attempt {}/{}: {}. Retrying in {}ms...", attempt, MAX_RETRIES, e.getMessage(), RETRY_DELAY_MS);
-            } catch (Exception e) {
-                logger.error("Unexpected error on attempt {}/{}: {}", attempt, MAX_RETRIES, e.getMessage(), e);
-                break;
-            }
-            if (attempt < MAX_RETRIES) {
-                try {
-                    Thread.sleep(RETRY_DELAY_MS);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Retry sleep interrupted", ie);
-                    break;
-                }
+                    logger.error("Failed to fetch available product IDs: {}", e.getMessage());
+                    // Let the circuit breaker count the failed call
+                    return CircuitBreaker.giveUp(e).thenReturn(Collections.emptyList());
+                });
+    }
+
+    /**
+     * Extracts the product IDs from the {@code availableProducts} array of the available-products response.
+     *
+     * @param responseBody The JSON response body.
+     * @return The list of product IDs, or an empty list if the body does not have the expected shape.
+     */
+    private List<String> extractProductIds(JsonNode responseBody) {
+        if (responseBody.isObject() && responseBody.has("availableProducts")) {
+            JsonNode productsArrayNode = responseBody.get("availableProducts");
+            if (productsArrayNode.isArray()) {
+                List<String> productIds = StreamSupport.stream(productsArrayNode.spliterator(), false)
+                        .map(JsonNode::asText)
+                        .collect(Collectors.toList());
+                logger.info("Successfully fetched {} available product IDs.", productIds.size());
+                logger.debug("Available product IDs: {}", productIds);
+                return productIds;
             } else {
-                logger.error("Retries exhausted while fetching product IDs.");
+                logger.warn("Value of 'availableProducts' is not an array: {}", productsArrayNode.getNodeType());
+                return Collections.emptyList();
             }
+        } else {
+            logger.warn("Response body is not an object or does not contain 'availableProducts' field: {}", responseBody.getNodeType());
+            return Collections.emptyList();
         }
-
-        return Collections.emptyList();
     }
 
 
@@ -223,7 +219,8 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
 
     /**
      * Fetches details for a single product ID.
-     * Applies retry and timeout logic.
+     * Applies retry and timeout logic; each attempt waits for a slot of the provider's {@link ConcurrencyLimiter}
+     * and may be hedged by the provider's {@link RequestHedger}.
      */
     Flux<InternetOffer> fetchProductDetails(String productId, RequestAddress address) {
 
@@ -233,7 +230,7 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
         logger.info("Fetching offer for product {} from URL: {}", productId, url);
         logger.debug("Sending request for product {} with address: {}", productId, address);
 
-        return webClient.post()
+        Flux<DetailedResponseData> request = webClient.post()
                 .uri(url)
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(requestBody)
@@ -242,6 +239,9 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
                         response -> {
                             HttpStatusCode statusCode = response.statusCode();
                             if (statusCode == HttpStatus.BAD_REQUEST || statusCode == HttpStatus.TOO_MANY_REQUESTS || statusCode == HttpStatus.SERVICE_UNAVAILABLE) {
+                                if (statusCode != HttpStatus.BAD_REQUEST) {
+                                    limiter.recordOverload();
+                                }
                                 logger.warn("Received {} for product {}. Assuming no offers for this address.", statusCode, productId);
                                 return Mono.empty(); // Return an empty Mono to signal no data for this request
                             } else {
@@ -249,7 +249,9 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
                                 return Mono.error(new RuntimeException("WebClient error for product " + productId + ", status code: " + statusCode));
                             }
                         })
-                .bodyToFlux(DetailedResponseData.class)
+                .bodyToFlux(DetailedResponseData.class);
+
+        return hedger.hedgeMany(request, limiter)
                 .timeout(Duration.ofSeconds(50))
                 .retryWhen(Retry.backoff(MAX_RETRIES, Duration.ofMillis(RETRY_DELAY_MS))
                         .jitter(0.5)
@@ -275,13 +277,32 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
     @Override
     public Flux<InternetOffer> getOffers(RequestAddress address) {
         //Servus speed currently only has support for Germany
-        Instant startTime = Instant.now();
-        if (!address.getLand().equals("DE")) {
+        if (!"DE".equals(address.getLand())) {
             return Flux.empty();
         }
 
-        List<String> availableIds = getAvailableProductIds(address);
+        return Flux.defer(() -> {
+            Instant startTime = Instant.now();
+            return getAvailableProductIds(address)
+                    .flatMapMany(availableIds -> fetchOffers(address, availableIds))
+                    .doOnComplete(() -> {
+                        Instant endTime = Instant.now();
+                        long totalDuration = Duration.between(startTime, endTime).toMillis();
+                        logger.info("Total time to fetch all ServusSpeed offers: {} ms, concurrency limit now {}.", totalDuration, limiter.getLimit());
+                    });
+        });
+    }
 
+    /**
+     * Serves the given product IDs from the cache where possible and fetches the remaining
+     * product details. The number of concurrent requests is bounded by the provider's {@link ConcurrencyLimiter},
+     * so one reader per product is started up to the limiter's maximum.
+     *
+     * @param address The user's address
+     * @param availableIds The product IDs available at the address.
+     * @return A Flux of cached offers merged with the freshly fetched ones.
+     */
+    private Flux<InternetOffer> fetchOffers(RequestAddress address, List<String> availableIds) {
         if (availableIds.isEmpty()) {
             logger.warn("No available product IDs found for the given address.");
             return Flux.empty();
@@ -302,17 +323,13 @@ public class ServusSpeedClient implements OfferController.InternetOfferService {
 
         OfferLoader offerLoader = new OfferLoader(address, idsToFetch);
         List<Flux<InternetOffer>> parallelPageReaders = new ArrayList<>();
-        for (int i = 0; i < PARALLEL; i++) {
+        int readers = Math.min(idsToFetch.size(), limiter.getMaxLimit());
+        for (int i = 0; i < readers; i++) {
             parallelPageReaders.add(Flux.concat(offerLoader));
         }
         Flux<InternetOffer> fetchedOffersFlux = Flux.merge(parallelPageReaders);
 
-        return Flux.merge(cachedOffersFlux, fetchedOffersFlux)
-                .doOnComplete(() -> {
-                    Instant endTime = Instant.now();
-                    long totalDuration = Duration.between(startTime, endTime).toMillis();
-                    logger.info("Total time to fetch all ServusSpeed offers: {} ms with {} parallel requests.", totalDuration, PARALLEL);
-                });
+        return Flux.merge(cachedOffersFlux, fetchedOffersFlux);
     }
 
     /**
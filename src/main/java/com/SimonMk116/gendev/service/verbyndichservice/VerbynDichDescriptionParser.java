@@ -0,0 +1,295 @@
+package com.SimonMk116.gendev.service.verbyndichservice;
+
+/**
+ * Single-pass parser for the German free-text product descriptions of the VerbynDich API.
+ * <p>
+ * The description is scanned once from left to right. At every position only the phrases that can start with
+ * the current character are compared, and a field is no longer looked for once its first occurrence has been found.
+ * The result is identical to running each of the former regular expressions with {@code Matcher.find()}:
+ * </p>
+ * <ul>
+ *     <li>{@code (\d+) Mbit/s}, {@code (\d+)€ im Monat}</li>
+ *     <li>{@code monatliche Preis (\d+)€}, {@code Mindestvertragslaufzeit (\d+) Monate}</li>
+ *     <li>{@code nur für Personen unter (\d+)}, {@code einmaligen Rabatt von (\d+)}</li>
+ *     <li>{@code maximale[rn]? Rabatt beträgt (\d+)[€E]}, {@code Ab (\d+)GB pro Monat}, {@code Mindestbestellwert beträgt (\d+)€}</li>
+ *     <li>{@code Fernsehsender enthalten[\s:]*([^.,\n]+)[.,\n]?}</li>
+ *     <li>{@code (DSL|Cable|Fiber)} (ASCII case-insensitive)</li>
+ * </ul>
+ * Digits are ASCII digits only, as with {@code \d} in {@link java.util.regex.Pattern}.
+ */
+public final class VerbynDichDescriptionParser {
+
+    private static final String MBIT = " Mbit/s";
+    private static final String PER_MONTH = "€ im Monat";
+    private static final String AFTER_TWO_YEARS = "monatliche Preis ";
+    private static final String DURATION = "Mindestvertragslaufzeit ";
+    private static final String MONTHS = " Monate";
+    private static final String MAX_AGE = "nur für Personen unter ";
+    private static final String DISCOUNT = "einmaligen Rabatt von ";
+    private static final String DISCOUNT_CAP = "maximale";
+    private static final String DISCOUNT_CAP_AMOUNT = " Rabatt beträgt ";
+    private static final String TV = "Fernsehsender enthalten";
+    private static final String LIMIT_FROM = "Ab ";
+    private static final String GB_PER_MONTH = "GB pro Monat";
+    private static final String MIN_ORDER_VALUE = "Mindestbestellwert beträgt ";
+
+    /**
+     * The values extracted from a description. Numeric fields that were not found are {@code 0},
+     * {@code maxAge}, {@code tv} and {@code connectionType} are {@code null} if absent.
+     * Monetary values are in Euros, as written in the description.
+     */
+    public record ParsedDescription(int speed, int monthlyCost, int afterTwoYearsMonthlyCost, int durationInMonths,
+                                    Integer maxAge, int voucher, int discountCap, String tv, String connectionType,
+                                    int limitFrom, int minimumOrderValue) {
+    }
+
+    private VerbynDichDescriptionParser() {
+    }
+
+    /**
+     * Parses a VerbynDich product description.
+     *
+     * @param description The description text.
+     * @return The extracted values.
+     * @throws NumberFormatException If a matched number does not fit into an {@code int}
+     *                               (except for the maximum age, which is then left {@code null}).
+     */
+    public static ParsedDescription parse(String description) {
+        return new Scan(description).run();
+    }
+
+    /**
+     * Mutable scan state for a single description.
+     */
+    private static final class Scan {
+        private final String text;
+        private final int length;
+
+        private boolean speedFound, priceFound, afterTwoYearsFound, durationFound, maxAgeFound, discountFound,
+                discountCapFound, tvFound, connectionTypeFound, limitFromFound, minOrderValueFound;
+
+        private int speed, monthlyCost, afterTwoYearsMonthlyCost, durationInMonths, voucher, discountCap, limitFrom,
+                minimumOrderValue;
+        private Integer maxAge;
+        private String tv, connectionType;
+
+        Scan(String text) {
+            this.text = text;
+            this.length = text.length();
+        }
+
+        ParsedDescription run() {
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (isDigit(c)) {
+                    if (i == 0 || !isDigit(text.charAt(i - 1))) {
+                        digitRun(i);
+                    }
+                    continue;
+                }
+                switch (c) {
+                    case 'm' -> {
+                        if (!afterTwoYearsFound) afterTwoYears(i);
+                        if (!discountCapFound) discountCap(i);
+                    }
+                    case 'M' -> {
+                        if (!durationFound) duration(i);
+                        if (!minOrderValueFound) minOrderValue(i);
+                    }
+                    case 'n' -> {
+                        if (!maxAgeFound) maxAge(i);
+                    }
+                    case 'e' -> {
+                        if (!discountFound) discount(i);
+                    }
+                    case 'A' -> {
+                        if (!limitFromFound) limitFrom(i);
+                    }
+                    default -> {
+                    }
+                }
+                if (c == 'F' && !tvFound) tv(i);
+                if (!connectionTypeFound) connectionType(i, c);
+            }
+            return new ParsedDescription(speed, monthlyCost, afterTwoYearsMonthlyCost, durationInMonths, maxAge,
+                    voucher, discountCap, tv, connectionType, limitFrom, minimumOrderValue);
+        }
+
+        /**
+         * Handles a maximal run of digits starting at {@code start}; only the suffix decides whether
+         * {@code (\d+) Mbit/s} or {@code (\d+)€ im Monat} match, since a shorter run is followed by a digit.
+         */
+        private void digitRun(int start) {
+            int end = digitsEnd(start);
+            if (!speedFound && text.startsWith(MBIT, end)) {
+                speed = Integer.parseInt(text, start, end, 10);
+                speedFound = true;
+            }
+            if (!priceFound && text.startsWith(PER_MONTH, end)) {
+                monthlyCost = Integer.parseInt(text, start, end, 10);
+                priceFound = true;
+            }
+        }
+
+        private void afterTwoYears(int i) {
+            int start = i + AFTER_TWO_YEARS.length();
+            int end;
+            if (text.startsWith(AFTER_TWO_YEARS, i) && (end = digitsEnd(start)) > start && charIs(end, '€')) {
+                afterTwoYearsMonthlyCost = Integer.parseInt(text, start, end, 10);
+                afterTwoYearsFound = true;
+            }
+        }
+
+        private void duration(int i) {
+            int start = i + DURATION.length();
+            int end;
+            if (text.startsWith(DURATION, i) && (end = digitsEnd(start)) > start && text.startsWith(MONTHS, end)) {
+                durationInMonths = Integer.parseInt(text, start, end, 10);
+                durationFound = true;
+            }
+        }
+
+        private void maxAge(int i) {
+            int start = i + MAX_AGE.length();
+            int end;
+            if (text.startsWith(MAX_AGE, i) && (end = digitsEnd(start)) > start) {
+                maxAgeFound = true;
+                try {
+                    maxAge = Integer.parseInt(text, start, end, 10);
+                } catch (NumberFormatException e) {
+                    // Same as the former regex path: the first occurrence decides, an unparsable age stays null
+                }
+            }
+        }
+
+        private void discount(int i) {
+            int start = i + DISCOUNT.length();
+            int end;
+            if (text.startsWith(DISCOUNT, i) && (end = digitsEnd(start)) > start) {
+                voucher = Integer.parseInt(text, start, end, 10);
+                discountFound = true;
+            }
+        }
+
+        private void discountCap(int i) {
+            if (!text.startsWith(DISCOUNT_CAP, i)) {
+                return;
+            }
+            int pos = i + DISCOUNT_CAP.length();
+            if (charIs(pos, 'r') || charIs(pos, 'n')) {
+                pos++;
+            }
+            if (!text.startsWith(DISCOUNT_CAP_AMOUNT, pos)) {
+                return;
+            }
+            int start = pos + DISCOUNT_CAP_AMOUNT.length();
+            int end = digitsEnd(start);
+            if (end > start && (charIs(end, '€') || charIs(end, 'E'))) {
+                discountCap = Integer.parseInt(text, start, end, 10);
+                discountCapFound = true;
+            }
+        }
+
+        private void limitFrom(int i) {
+            int start = i + LIMIT_FROM.length();
+            int end;
+            if (text.startsWith(LIMIT_FROM, i) && (end = digitsEnd(start)) > start && text.startsWith(GB_PER_MONTH, end)) {
+                limitFrom = Integer.parseInt(text, start, end, 10);
+                limitFromFound = true;
+            }
+        }
+
+        private void minOrderValue(int i) {
+            int start = i + MIN_ORDER_VALUE.length();
+            int end;
+            if (text.startsWith(MIN_ORDER_VALUE, i) && (end = digitsEnd(start)) > start && charIs(end, '€')) {
+                minimumOrderValue = Integer.parseInt(text, start, end, 10);
+                minOrderValueFound = true;
+            }
+        }
+
+        /**
+         * Mirrors {@code Fernsehsender enthalten[\s:]*([^.,\n]+)}: the separator run is greedy, and if no
+         * channel list follows it, the regex would backtrack into the run and capture its last non-newline character.
+         */
+        private void tv(int i) {
+            if (!text.startsWith(TV, i)) {
+                return;
+            }
+            int separatorStart = i + TV.length();
+            int pos = separatorStart;
+            while (pos < length && isSpaceOrColon(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos < length && isTvChar(text.charAt(pos))) {
+                int end = pos;
+                while (end < length && isTvChar(text.charAt(end))) {
+                    end++;
+                }
+                tv = text.substring(pos, end);
+                tvFound = true;
+                return;
+            }
+            for (int k = pos - 1; k >= separatorStart; k--) {
+                if (text.charAt(k) != '\n') {
+                    // Every character after k within the run is a line break, so the capture is this single character
+                    tv = text.substring(k, k + 1);
+                    tvFound = true;
+                    return;
+                }
+            }
+        }
+
+        private void connectionType(int i, char c) {
+            String candidate = switch (c) {
+                case 'D', 'd' -> "DSL";
+                case 'C', 'c' -> "Cable";
+                case 'F', 'f' -> "Fiber";
+                default -> null;
+            };
+            if (candidate != null && text.regionMatches(true, i, candidate, 0, candidate.length())
+                    && isAsciiOnly(i, candidate.length())) {
+                connectionType = text.substring(i, i + candidate.length());
+                connectionTypeFound = true;
+            }
+        }
+
+        /**
+         * {@link String#regionMatches(boolean, int, String, int, int)} also folds non-ASCII characters
+         * (e.g. the Kelvin sign), whereas {@code Pattern.CASE_INSENSITIVE} alone only folds US-ASCII.
+         */
+        private boolean isAsciiOnly(int start, int count) {
+            for (int k = start; k < start + count; k++) {
+                if (text.charAt(k) > 0x7F) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int digitsEnd(int start) {
+            int end = start;
+            while (end < length && isDigit(text.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+
+        private boolean charIs(int index, char expected) {
+            return index < length && text.charAt(index) == expected;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isSpaceOrColon(char c) {
+            // [\s:] with the default (non-Unicode) definition of \s
+            return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == ':';
+        }
+
+        private static boolean isTvChar(char c) {
+            return c != '.' && c != ',' && c != '\n';
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.SimonMk116.gendev.service.verbyndichservice;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Learns how many result pages the VerbynDich API typically returns for a postal-code prefix.
+ * <p>
+ * Observed page counts are folded into an exponentially weighted moving average per prefix
+ * ({@code provider.verbyndich.page-estimate.prefix-length} leading characters of the postal code) and into a global
+ * average over all searches. The influence of a prefix estimate decays with its age
+ * ({@code provider.verbyndich.page-estimate.half-life}): an estimate that has not been updated for one half-life
+ * counts half, the rest is taken from the global average. Estimates are kept in memory only and bounded by
+ * {@code provider.verbyndich.page-estimate.max-prefixes}.
+ * </p>
+ */
+@Component
+public class VerbynDichPageCountEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerbynDichPageCountEstimator.class);
+
+    static final int DEFAULT_PREFIX_LENGTH = 3;
+    static final double DEFAULT_ALPHA = 0.3;
+    static final Duration DEFAULT_HALF_LIFE = Duration.ofHours(6);
+    static final int DEFAULT_PAGES = 5;
+    static final long DEFAULT_MAX_PREFIXES = 10_000;
+    // After this many half-lives an estimate has practically no weight left and can be dropped
+    private static final int HALF_LIVES_KEPT = 8;
+
+    private final int prefixLength;
+    private final double alpha;
+    private final double halfLifeNanos;
+    private final Cache<String, Estimate> estimates;
+    private double globalPages;
+
+    /**
+     * Constructs the estimator from the {@code provider.verbyndich.page-estimate.*} settings.
+     *
+     * @param environment The Spring {@link Environment} used to resolve the estimator settings.
+     */
+    @Autowired
+    public VerbynDichPageCountEstimator(Environment environment) {
+        String prefix = "provider.verbyndich.page-estimate.";
+        this.prefixLength = environment.getProperty(prefix + "prefix-length", Integer.class, DEFAULT_PREFIX_LENGTH);
+        this.alpha = environment.getProperty(prefix + "alpha", Double.class, DEFAULT_ALPHA);
+        Duration halfLife = environment.getProperty(prefix + "half-life", Duration.class, DEFAULT_HALF_LIFE);
+        this.halfLifeNanos = halfLife.toNanos();
+        this.globalPages = environment.getProperty(prefix + "default-pages", Integer.class, DEFAULT_PAGES);
+        this.estimates = CacheBuilder.newBuilder()
+                .maximumSize(environment.getProperty(prefix + "max-prefixes", Long.class, DEFAULT_MAX_PREFIXES))
+                .expireAfterWrite(halfLife.multipliedBy(HALF_LIVES_KEPT))
+                .build();
+    }
+
+    /**
+     * Returns the expected number of result pages for a postal code.
+     *
+     * @param postalCode The postal code of the searched address.
+     * @return The estimated page count, at least {@code 1}.
+     */
+    public synchronized int estimatePages(String postalCode) {
+        return Math.max(1, (int) Math.round(currentEstimate(prefixOf(postalCode))));
+    }
+
+    /**
+     * Records the number of pages a completed search returned.
+     *
+     * @param postalCode The postal code of the searched address.
+     * @param pages      The observed number of pages, including the last one.
+     */
+    public synchronized void recordPages(String postalCode, int pages) {
+        String prefix = prefixOf(postalCode);
+        Estimate existing = estimates.getIfPresent(prefix);
+        double updated = existing == null ? pages : ewma(currentEstimate(prefix), pages);
+        estimates.put(prefix, new Estimate(updated, System.nanoTime()));
+        globalPages = ewma(globalPages, pages);
+        logger.debug("VerbynDich page estimate for prefix '{}' is now {} (global {})", prefix, updated, globalPages);
+    }
+
+    private double currentEstimate(String prefix) {
+        Estimate estimate = estimates.getIfPresent(prefix);
+        if (estimate == null) {
+            return globalPages;
+        }
+        double weight = Math.pow(0.5, (System.nanoTime() - estimate.updatedAtNanos()) / halfLifeNanos);
+        return weight * estimate.pages() + (1 - weight) * globalPages;
+    }
+
+    private double ewma(double current, int observed) {
+        return current + alpha * (observed - current);
+    }
+
+    private String prefixOf(String postalCode) {
+        if (postalCode == null) {
+            return "";
+        }
+        String trimmed = postalCode.trim();
+        return trimmed.length() <= prefixLength ? trimmed : trimmed.substring(0, prefixLength);
+    }
+
+    private record Estimate(double pages, long updatedAtNanos) {
+    }
+}
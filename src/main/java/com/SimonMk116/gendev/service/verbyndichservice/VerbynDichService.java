@@ -1,9 +1,16 @@
 package com.SimonMk116.gendev.service.verbyndichservice;
 
+import com.SimonMk116.gendev.config.ProviderHttpConnectors;
 import com.SimonMk116.gendev.controller.OfferController;
 import com.SimonMk116.gendev.dto.VerbynDichResponse;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import com.SimonMk116.gendev.service.aggregation.OfferIds;
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiter;
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiters;
+import com.SimonMk116.gendev.service.resilience.RequestHedger;
+import com.SimonMk116.gendev.service.resilience.RequestHedgers;
 import io.netty.handler.timeout.ReadTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
@@ -21,16 +29,21 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for fetching internet offers from the external "VerbynDich" provider.
  * This service interacts with the VerbynDich API, handling paginated responses
  * using reactive streams ({@link Flux}) and employing retry logic for transient
  * network or server issues. It parses offer details from text descriptions
- * using regular expressions.
+ * using the single-pass {@link VerbynDichDescriptionParser}.
+ * The number of parallel page readers is sized to the page count that
+ * {@link VerbynDichPageCountEstimator} expects for the postal code.
+ * Slow page requests can be hedged with a {@link RequestHedger} ({@code provider.verbyndich.hedge.*}),
+ * and the page requests of all searches share the adaptive {@link ConcurrencyLimiter} of the provider
+ * ({@code provider.verbyndich.concurrency.*}).
  */
 @Service
 public class VerbynDichService implements OfferController.InternetOfferService {
@@ -38,41 +51,81 @@ public class VerbynDichService implements OfferController.InternetOfferService {
     @Value("${provider.verbyndich.api-key}")
     private String apiKey;
 
+    /**
+     * Upper bound for the number of page readers of a single search. How many page requests are actually in
+     * flight is decided by the provider's {@link ConcurrencyLimiter}, which is shared by all searches.
+     */
+    @Value("${provider.verbyndich.max-parallel:8}")
+    private int maxParallel = 8;
+
+    /**
+     * Number of pages beyond the estimated page count that may be requested before the previous page
+     * is known not to be the last one.
+     */
+    @Value("${provider.verbyndich.speculative-pages:1}")
+    private int speculativePages = 1;
+
     private static final Logger logger = LoggerFactory.getLogger(VerbynDichService.class);
     private final WebClient webClient;
+    private final VerbynDichPageCountEstimator pageCountEstimator;
+    private RequestHedger hedger = RequestHedger.disabled("verbyndich");
+    private ConcurrencyLimiter limiter = ConcurrencyLimiters.withDefaults("verbyndich", 8);
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 300;
 
-    // Regex patterns for parsing product description text
-    static final Pattern speedPattern = Pattern.compile("(\\d+) Mbit/s");
-    static final Pattern pricePattern = Pattern.compile("(\\d+)€ im Monat");
-    static final Pattern afterTwoYearsPricePattern = Pattern.compile("monatliche Preis (\\d+)€");
-    static final Pattern durationPattern = Pattern.compile("Mindestvertragslaufzeit (\\d+) Monate");
-    static final Pattern maxAgePattern = Pattern.compile("nur für Personen unter (\\d+)");
-    static final Pattern discountPattern = Pattern.compile("einmaligen Rabatt von (\\d+)");
-    static final Pattern discountCapPattern = Pattern.compile("maximale[rn]? Rabatt beträgt (\\d+)[€E]");
-    static final Pattern tvPattern = Pattern.compile("Fernsehsender enthalten[\\s:]*([^.,\\n]+)[.,\\n]?");
-    static final Pattern connectionTypePattern = Pattern.compile("(DSL|Cable|Fiber)", Pattern.CASE_INSENSITIVE);
-    static final Pattern limitFromPattern = Pattern.compile("Ab (\\d+)GB pro Monat");
-    static final Pattern minimumOrderValuePattern = Pattern.compile("Mindestbestellwert beträgt (\\d+)€");
-
     /**
      * Constructs a new {@code VerbynDichService} and configures its {@link WebClient}.
-     * The {@link WebClient} is built with a base URL for the VerbynDich API.
+     * The {@link WebClient} is built with a base URL for the VerbynDich API and uses the provider's own
+     * connection pool ({@code provider.verbyndich.netty.*}), so the parallel page readers reuse warm connections.
      *
-     * @param webClientBuilder The Spring-provided {@link WebClient.Builder} for building the WebClient instance.
+     * @param webClientBuilder   The Spring-provided {@link WebClient.Builder} for building the WebClient instance.
+     * @param pageCountEstimator The estimator used to size the parallel page requests.
+     * @param connectors         The registry of the per-provider connection pools.
      */
     @Autowired
-    public VerbynDichService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder
+    public VerbynDichService(WebClient.Builder webClientBuilder, VerbynDichPageCountEstimator pageCountEstimator,
+                             ProviderHttpConnectors connectors) {
+        this(webClientBuilder
                 .baseUrl("https://verbyndich.gendev7.check24.fun/check24/data")
-                //.clientConnector(new ReactorClientHttpConnector()) // Use the configured HttpClient
-                .build();
+                .clientConnector(connectors.forProvider("verbyndich"))
+                .build(), pageCountEstimator);
+    }
+
+    /**
+     * Constructs a new {@code VerbynDichService} with a preconfigured {@link WebClient}
+     * whose base URL points to the VerbynDich data endpoint.
+     *
+     * @param webClient          The {@link WebClient} used for all API calls.
+     * @param pageCountEstimator The estimator used to size the parallel page requests.
+     */
+    public VerbynDichService(WebClient webClient, VerbynDichPageCountEstimator pageCountEstimator) {
+        this.webClient = webClient;
+        this.pageCountEstimator = pageCountEstimator;
+    }
+
+    /**
+     * Sets up hedging of page requests as configured for the {@code verbyndich} provider.
+     *
+     * @param hedgers The factory of the per-provider {@link RequestHedger}s.
+     */
+    @Autowired
+    public void setRequestHedgers(RequestHedgers hedgers) {
+        this.hedger = hedgers.forProvider("verbyndich");
+    }
+
+    /**
+     * Uses the node-wide concurrency limiter of the {@code verbyndich} provider for page requests.
+     *
+     * @param limiters The registry of the per-provider {@link ConcurrencyLimiter}s.
+     */
+    @Autowired
+    public void setConcurrencyLimiters(ConcurrencyLimiters limiters) {
+        this.limiter = limiters.forProvider("verbyndich");
     }
     /**
      * Maps a {@link VerbynDichResponse} object received from the VerbynDich API to a standardized
      * {@link InternetOffer} domain object. This method extracts various offer details by
-     * applying regular expressions to the {@code description} field of the response.
+     * parsing the {@code description} field of the response with {@link VerbynDichDescriptionParser}.
      *
      * @param response The {@link VerbynDichResponse} object containing raw offer data and a description string.
      * @return An {@link InternetOffer} object populated with details parsed from the response.
@@ -83,78 +136,27 @@ public class VerbynDichService implements OfferController.InternetOfferService {
         logger.info("mapToInternetOffer {}", response.toString());
         String description = response.getDescription();
 
-        // Initialize default values
-        int speed = 0;
-        int monthlyCost = 0;
-        int afterTwoYearsMonthlyCost = 0;
-        int durationInMonths = 0;
-        Integer maxAge = null;
-        int voucher = 0;
-        int discountCap = 0;
-        String tv = null;
-        String connectionType = null;
-        int limitFrom = 0;
-        int minimumOrderValue = 0;
-
-
-        Matcher matcher;
-
-        matcher = speedPattern.matcher(description);
-        if (matcher.find()) speed = Integer.parseInt(matcher.group(1));
-
-        matcher = pricePattern.matcher(description);
-        if (matcher.find()) monthlyCost = Integer.parseInt(matcher.group(1));
-
-        matcher = afterTwoYearsPricePattern.matcher(description);
-        if (matcher.find()) afterTwoYearsMonthlyCost = Integer.parseInt(matcher.group(1));
+        VerbynDichDescriptionParser.ParsedDescription parsed = VerbynDichDescriptionParser.parse(description);
 
-        matcher = durationPattern.matcher(description);
-        if (matcher.find()) durationInMonths = Integer.parseInt(matcher.group(1));
-
-        matcher = maxAgePattern.matcher(description);
-        if (matcher.find()) {
-            try {
-                maxAge = Integer.parseInt(matcher.group(1));
-            } catch (NumberFormatException e) {
-                logger.warn("Error parsing maxAge: {}", e.getMessage());
-            }
-        }
-
-        matcher = discountPattern.matcher(description);
-        if (matcher.find()) voucher = Integer.parseInt(matcher.group(1));
-
-        matcher = discountCapPattern.matcher(description);
-        if (matcher.find()) discountCap = Integer.parseInt(matcher.group(1));
-
-        matcher = tvPattern.matcher(description);
-        if (matcher.find()) tv = matcher.group(1);
-
-        matcher = connectionTypePattern.matcher(description);
-        if (matcher.find()) connectionType = matcher.group(1);
-
-        matcher = limitFromPattern.matcher(description);
-        if (matcher.find()) limitFrom = Integer.parseInt(matcher.group(1));
-
-        matcher = minimumOrderValuePattern.matcher(description);
-        if (matcher.find()) minimumOrderValue = Integer.parseInt(matcher.group(1));
-
-        return InternetOffer.builder()
+        InternetOffer offer = InternetOffer.builder()
                 .providerName(response.getProduct())
-                .productId("VerbynDich-" + UUID.randomUUID())
-                .speed(speed)
-                .monthlyCostInCent(monthlyCost * 100) // Convert to cents
-                .afterTwoYearsMonthlyCost(afterTwoYearsMonthlyCost * 100) // Convert to cents
-                .durationInMonths(durationInMonths)
-                .maxAge(maxAge)
-                .tv(tv)
-                .connectionType(connectionType)
-                .limitFrom(limitFrom)
-                .discountCap(discountCap)
+                .speed(parsed.speed())
+                .monthlyCostInCent(parsed.monthlyCost() * 100) // Convert to cents
+                .afterTwoYearsMonthlyCost(parsed.afterTwoYearsMonthlyCost() * 100) // Convert to cents
+                .durationInMonths(parsed.durationInMonths())
+                .maxAge(parsed.maxAge())
+                .tv(parsed.tv())
+                .connectionType(parsed.connectionType())
+                .limitFrom(parsed.limitFrom())
+                .discountCap(parsed.discountCap())
                 .installationService(false)
-                .minOrderValueInCent(minimumOrderValue * 100) // Convert to cents
+                .minOrderValueInCent(parsed.minimumOrderValue() * 100) // Convert to cents
                 .voucherType("ABSOLUTE")
-                .voucherValue(voucher * 100) // Convert to cents
+                .voucherValue(parsed.voucher() * 100) // Convert to cents
                 .build();
+        // Stable id derived from the offer content, so the same tariff keeps its id across searches
+        offer.setProductId(OfferIds.contentId("VerbynDich-", offer));
+        return offer;
     }
 
     /**
@@ -162,26 +164,72 @@ public class VerbynDichService implements OfferController.InternetOfferService {
      * page of results from the VerbynDich API. This class manages the pagination state
      * (e.g., current page and whether the last page has been reached).
      * for sequential fetching of pages within a parallel stream.
+     * <p>
+     * Pages below the estimated page count are requested right away. Any further page is only requested
+     * once the page {@code speculativePages} before it has been received and was not the last one, so
+     * readers do not fire requests past the end while a too low estimate still fetches all pages.
+     * </p>
      */
     public class PageProvider implements Iterable<Flux<InternetOffer>> {
         String addressData;
+        final int estimatedPages;
+        final int speculativePages;
         // Volatile to ensure visibility of changes across threads in a concurrent context.
         volatile boolean done = false;
-        volatile int nextPage = 0;
+        // Shared by the iterators of all readers, so every page is handed out exactly once
+        final AtomicInteger nextPage = new AtomicInteger();
+        final AtomicInteger lastPage = new AtomicInteger(Integer.MAX_VALUE);
+        final AtomicInteger requestedPages = new AtomicInteger();
+        // Completed with whether the page was the last one once its response has been fully received
+        private final ConcurrentMap<Integer, Sinks.One<Boolean>> pageResults = new ConcurrentHashMap<>();
 
         /**
          * Constructs a {@code PageProvider} for a specific set of address data.
          *
-         * @param addressData A semicolon-separated string of address components
-         * (street;houseNumber;city;postalCode) required by the VerbynDich API.
+         * @param addressData      A semicolon-separated string of address components
+         *                         (street;houseNumber;city;postalCode) required by the VerbynDich API.
+         * @param estimatedPages   The number of pages expected for the address.
+         * @param speculativePages The number of pages that may be requested ahead of a confirmed non-last page.
          */
-        public PageProvider(String addressData) {
+        public PageProvider(String addressData, int estimatedPages, int speculativePages) {
             this.addressData = addressData;
+            this.estimatedPages = estimatedPages;
+            this.speculativePages = speculativePages;
+        }
+
+        private Sinks.One<Boolean> pageResult(int page) {
+            return pageResults.computeIfAbsent(page, p -> Sinks.one());
+        }
+
+        void pageReceived(int page, boolean last) {
+            if (last) {
+                lastPage.accumulateAndGet(page, Math::min);
+                done = true;
+            }
+            pageResult(page).tryEmitValue(last);
+        }
+
+        private Flux<InternetOffer> page(int page) {
+            int gate = page - speculativePages;
+            if (page < estimatedPages || gate < 0) {
+                return pageLoader(this, page);
+            }
+            // Beyond the estimate: wait until the gating page turned out not to be the last one
+            return pageResult(gate).asMono()
+                    .flatMapMany(last -> {
+                        if (done) {
+                            // Skipped pages count as past the end, so readers waiting on them stop as well
+                            pageResult(page).tryEmitValue(true);
+                            return Flux.empty();
+                        }
+                        return pageLoader(this, page);
+                    });
         }
 
         /**
          * Returns an {@link Iterator} over {@link Flux} streams. Each call to {@code next()}
-         * will return a Flux that attempts to fetch the next logical page of offers.
+         * will return a Flux that attempts to fetch the next logical page of offers. Every parallel reader
+         * gets its own iterator, but all of them take their pages from the same counter.
          *
          * @return An {@link Iterator} that provides {@link Flux} streams for fetching pages of internet offers.
          */
@@ -194,8 +242,8 @@ public class VerbynDichService implements OfferController.InternetOfferService {
                 }
 
                 @Override
-                public synchronized Flux<InternetOffer> next() {
-                    return pageLoader(PageProvider.this, nextPage++);
+                public Flux<InternetOffer> next() {
+                    return page(nextPage.getAndIncrement());
                 }
             };
         }
@@ -205,7 +253,8 @@ public class VerbynDichService implements OfferController.InternetOfferService {
      * Loads a single page of internet offers from the VerbynDich API.
      * This method constructs the URL with API key and page number, sends the address data
      * as the request body, and applies reactive retry logic for transient errors
-     * (network timeouts, 5xx server errors, 429 Too Many Requests).
+     * (network timeouts, 5xx server errors, 429 Too Many Requests). Each attempt waits for a slot of the
+     * provider's {@link ConcurrencyLimiter} and may be hedged by the provider's {@link RequestHedger}.
      * It also checks the {@code isLast()} flag in the response to signal the end of pagination.
      *
      * @param provider The {@link PageProvider} instance controlling the pagination state.
@@ -214,19 +263,19 @@ public class VerbynDichService implements OfferController.InternetOfferService {
      * Returns an empty Flux if the request fails persistently or contains no valid offers.
      */
     Flux<InternetOffer> pageLoader(PageProvider provider, int page) {
-        String url = String.format(
-                "https://verbyndich.gendev7.check24.fun/check24/data?apiKey=%s&page=%d",
-                apiKey, page
-        );
+        //logger.info("Fetching page {}", page);
 
-        //logger.info("Fetching page {} from URL: {}", page, url);
-
-        return webClient.post()
-                .uri(url)
+        Flux<VerbynDichResponse> request = webClient.post()
+                .uri(uriBuilder -> uriBuilder
+                        .queryParam("apiKey", apiKey)
+                        .queryParam("page", page)
+                        .build())
                 .contentType(MediaType.TEXT_PLAIN)
                 .bodyValue(provider.addressData)
                 .retrieve()
-                .bodyToFlux(VerbynDichResponse.class)
+                .bodyToFlux(VerbynDichResponse.class);
+
+        return hedger.hedgeMany(request, limiter)
                 .timeout(Duration.ofSeconds(50))
                 .retryWhen(Retry.backoff(MAX_RETRIES, Duration.ofMillis(RETRY_DELAY_MS))
                         .jitter(0.5)
@@ -234,9 +283,11 @@ public class VerbynDichService implements OfferController.InternetOfferService {
                         .doBeforeRetry(retrySignal -> logger.warn("Retrying page {} due to {}", page, retrySignal.failure().toString()))
                         .onRetryExhaustedThrow((spec, signal) -> new RuntimeException("Retries exhausted for page " + page, signal.failure()))
                 )
+                .doOnSubscribe(subscription -> provider.requestedPages.incrementAndGet())
                 .doOnNext(response -> {
-                    if (response.isLast()) provider.done = true;
+                    if (response.isLast()) provider.pageReceived(page, true);
                 })
+                .doOnComplete(() -> provider.pageReceived(page, false))
                 .doOnError(error -> logger.error("Error fetching page {}: {}", page, error.getMessage()))
                 //.doOnComplete(() -> logger.info("Successfully processed page {}", page))
                 .map(this::mapToInternetOffer)
@@ -246,7 +297,16 @@ public class VerbynDichService implements OfferController.InternetOfferService {
                 });
     }
 
-    static int PARALLEL = 5;
+    /**
+     * {@inheritDoc}
+     * <p>
+     * VerbynDich offers never include an installation service.
+     * </p>
+     */
+    @Override
+    public boolean canSatisfy(OfferFilter filter) {
+        return !filter.requiresInstallation();
+    }
 
     /**
      * {@inheritDoc}
@@ -254,7 +314,9 @@ public class VerbynDichService implements OfferController.InternetOfferService {
      * This implementation fetches all available internet offers from the VerbynDich provider
      * for the given address. It orchestrates concurrent paginated requests using a
      * {@link PageProvider} to manage pagination state and {@link Flux#merge} to combine
-     * results from multiple parallel streams.
+     * results from multiple parallel streams. The number of parallel streams follows the
+     * estimated page count for the postal code, and the observed page count is fed back
+     * into the estimate once all pages have been fetched.
      * </p>
      *
      * @param address The user's {@link RequestAddress} to find offers for.
@@ -272,17 +334,24 @@ public class VerbynDichService implements OfferController.InternetOfferService {
                 address.getPostleitzahl()
         );
 
-        PageProvider pageProvider = new PageProvider(addressData);
+        int estimatedPages = pageCountEstimator.estimatePages(address.getPostleitzahl());
+        int parallel = Math.max(1, Math.min(estimatedPages, maxParallel));
+        PageProvider pageProvider = new PageProvider(addressData, estimatedPages, Math.max(1, speculativePages));
 
         List<Flux<InternetOffer>> parallelPageReaders = new ArrayList<>();
-        for (int i = 0; i < PARALLEL; i++) {
+        for (int i = 0; i < parallel; i++) {
             parallelPageReaders.add(Flux.concat(pageProvider)); //remove null ,offers check i
         }
         return Flux.merge(parallelPageReaders)
                 .doOnComplete(() -> {
                     Instant endTime = Instant.now();
                     long totalDuration = Duration.between(startTime, endTime).toMillis();
-                    logger.info("Total time to fetch all VerbynDich offers: {} ms with {} parallel requests.", totalDuration, PARALLEL);
+                    int lastPage = pageProvider.lastPage.get();
+                    if (lastPage != Integer.MAX_VALUE) {
+                        pageCountEstimator.recordPages(address.getPostleitzahl(), lastPage + 1);
+                    }
+                    logger.info("Total time to fetch all VerbynDich offers: {} ms with {} parallel requests ({} pages requested, {} estimated).",
+                            totalDuration, parallel, pageProvider.requestedPages.get(), estimatedPages);
                 });
     }
 
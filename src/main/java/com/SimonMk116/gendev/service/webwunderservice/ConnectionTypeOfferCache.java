@@ -0,0 +1,96 @@
+package com.SimonMk116.gendev.service.webwunderservice;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.cache.ProviderOfferCache;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.ConnectionType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cache of the WebWunder offers per normalized {@link RequestAddress} and {@link ConnectionType}.
+ * <p>
+ * WebWunder is queried once per connection type, and the offers of one connection type stay stable for hours. In
+ * contrast to the aggregated {@link ProviderOfferCache}, every connection type
+ * is cached on its own, so a search only queries the connection types that are not cached yet, e.g. a complete
+ * search after a search filtered by connection type. Entries expire {@code provider.webwunder.connection-type-cache.ttl}
+ * after they have been stored. As the aggregated cache revalidates its entries through this cache, the TTL is capped
+ * at the aggregated TTL ({@code provider.webwunder.cache-ttl}), so a revalidated result is never older than a fresh
+ * one may be. The cache is bounded by the total number of cached offers ({@code provider.webwunder.connection-type-cache.max-offers}).
+ * </p>
+ */
+@Component
+public class ConnectionTypeOfferCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionTypeOfferCache.class);
+
+    static final long DEFAULT_MAX_OFFERS = 20_000;
+
+    private final Cache<Key, List<InternetOffer>> cache;
+
+    /**
+     * Constructs the cache from the {@code provider.webwunder.connection-type-cache.*} properties.
+     *
+     * @param environment The Spring {@link Environment} holding the cache settings.
+     */
+    @Autowired
+    public ConnectionTypeOfferCache(Environment environment) {
+        Duration aggregatedTtl = environment.getProperty("provider.webwunder.cache-ttl", Duration.class, ProviderOfferCache.DEFAULT_TTL);
+        Duration ttl = environment.getProperty("provider.webwunder.connection-type-cache.ttl", Duration.class, aggregatedTtl);
+        if (ttl.compareTo(aggregatedTtl) > 0) {
+            logger.warn("WebWunder connection type cache TTL {} exceeds the aggregated cache TTL, using {}", ttl, aggregatedTtl);
+            ttl = aggregatedTtl;
+        }
+        long maxOffers = environment.getProperty("provider.webwunder.connection-type-cache.max-offers", Long.class, DEFAULT_MAX_OFFERS);
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxOffers)
+                .weigher((Key key, List<InternetOffer> offers) -> offers.size() + 1)
+                .build();
+        logger.info("Caching WebWunder offers per connection type for {}", ttl);
+    }
+
+    /**
+     * Returns the cached offers of one connection type.
+     *
+     * @param address        The searched address.
+     * @param connectionType The connection type.
+     * @return The cached offers, or {@code null} if they have to be fetched.
+     */
+    public List<InternetOffer> get(RequestAddress address, ConnectionType connectionType) {
+        return cache.getIfPresent(new Key(address.normalizedKey(), connectionType));
+    }
+
+    /**
+     * Stores the complete offers of one connection type.
+     *
+     * @param address        The searched address.
+     * @param connectionType The connection type.
+     * @param offers         All offers WebWunder returned for the connection type.
+     */
+    public void put(RequestAddress address, ConnectionType connectionType, List<InternetOffer> offers) {
+        if (offers.isEmpty()) {
+            // Failed calls end as empty results, so an empty list is not worth remembering
+            return;
+        }
+        cache.put(new Key(address.normalizedKey(), connectionType), List.copyOf(offers));
+    }
+
+    /**
+     * Removes all cached offers.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record Key(String address, ConnectionType connectionType) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.SimonMk116.gendev.service.webwunderservice;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of JAXB {@link Marshaller}s and {@link Unmarshaller}s of one {@link JAXBContext}.
+ * <p>
+ * {@link org.springframework.oxm.jaxb.Jaxb2Marshaller} creates and configures a new marshaller for every call.
+ * Marshallers are not thread-safe, but can be reused by one thread at a time, so a borrowed instance is handed back
+ * after use and taken by the next call. Borrowing never blocks: if the pool is empty, a new instance is created, and
+ * instances beyond {@code maxIdle} are dropped on release.
+ * </p>
+ */
+public final class JaxbMarshallerPool {
+
+    private final JAXBContext context;
+    private final BlockingQueue<Marshaller> marshallers;
+    private final BlockingQueue<Unmarshaller> unmarshallers;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param context The JAXB context the instances are created from.
+     * @param maxIdle The maximum number of idle instances of each kind kept for reuse.
+     */
+    public JaxbMarshallerPool(JAXBContext context, int maxIdle) {
+        this.context = context;
+        this.marshallers = new ArrayBlockingQueue<>(maxIdle);
+        this.unmarshallers = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Takes an idle marshaller or creates a new one. It must be handed back with {@link #release(Marshaller)}.
+     *
+     * @return A marshaller for the exclusive use of the caller until it is released.
+     * @throws JAXBException If a new marshaller cannot be created.
+     */
+    public Marshaller borrowMarshaller() throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        return marshaller != null ? marshaller : context.createMarshaller();
+    }
+
+    /**
+     * Hands a borrowed marshaller back to the pool.
+     *
+     * @param marshaller The marshaller, which must not be used by the caller afterwards.
+     */
+    public void release(Marshaller marshaller) {
+        marshallers.offer(marshaller);
+    }
+
+    /**
+     * Takes an idle unmarshaller or creates a new one. It must be handed back with {@link #release(Unmarshaller)}.
+     *
+     * @return An unmarshaller for the exclusive use of the caller until it is released.
+     * @throws JAXBException If a new unmarshaller cannot be created.
+     */
+    public Unmarshaller borrowUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+        return unmarshaller != null ? unmarshaller : context.createUnmarshaller();
+    }
+
+    /**
+     * Hands a borrowed unmarshaller back to the pool.
+     *
+     * @param unmarshaller The unmarshaller, which must not be used by the caller afterwards.
+     */
+    public void release(Unmarshaller unmarshaller) {
+        unmarshallers.offer(unmarshaller);
+    }
+}
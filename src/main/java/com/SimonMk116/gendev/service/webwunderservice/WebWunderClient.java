@@ -1,26 +1,66 @@
 package com.SimonMk116.gendev.service.webwunderservice;
 
+import com.SimonMk116.gendev.config.ProviderHttpClients;
 import com.SimonMk116.gendev.dto.SearchRequests;
+import com.SimonMk116.gendev.service.resilience.Bulkhead;
+import com.SimonMk116.gendev.service.resilience.Bulkheads;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
 import com.SimonMk116.gendev.service.webwunderservice.autogenerated.*;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.oxm.MarshallingFailureException;
+import org.springframework.oxm.UnmarshallingFailureException;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
 import org.springframework.stereotype.Component;
 import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.WebServiceTransportException;
+import org.springframework.ws.client.core.WebServiceMessageExtractor;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.client.core.support.WebServiceGatewaySupport;
 import org.springframework.ws.soap.client.SoapFaultClientException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Client service for interacting with the external "WebWunder" SOAP web service.
  * This class extends {@link WebServiceGatewaySupport} to leverage Spring WS
  * functionality for sending and receiving SOAP messages. It provides a reactive
  * API for fetching internet offers, incorporating retry logic for transient
- * SOAP-related errors.
+ * SOAP-related errors. The blocking SOAP calls run on the provider's own {@link Bulkhead}
+ * ({@code provider.webwunder.bulkhead.*}).
+ * <p>
+ * Besides the {@link WebServiceTemplate} call, which builds the whole response as a DOM before the first product
+ * can be used, {@link #streamInternetOffers} posts the request over the provider's pooled HTTP client and reads the
+ * response with StAX, emitting every product as soon as its element has been received.
+ * </p>
+ * <p>
+ * Both paths skip the per-call marshaller setup of {@link Jaxb2Marshaller}: JAXB marshallers and unmarshallers are
+ * taken from a {@link JaxbMarshallerPool}, and the streamed requests are rendered from a precompiled
+ * {@link WebWunderRequestTemplate} instead of being marshalled.
+ * </p>
  */
 @Component
 public class WebWunderClient extends WebServiceGatewaySupport {
@@ -28,8 +68,18 @@ public class WebWunderClient extends WebServiceGatewaySupport {
     private static final Logger logger = LoggerFactory.getLogger(WebWunderClient.class);
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 500;
+    // Enough idle instances for the bulkhead threads of the provider
+    private static final int MARSHALLER_POOL_SIZE = 32;
 
     private final WebServiceTemplate webServiceTemplate;
+    private final JaxbMarshallerPool marshallerPool;
+    private final WebWunderRequestTemplate requestTemplate;
+    // Shared pool until the provider's bulkhead is injected, e.g. in tests that construct the client directly
+    private Scheduler scheduler = Schedulers.boundedElastic();
+    private CloseableHttpClient httpClient;
+
+    @Value("${provider.webwunder.api-key:#{null}}")
+    private String apiKey;
 
     /**
      * Constructs a new {@code WebWunderClient} with the provided {@link WebServiceTemplate}.
@@ -40,6 +90,34 @@ public class WebWunderClient extends WebServiceGatewaySupport {
      */
     public WebWunderClient(WebServiceTemplate webServiceTemplate) {
         this.webServiceTemplate = webServiceTemplate;
+        Jaxb2Marshaller marshaller = (Jaxb2Marshaller) webServiceTemplate.getMarshaller();
+        this.marshallerPool = new JaxbMarshallerPool(marshaller.getJaxbContext(), MARSHALLER_POOL_SIZE);
+        try {
+            this.requestTemplate = new WebWunderRequestTemplate(marshaller.getJaxbContext());
+        } catch (JAXBException e) {
+            throw new MarshallingFailureException("Failed to compile the WebWunder request template", e);
+        }
+    }
+
+    /**
+     * Runs the blocking SOAP calls on the bulkhead of the {@code webwunder} provider.
+     *
+     * @param bulkheads The registry of the per-provider {@link Bulkhead}s.
+     */
+    @Autowired
+    public void setBulkheads(Bulkheads bulkheads) {
+        this.scheduler = bulkheads.forProvider("webwunder").getScheduler();
+    }
+
+    /**
+     * Sends the streamed SOAP calls over the pooled client of the {@code webwunder} provider, the same pool the
+     * {@link WebServiceTemplate} uses.
+     *
+     * @param httpClients The registry of the per-provider HTTP clients.
+     */
+    @Autowired
+    public void setHttpClients(ProviderHttpClients httpClients) {
+        this.httpClient = httpClients.forProvider("webwunder");
     }
 
     /**
@@ -59,9 +137,11 @@ public class WebWunderClient extends WebServiceGatewaySupport {
         LegacyGetInternetOffers request = new LegacyGetInternetOffers();
         request.setInput(createInput(searchRequests, connectionType, installation));
 
-        return Mono.fromCallable(() -> (Output) webServiceTemplate.marshalSendAndReceive(request))
-                // Execute the potentially blocking SOAP call on a dedicated bounded elastic scheduler
-                .subscribeOn(Schedulers.boundedElastic())
+        return Mono.fromCallable(() -> webServiceTemplate.sendAndReceive(
+                        message -> marshal(request, message.getPayloadResult()),
+                        (WebServiceMessageExtractor<Output>) message -> unmarshal(message.getPayloadSource())))
+                // Execute the potentially blocking SOAP call on the provider's bulkhead
+                .subscribeOn(scheduler)
                 // Configure reactive retry logic
                 .retryWhen(
                         Retry.backoff(MAX_RETRIES, Duration.ofMillis(RETRY_DELAY_MS))
@@ -70,10 +150,142 @@ public class WebWunderClient extends WebServiceGatewaySupport {
                 )
                 .onErrorResume(e -> {
                     logger.error("Unhandled error in getInternetOffersReactive: {}", e.getMessage(), e);
-                    return Mono.empty();
+                    // Let the circuit breaker count the failed call
+                    return CircuitBreaker.giveUp(e);
+                });
+    }
+
+    /**
+     * Fetches internet offers from the WebWunder SOAP service, emitting each {@link Product} as soon as its element
+     * has been read from the response instead of waiting for the complete {@link Output}.
+     * Like {@link #getInternetOffers}, SOAP faults and I/O errors are retried, but only while no product has been
+     * emitted yet, so a retry never repeats offers.
+     *
+     * @param searchRequests The {@link SearchRequests} DTO containing address details.
+     * @param connectionType The desired {@link ConnectionType} (e.g., DSL, Fiber) for the offer.
+     * @param installation A boolean indicating whether an installation service is desired.
+     * @return A {@link Flux} of the products in order of the response, completing early if an unhandled error
+     * occurs or retries are exhausted.
+     */
+    public Flux<Product> streamInternetOffers(SearchRequests searchRequests, ConnectionType connectionType, boolean installation) {
+        Input input = createInput(searchRequests, connectionType, installation);
+        AtomicBoolean emitted = new AtomicBoolean();
+
+        return Flux.using(() -> openStream(input),
+                        stream -> Flux.<Product>generate(sink -> {
+                            try {
+                                Product product = stream.reader().next();
+                                if (product != null) {
+                                    sink.next(product);
+                                } else {
+                                    stream.finish(marshallerPool);
+                                    sink.complete();
+                                }
+                            } catch (XMLStreamException | JAXBException | IOException e) {
+                                sink.error(e);
+                            }
+                        }),
+                        ProductStream::close)
+                // Connecting and every blocking read run on the provider's bulkhead
+                .subscribeOn(scheduler)
+                .onErrorMap(IOException.class, e -> new WebServiceIOException(e.getMessage(), e))
+                .onErrorMap(e -> e instanceof XMLStreamException || e instanceof JAXBException,
+                        e -> e.getCause() instanceof IOException io
+                                ? new WebServiceIOException(io.getMessage(), io)
+                                : new UnmarshallingFailureException("Invalid WebWunder response: " + e.getMessage(), e))
+                .doOnNext(product -> emitted.set(true))
+                .retryWhen(
+                        Retry.backoff(MAX_RETRIES, Duration.ofMillis(RETRY_DELAY_MS))
+                                .filter(ex -> !emitted.get()
+                                        && (ex instanceof WebWunderFaultException || ex instanceof WebServiceIOException))
+                                .onRetryExhaustedThrow((retry, signal) -> signal.failure())
+                )
+                .onErrorResume(e -> {
+                    logger.error("Unhandled error in streamInternetOffers: {}", e.getMessage(), e);
+                    // Let the circuit breaker count the failed call
+                    return CircuitBreaker.giveUp(e);
                 });
     }
 
+    /**
+     * Posts the request and starts reading the response. SOAP faults come with status 500 and are reported by the
+     * reader; other error statuses fail right away.
+     */
+    private ProductStream openStream(Input input) throws IOException, JAXBException, XMLStreamException {
+        HttpPost post = new HttpPost(webServiceTemplate.getDefaultUri());
+        post.setHeader("SOAPAction", "\"\"");
+        if (apiKey != null) {
+            post.setHeader("X-Api-Key", apiKey);
+        }
+        post.setEntity(new ByteArrayEntity(requestTemplate.render(input), ContentType.TEXT_XML.withCharset(StandardCharsets.UTF_8)));
+
+        ClassicHttpResponse response = httpClient.executeOpen(null, post, null);
+        try {
+            int status = response.getCode();
+            if (response.getEntity() == null
+                    || (status / 100 != 2 && status != HttpStatus.SC_INTERNAL_SERVER_ERROR)) {
+                throw new WebServiceTransportException(status + " " + response.getReasonPhrase());
+            }
+            Unmarshaller unmarshaller = marshallerPool.borrowUnmarshaller();
+            return new ProductStream(post, response, unmarshaller,
+                    new WebWunderProductReader(response.getEntity().getContent(), unmarshaller));
+        } catch (IOException | JAXBException | XMLStreamException | RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    private void marshal(LegacyGetInternetOffers request, Result result) {
+        try {
+            Marshaller marshaller = marshallerPool.borrowMarshaller();
+            try {
+                marshaller.marshal(request, result);
+            } finally {
+                marshallerPool.release(marshaller);
+            }
+        } catch (JAXBException e) {
+            throw new MarshallingFailureException("Failed to marshal the WebWunder request", e);
+        }
+    }
+
+    private Output unmarshal(Source source) {
+        try {
+            Unmarshaller unmarshaller = marshallerPool.borrowUnmarshaller();
+            try {
+                return (Output) unmarshaller.unmarshal(source);
+            } finally {
+                marshallerPool.release(unmarshaller);
+            }
+        } catch (JAXBException e) {
+            throw new UnmarshallingFailureException("Failed to unmarshal the WebWunder response", e);
+        }
+    }
+
+    /**
+     * An open response with its reader. Once the body has been read completely, the connection goes back to the
+     * pool; if the stream is cancelled or fails before, the request is aborted and the connection discarded instead
+     * of reading the rest of the body.
+     */
+    private record ProductStream(HttpPost post, ClassicHttpResponse response, Unmarshaller unmarshaller,
+                                 WebWunderProductReader reader) {
+
+        void finish(JaxbMarshallerPool marshallerPool) throws IOException {
+            EntityUtils.consume(response.getEntity());
+            // A cancelled stream may still be reading on another thread, so only a finished reader hands it back
+            marshallerPool.release(unmarshaller);
+        }
+
+        void close() {
+            try (response) {
+                // No-op if the body has been consumed and the connection released
+                post.cancel();
+                reader.close();
+            } catch (XMLStreamException | IOException e) {
+                logger.debug("Failed to close WebWunder response: {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * Creates an {@link Input} object for the WebWunder SOAP request from the provided
      * {@link SearchRequests}, {@link ConnectionType}, and installation preference.
@@ -0,0 +1,20 @@
+package com.SimonMk116.gendev.service.webwunderservice;
+
+import org.springframework.ws.client.WebServiceClientException;
+
+/**
+ * Thrown when a streamed WebWunder response contains a SOAP fault. It is the streaming counterpart of the
+ * {@link org.springframework.ws.soap.client.SoapFaultClientException} thrown by the
+ * {@link org.springframework.ws.client.core.WebServiceTemplate}, which needs the complete SOAP message.
+ */
+public class WebWunderFaultException extends WebServiceClientException {
+
+    /**
+     * Creates a new exception.
+     *
+     * @param faultReason The fault string of the SOAP fault.
+     */
+    public WebWunderFaultException(String faultReason) {
+        super(faultReason);
+    }
+}
@@ -0,0 +1,132 @@
+package com.SimonMk116.gendev.service.webwunderservice;
+
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.Product;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.InputStream;
+
+/**
+ * Pull reader for the SOAP response of {@code legacyGetInternetOffers}.
+ * <p>
+ * Instead of building the whole envelope as a DOM and unmarshalling the complete {@code Output}, the body is read
+ * with StAX and every {@code products} element is unmarshalled on its own as soon as it has been read, so only one
+ * {@link Product} is held in memory at a time. A SOAP 1.1 or 1.2 {@code Fault} in the body is reported as a
+ * {@link WebWunderFaultException}.
+ * </p>
+ * Instances are stateful and must only be used for a single response.
+ */
+final class WebWunderProductReader implements AutoCloseable {
+
+    private static final String OFFER_SERVICE_NAMESPACE = "http://webwunder.gendev7.check24.fun/offerservice";
+    private static final QName PRODUCTS = new QName(OFFER_SERVICE_NAMESPACE, "products");
+    private static final String SOAP_11_NAMESPACE = "http://schemas.xmlsoap.org/soap/envelope/";
+    private static final String SOAP_12_NAMESPACE = "http://www.w3.org/2003/05/soap-envelope";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final ProductBoundaryReader reader;
+    private final Unmarshaller unmarshaller;
+
+    /**
+     * Starts reading a response body.
+     *
+     * @param body         The response body; it is not closed by this reader.
+     * @param unmarshaller The unmarshaller of the WebWunder schema, used exclusively by this reader.
+     * @throws XMLStreamException If the body is not XML.
+     */
+    WebWunderProductReader(InputStream body, Unmarshaller unmarshaller) throws XMLStreamException {
+        this.reader = new ProductBoundaryReader(INPUT_FACTORY.createXMLStreamReader(body));
+        this.unmarshaller = unmarshaller;
+    }
+
+    /**
+     * Reads up to the next product, blocking until its element has been received completely.
+     *
+     * @return The next product, or {@code null} once the body has been read completely.
+     * @throws WebWunderFaultException If the body contains a SOAP fault.
+     */
+    Product next() throws XMLStreamException, JAXBException {
+        while (true) {
+            if (reader.isStartElement()) {
+                if (PRODUCTS.equals(reader.getName())) {
+                    return unmarshaller.unmarshal(reader, Product.class).getValue();
+                }
+                if (isFault(reader.getName())) {
+                    throw new WebWunderFaultException(readFaultReason());
+                }
+            }
+            if (!reader.hasNext()) {
+                return null;
+            }
+            reader.next();
+        }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        reader.close();
+    }
+
+    private static boolean isFault(QName name) {
+        return "Fault".equals(name.getLocalPart())
+                && (SOAP_11_NAMESPACE.equals(name.getNamespaceURI()) || SOAP_12_NAMESPACE.equals(name.getNamespaceURI()));
+    }
+
+    /**
+     * Reads the {@code faultstring} (SOAP 1.1) or the first {@code Text} of the {@code Reason} (SOAP 1.2).
+     */
+    private String readFaultReason() throws XMLStreamException {
+        int depth = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                String localName = reader.getLocalName();
+                if ("faultstring".equals(localName) || "Text".equals(localName)) {
+                    return reader.getElementText();
+                }
+                depth++;
+            } else if (event == XMLStreamReader.END_ELEMENT && depth-- == 0) {
+                break;
+            }
+        }
+        return "SOAP fault without reason";
+    }
+
+    /**
+     * JAXB moves the reader past the end of the unmarshalled element, which blocks until the next token of the body
+     * has arrived. This delegate skips that move and leaves it to the following {@link #next()} of the product
+     * reader, so a product is returned as soon as its end tag has been read.
+     */
+    private static final class ProductBoundaryReader extends StreamReaderDelegate {
+
+        private boolean atProductEnd;
+
+        ProductBoundaryReader(XMLStreamReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            if (!atProductEnd && getEventType() == END_ELEMENT && PRODUCTS.equals(getName())) {
+                atProductEnd = true;
+                return END_ELEMENT;
+            }
+            atProductEnd = false;
+            return super.next();
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // The response comes from a remote system; never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,153 @@
+package com.SimonMk116.gendev.service.webwunderservice;
+
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.*;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled SOAP envelope of the {@code legacyGetInternetOffers} request.
+ * <p>
+ * The request only differs in the address, the connection type and the installation flag, so instead of marshalling
+ * the {@link LegacyGetInternetOffers} object graph for every call, a sample request with placeholders is marshalled
+ * once and split into constant byte segments. Rendering a request copies the segments and writes the XML-escaped
+ * field values in between. Because the template comes from JAXB itself, the element names, namespaces and order
+ * always match the schema classes.
+ * </p>
+ * Instances are immutable and thread-safe.
+ */
+public final class WebWunderRequestTemplate {
+
+    static final String SOAP_ENVELOPE_START =
+            "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>";
+    static final String SOAP_ENVELOPE_END = "</soap:Body></soap:Envelope>";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{([A-Z_]+)}}");
+
+    private enum Field { STREET, HOUSE_NUMBER, CITY, PLZ, COUNTRY_CODE, CONNECTION_TYPE, INSTALLATION }
+
+    private final byte[][] segments;
+    private final Field[] fields;
+    private final int constantLength;
+
+    /**
+     * Compiles the template.
+     *
+     * @param context The JAXB context of the WebWunder schema.
+     * @throws JAXBException If the sample request cannot be marshalled.
+     */
+    public WebWunderRequestTemplate(JAXBContext context) throws JAXBException {
+        String envelope = SOAP_ENVELOPE_START + marshalSample(context) + SOAP_ENVELOPE_END;
+
+        List<byte[]> segmentList = new ArrayList<>();
+        List<Field> fieldList = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(envelope);
+        int position = 0;
+        while (matcher.find()) {
+            segmentList.add(envelope.substring(position, matcher.start()).getBytes(StandardCharsets.UTF_8));
+            fieldList.add(Field.valueOf(matcher.group(1)));
+            position = matcher.end();
+        }
+        segmentList.add(envelope.substring(position).getBytes(StandardCharsets.UTF_8));
+        if (fieldList.size() != Field.values().length) {
+            throw new IllegalStateException("Unexpected request template: " + envelope);
+        }
+
+        this.segments = segmentList.toArray(byte[][]::new);
+        this.fields = fieldList.toArray(Field[]::new);
+        this.constantLength = segmentList.stream().mapToInt(segment -> segment.length).sum();
+    }
+
+    /**
+     * Renders the SOAP envelope of a request.
+     *
+     * @param input The request input; {@code null} address fields are rendered as empty elements.
+     * @return The UTF-8 encoded envelope.
+     */
+    public byte[] render(Input input) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(constantLength + 128);
+        for (int i = 0; i < fields.length; i++) {
+            out.writeBytes(segments[i]);
+            out.writeBytes(escape(value(fields[i], input)).getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeBytes(segments[fields.length]);
+        return out.toByteArray();
+    }
+
+    private static String value(Field field, Input input) {
+        Address address = input.getAddress();
+        return switch (field) {
+            case STREET -> address.getStreet();
+            case HOUSE_NUMBER -> address.getHouseNumber();
+            case CITY -> address.getCity();
+            case PLZ -> address.getPlz();
+            case COUNTRY_CODE -> address.getCountryCode().value();
+            case CONNECTION_TYPE -> input.getConnectionEnum().value();
+            case INSTALLATION -> String.valueOf(input.isInstallation());
+        };
+    }
+
+    /**
+     * Escapes the markup characters and drops the control characters XML 1.0 does not allow.
+     */
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '\t', '\n', '\r' -> null;
+                default -> c < 0x20 ? "" : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    private static String marshalSample(JAXBContext context) throws JAXBException {
+        Address address = new Address();
+        address.setStreet("{{STREET}}");
+        address.setHouseNumber("{{HOUSE_NUMBER}}");
+        address.setCity("{{CITY}}");
+        address.setPlz("{{PLZ}}");
+        address.setCountryCode(SupportedCountry.DE);
+        Input input = new Input();
+        input.setAddress(address);
+        input.setConnectionEnum(ConnectionType.DSL);
+        input.setInstallation(true);
+        LegacyGetInternetOffers request = new LegacyGetInternetOffers();
+        request.setInput(input);
+
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter xml = new StringWriter();
+        marshaller.marshal(request, xml);
+        // Enumerations and booleans cannot hold a placeholder; replace the sample values by element name
+        return xml.toString()
+                .replace("countryCode>DE<", "countryCode>{{COUNTRY_CODE}}<")
+                .replace("connectionEnum>DSL<", "connectionEnum>{{CONNECTION_TYPE}}<")
+                .replace("installation>true<", "installation>{{INSTALLATION}}<");
+    }
+}
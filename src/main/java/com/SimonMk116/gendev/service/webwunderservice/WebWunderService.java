@@ -4,16 +4,20 @@ import com.SimonMk116.gendev.controller.OfferController;
 import com.SimonMk116.gendev.dto.SearchRequests;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
 import com.SimonMk116.gendev.service.webwunderservice.autogenerated.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,17 +26,25 @@ import java.util.List;
  * utilizing the {@link WebWunderClient} to make SOAP API calls. It orchestrates fetching offers
  * across various connection types in parallel and transforms the SOAP responses into
  * a stream of standardized {@link InternetOffer} domain objects.
+ * With {@code provider.webwunder.streaming=true}, the responses are read with StAX and every offer is emitted as
+ * soon as its product element has been received, instead of after the complete response has been unmarshalled.
+ * The offers of every connection type are cached in a {@link ConnectionTypeOfferCache}, and only the connection
+ * types without cached offers are queried.
  */
 @Service
 public class WebWunderService implements OfferController.InternetOfferService{
 
     private static final Logger logger = LoggerFactory.getLogger(WebWunderService.class);
     private final WebWunderClient webWunderClient;
+    private final ConnectionTypeOfferCache offerCache;
 
+    @Value("${provider.webwunder.streaming:false}")
+    private boolean streaming;
 
     @Autowired
-    public WebWunderService(WebWunderClient client) {
+    public WebWunderService(WebWunderClient client, ConnectionTypeOfferCache offerCache) {
         this.webWunderClient = client;
+        this.offerCache = offerCache;
     }
 
     /**
@@ -46,15 +58,8 @@ public class WebWunderService implements OfferController.InternetOfferService{
      * If the client returns null or an empty product list, a warning is logged.
      */
     private Mono<Output> fetchOffers(RequestAddress address, ConnectionType connectionType, boolean installation) {
-        SearchRequests request = new SearchRequests(
-                address.getStrasse(),
-                address.getHausnummer(),
-                address.getStadt(),
-                address.getPostleitzahl(),
-                address.getLand()
-        );
         // Call the WebWunderClient to get offers reactively.
-        return webWunderClient.getInternetOffers(request, connectionType, installation)
+        return webWunderClient.getInternetOffers(toSearchRequests(address), connectionType, installation)
                 .doOnNext(output -> {
                     if (output == null || output.getProducts() == null) {
                         logger.warn("WebWunderClient returned null or empty output for address: {}", address);
@@ -62,6 +67,29 @@ public class WebWunderService implements OfferController.InternetOfferService{
                 });
     }
 
+    /**
+     * Streams the products for a given address and connection type, each one as soon as it has been read from the
+     * WebWunder response.
+     *
+     * @param address The {@link RequestAddress} containing the street, house number, city, postal code, and country.
+     * @param connectionType The specific {@link ConnectionType} to request offers for.
+     * @param installation A boolean indicating whether offers with installation service should be fetched.
+     * @return A {@link Flux} of the products in order of the response.
+     */
+    private Flux<Product> streamOffers(RequestAddress address, ConnectionType connectionType, boolean installation) {
+        return webWunderClient.streamInternetOffers(toSearchRequests(address), connectionType, installation);
+    }
+
+    private static SearchRequests toSearchRequests(RequestAddress address) {
+        return new SearchRequests(
+                address.getStrasse(),
+                address.getHausnummer(),
+                address.getStadt(),
+                address.getPostleitzahl(),
+                address.getLand()
+        );
+    }
+
     /**
      * Maps a single {@link Product} object received from the WebWunder SOAP response
      * to a standardized {@link InternetOffer} domain object.
@@ -134,37 +162,102 @@ public class WebWunderService implements OfferController.InternetOfferService{
      */
     @Override
     public Flux<InternetOffer> getOffers(RequestAddress address) {
-        Instant start = Instant.now();
-
-        List<ConnectionType> connectionTypes = List.of(
+        return getOffers(address, List.of(
                 ConnectionType.DSL,
                 ConnectionType.CABLE,
                 ConnectionType.FIBER,
                 ConnectionType.MOBILE
-        );
+        ));
+    }
 
-        boolean installation = true;    //all WebWunderOffers have installation service
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the filter requests a single connection type, only that connection type is queried
+     * instead of all four.
+     * </p>
+     */
+    @Override
+    public Flux<InternetOffer> getOffers(RequestAddress address, OfferFilter filter) {
+        ConnectionType connectionType = toConnectionType(filter.getConnectionType());
+        if (connectionType == null) {
+            return filter.getConnectionType() == null ? getOffers(address) : Flux.empty();
+        }
+        return getOffers(address, List.of(connectionType));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * WebWunder only offers the connection types of its {@link ConnectionType} schema enumeration.
+     * </p>
+     */
+    @Override
+    public boolean canSatisfy(OfferFilter filter) {
+        return filter.getConnectionType() == null || toConnectionType(filter.getConnectionType()) != null;
+    }
 
-        // Create a Flux of Mono<Output> for each connection type
-        Flux<Mono<Output>> offerMonos = Flux.fromIterable(connectionTypes)
-                .map(connectionType -> fetchOffers(address, connectionType, installation));
+    private static ConnectionType toConnectionType(String connectionType) {
+        if (connectionType == null) {
+            return null;
+        }
+        try {
+            return ConnectionType.fromValue(connectionType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-        return Flux.merge(offerMonos)
-                .flatMap(output -> {
-                    // Process the output from each successful request
-                    if (output != null && output.getProducts() != null) {
-                        return Flux.fromIterable(output.getProducts())
-                                .mapNotNull(this::mapToOffer);
-                    }
-                    return Flux.empty(); // If output is null or products are null, return empty Flux
-                })
+    private Flux<InternetOffer> getOffers(RequestAddress address, List<ConnectionType> connectionTypes) {
+        Instant start = Instant.now();
+
+        boolean installation = true;    //all WebWunderOffers have installation service
+
+        // Query the connection types in parallel; those with cached offers are served without a SOAP call
+        return Flux.merge(Flux.fromIterable(connectionTypes)
+                        .map(connectionType -> getOffers(address, connectionType, installation)))
                 .doOnComplete(() -> {
                     long duration = Duration.between(start, Instant.now()).toMillis();
                     logger.info("WebWunderService finished fetching all parallel offers for address: {} in {} ms", address, duration);
                 })
                 .onErrorResume(Exception.class, e -> {
                     logger.error("An unexpected error occurred during parallel WebWunder offer fetching for address: {}", address, e);
-                    return Flux.empty(); // Ensure the stream completes gracefully even if an error occurs
+                    return CircuitBreaker.giveUp(e); // Ensure the stream completes gracefully even if an error occurs
+                });
+    }
+
+    /**
+     * Serves the offers of one connection type from the {@link ConnectionTypeOfferCache} or fetches and caches them.
+     */
+    private Flux<InternetOffer> getOffers(RequestAddress address, ConnectionType connectionType, boolean installation) {
+        return Flux.defer(() -> {
+            List<InternetOffer> cached = offerCache.get(address, connectionType);
+            if (cached != null) {
+                logger.debug("Serving {} cached WebWunder {} offers for address: {}", cached.size(), connectionType, address);
+                return Flux.fromIterable(cached);
+            }
+            List<InternetOffer> received = new ArrayList<>();
+            // Only complete results are cached; cancelled calls and calls the client gave up on, possibly after some
+            // offers were streamed, leave the cache untouched, as does an empty result
+            return CircuitBreaker.doOnSuccess(fetchOffersOfType(address, connectionType, installation).doOnNext(received::add),
+                    () -> offerCache.put(address, connectionType, received));
+        });
+    }
+
+    private Flux<InternetOffer> fetchOffersOfType(RequestAddress address, ConnectionType connectionType, boolean installation) {
+        if (streaming) {
+            // Products are emitted as they arrive
+            return streamOffers(address, connectionType, installation)
+                    .mapNotNull(this::mapToOffer);
+        }
+        return fetchOffers(address, connectionType, installation)
+                .flatMapMany(output -> {
+                    // Process the output of the successful request
+                    if (output != null && output.getProducts() != null) {
+                        return Flux.fromIterable(output.getProducts())
+                                .mapNotNull(this::mapToOffer);
+                    }
+                    return Flux.empty(); // If output is null or products are null, return empty Flux
                 });
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.SimonMk116.gendev.benchmark;
+
+import com.SimonMk116.gendev.service.resilience.Bulkhead;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the schedulers a blocking provider call can run on: the shared
+ * {@link Schedulers#boundedElastic()} pool against a {@link Bulkhead} in the virtual-thread mode. Each invocation
+ * runs {@code calls} concurrent blocking calls that each wait {@code latencyMillis}, like the PingPerfect and
+ * WebWunder clients waiting for the upstream, and completes once all of them are done.
+ * <p>
+ * {@code boundedElastic} is capped at ten threads per CPU core, so on a single vCPU machine the calls beyond ten
+ * wait for a free thread. Run with {@code -XX:ActiveProcessorCount=1} to reproduce that setup. Run after
+ * {@code mvn test-compile} with the test classpath, e.g.:
+ * </p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.SimonMk116.gendev.benchmark.BlockingCallSchedulerBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:ActiveProcessorCount=1")
+@State(Scope.Benchmark)
+public class BlockingCallSchedulerBenchmark {
+
+    @Param({"100", "1000"})
+    private int calls;
+
+    @Param({"20"})
+    private long latencyMillis;
+
+    private Bulkhead virtualThreads;
+
+    @Setup
+    public void createBulkhead() {
+        // Sized like the virtual-thread mode would be configured for thousands of concurrent searches
+        virtualThreads = new Bulkhead("benchmark", 10_000, 10_000, true);
+    }
+
+    @TearDown
+    public void disposeBulkhead() {
+        virtualThreads.dispose();
+    }
+
+    @Benchmark
+    public Long boundedElastic() {
+        return runCalls(Schedulers.boundedElastic());
+    }
+
+    @Benchmark
+    public Long virtualThreadBulkhead() {
+        return runCalls(virtualThreads.getScheduler());
+    }
+
+    private Long runCalls(Scheduler scheduler) {
+        return Flux.range(0, calls)
+                .flatMap(i -> Mono.fromCallable(this::blockingCall).subscribeOn(scheduler), calls)
+                .count()
+                .block();
+    }
+
+    private long blockingCall() throws InterruptedException {
+        Thread.sleep(latencyMillis);
+        return latencyMillis;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BlockingCallSchedulerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
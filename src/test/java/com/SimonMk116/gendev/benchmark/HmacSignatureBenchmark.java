@@ -0,0 +1,84 @@
+package com.SimonMk116.gendev.benchmark;
+
+import com.SimonMk116.gendev.service.pingperfectservice.HmacSigner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the PingPerfect request signature: the former per-request path (new {@link Mac} and key,
+ * string concatenation, {@link Integer#toHexString} per byte) against the pooled {@link HmacSigner}, once returning
+ * the signature as a {@code String} as the client does and once writing it into a reused buffer. Run with the GC
+ * profiler, which {@link #main} enables, to see the allocation per signature ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Run after {@code mvn test-compile} with the test classpath, e.g.:
+ * </p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.SimonMk116.gendev.benchmark.HmacSignatureBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HmacSignatureBenchmark {
+
+    private static final String SECRET = "testSecretKey";
+    private static final String TIMESTAMP = "1678886400";
+    private static final String PAYLOAD =
+            "{\"street\": \"Hauptstraße\",\"houseNumber\": \"12a\",\"city\": \"München\",\"plz\": \"80331\",\"wantsFiber\": true}";
+
+    private HmacSigner signer;
+    private byte[] hex;
+
+    @Setup
+    public void createSigner() {
+        signer = new HmacSigner(SECRET.getBytes(StandardCharsets.UTF_8));
+        hex = new byte[HmacSigner.SIGNATURE_LENGTH];
+    }
+
+    @Benchmark
+    public String perRequestMac() throws Exception {
+        String dataToSign = TIMESTAMP + ":" + PAYLOAD;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] hashBytes = mac.doFinal(dataToSign.getBytes(StandardCharsets.UTF_8));
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hashBytes) {
+            String hexByte = Integer.toHexString(0xff & b);
+            if (hexByte.length() == 1) hexString.append('0');
+            hexString.append(hexByte);
+        }
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public String pooledSigner() {
+        return signer.sign(TIMESTAMP, PAYLOAD);
+    }
+
+    @Benchmark
+    public byte[] pooledSignerIntoBuffer() {
+        signer.sign(TIMESTAMP, PAYLOAD, hex);
+        return hex;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HmacSignatureBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
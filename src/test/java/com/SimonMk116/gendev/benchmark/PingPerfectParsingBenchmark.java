@@ -0,0 +1,142 @@
+package com.SimonMk116.gendev.benchmark;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferIds;
+import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectOfferParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of reading a PingPerfect response of 50 offers into {@link InternetOffer}s: the former path, which
+ * decoded the whole body into a {@link JsonNode} tree and then mapped the offer nodes with {@code path} lookups,
+ * against the streaming {@link PingPerfectOfferParser}, which maps the offers straight from the tokens, once for the
+ * body in a single chunk and once in 1 KiB chunks as they arrive from the network. {@code treeOnly} measures building
+ * the tree alone. {@link #main} enables the GC profiler to show the allocation per response
+ * ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Run after {@code mvn test-compile} with the test classpath, e.g.:
+ * </p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.SimonMk116.gendev.benchmark.PingPerfectParsingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PingPerfectParsingBenchmark {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+
+    @Setup
+    public void createBody() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"providerName\":\"PingPerfect ").append(i).append("\",")
+                    .append("\"productInfo\":{\"speed\":").append(50 + i).append(",\"contractDurationInMonths\":24,")
+                    .append("\"connectionType\":\"DSL\",\"tv\":\"PingTV\",\"limitFrom\":").append(100 + i)
+                    .append(",\"maxAge\":27},")
+                    .append("\"pricingDetails\":{\"monthlyCostInCent\":").append(2999 + i)
+                    .append(",\"installationService\":\"yes\"}}");
+        }
+        body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonNode treeOnly() throws IOException {
+        return objectMapper.readTree(body);
+    }
+
+    @Benchmark
+    public List<InternetOffer> tree() throws IOException {
+        List<InternetOffer> offers = new ArrayList<>();
+        for (JsonNode offerNode : objectMapper.readTree(body)) {
+            InternetOffer offer = mapTreeOffer(offerNode);
+            if (offer != null) {
+                offers.add(offer);
+            }
+        }
+        return offers;
+    }
+
+    @Benchmark
+    public List<InternetOffer> streamingParser() {
+        PingPerfectOfferParser parser = new PingPerfectOfferParser();
+        List<InternetOffer> offers = parser.feed(ByteBuffer.wrap(body));
+        offers.addAll(parser.finish());
+        return offers;
+    }
+
+    @Benchmark
+    public List<InternetOffer> streamingParserChunked() {
+        PingPerfectOfferParser parser = new PingPerfectOfferParser();
+        List<InternetOffer> offers = new ArrayList<>();
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            offers.addAll(parser.feed(ByteBuffer.wrap(body, offset, Math.min(CHUNK_SIZE, body.length - offset))));
+        }
+        offers.addAll(parser.finish());
+        return offers;
+    }
+
+    /**
+     * The former mapping of one offer node, with its validation but without logging.
+     */
+    private static InternetOffer mapTreeOffer(JsonNode offerNode) {
+        JsonNode providerNameNode = offerNode.path("providerName");
+        JsonNode productInfoNode = offerNode.path("productInfo");
+        JsonNode pricingDetailsNode = offerNode.path("pricingDetails");
+        if (!providerNameNode.isTextual() || providerNameNode.asText().isEmpty() || !productInfoNode.isObject()
+                || !productInfoNode.path("speed").isInt() || !productInfoNode.path("contractDurationInMonths").isInt()
+                || !productInfoNode.path("connectionType").isTextual() || productInfoNode.path("connectionType").asText().isEmpty()
+                || !pricingDetailsNode.isObject() || !pricingDetailsNode.path("monthlyCostInCent").isInt()
+                || !pricingDetailsNode.path("installationService").isTextual()
+                || pricingDetailsNode.path("installationService").asText().isEmpty()) {
+            return null;
+        }
+        String installationService = pricingDetailsNode.path("installationService").asText();
+        InternetOffer offer = InternetOffer.builder()
+                .providerName(providerNameNode.asText())
+                .speed(productInfoNode.path("speed").asInt())
+                .durationInMonths(productInfoNode.path("contractDurationInMonths").asInt())
+                .connectionType(productInfoNode.path("connectionType").asText())
+                .tv(productInfoNode.path("tv").asText(null))
+                .limitFrom(productInfoNode.path("limitFrom").asInt(0))
+                .maxAge(productInfoNode.path("maxAge").asInt(0))
+                .monthlyCostInCent(pricingDetailsNode.path("monthlyCostInCent").asInt())
+                .installationService("true".equalsIgnoreCase(installationService) || "yes".equalsIgnoreCase(installationService))
+                .afterTwoYearsMonthlyCost(0)
+                .build();
+        offer.setProductId(OfferIds.contentId("ping-", offer));
+        return offer;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PingPerfectParsingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
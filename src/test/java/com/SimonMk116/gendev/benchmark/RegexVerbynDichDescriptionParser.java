@@ -0,0 +1,86 @@
+package com.SimonMk116.gendev.benchmark;
+
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichDescriptionParser.ParsedDescription;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The former regex-based VerbynDich description parsing, kept as the reference implementation
+ * for the golden-file test and as the baseline of {@link VerbynDichDescriptionBenchmark}.
+ */
+public final class RegexVerbynDichDescriptionParser {
+
+    static final Pattern speedPattern = Pattern.compile("(\\d+) Mbit/s");
+    static final Pattern pricePattern = Pattern.compile("(\\d+)€ im Monat");
+    static final Pattern afterTwoYearsPricePattern = Pattern.compile("monatliche Preis (\\d+)€");
+    static final Pattern durationPattern = Pattern.compile("Mindestvertragslaufzeit (\\d+) Monate");
+    static final Pattern maxAgePattern = Pattern.compile("nur für Personen unter (\\d+)");
+    static final Pattern discountPattern = Pattern.compile("einmaligen Rabatt von (\\d+)");
+    static final Pattern discountCapPattern = Pattern.compile("maximale[rn]? Rabatt beträgt (\\d+)[€E]");
+    static final Pattern tvPattern = Pattern.compile("Fernsehsender enthalten[\\s:]*([^.,\\n]+)[.,\\n]?");
+    static final Pattern connectionTypePattern = Pattern.compile("(DSL|Cable|Fiber)", Pattern.CASE_INSENSITIVE);
+    static final Pattern limitFromPattern = Pattern.compile("Ab (\\d+)GB pro Monat");
+    static final Pattern minimumOrderValuePattern = Pattern.compile("Mindestbestellwert beträgt (\\d+)€");
+
+    private RegexVerbynDichDescriptionParser() {
+    }
+
+    public static ParsedDescription parse(String description) {
+        int speed = 0;
+        int monthlyCost = 0;
+        int afterTwoYearsMonthlyCost = 0;
+        int durationInMonths = 0;
+        Integer maxAge = null;
+        int voucher = 0;
+        int discountCap = 0;
+        String tv = null;
+        String connectionType = null;
+        int limitFrom = 0;
+        int minimumOrderValue = 0;
+
+        Matcher matcher;
+
+        matcher = speedPattern.matcher(description);
+        if (matcher.find()) speed = Integer.parseInt(matcher.group(1));
+
+        matcher = pricePattern.matcher(description);
+        if (matcher.find()) monthlyCost = Integer.parseInt(matcher.group(1));
+
+        matcher = afterTwoYearsPricePattern.matcher(description);
+        if (matcher.find()) afterTwoYearsMonthlyCost = Integer.parseInt(matcher.group(1));
+
+        matcher = durationPattern.matcher(description);
+        if (matcher.find()) durationInMonths = Integer.parseInt(matcher.group(1));
+
+        matcher = maxAgePattern.matcher(description);
+        if (matcher.find()) {
+            try {
+                maxAge = Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                // ignored, as in the original implementation
+            }
+        }
+
+        matcher = discountPattern.matcher(description);
+        if (matcher.find()) voucher = Integer.parseInt(matcher.group(1));
+
+        matcher = discountCapPattern.matcher(description);
+        if (matcher.find()) discountCap = Integer.parseInt(matcher.group(1));
+
+        matcher = tvPattern.matcher(description);
+        if (matcher.find()) tv = matcher.group(1);
+
+        matcher = connectionTypePattern.matcher(description);
+        if (matcher.find()) connectionType = matcher.group(1);
+
+        matcher = limitFromPattern.matcher(description);
+        if (matcher.find()) limitFrom = Integer.parseInt(matcher.group(1));
+
+        matcher = minimumOrderValuePattern.matcher(description);
+        if (matcher.find()) minimumOrderValue = Integer.parseInt(matcher.group(1));
+
+        return new ParsedDescription(speed, monthlyCost, afterTwoYearsMonthlyCost, durationInMonths, maxAge,
+                voucher, discountCap, tv, connectionType, limitFrom, minimumOrderValue);
+    }
+}
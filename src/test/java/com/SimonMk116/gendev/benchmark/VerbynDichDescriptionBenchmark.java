@@ -0,0 +1,82 @@
+package com.SimonMk116.gendev.benchmark;
+
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichDescriptionParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the single-pass {@link VerbynDichDescriptionParser} against the former regex path
+ * ({@link RegexVerbynDichDescriptionParser}). Each invocation parses every valid description of the golden file.
+ * <p>
+ * Run after {@code mvn test-compile} with the test classpath, e.g.:
+ * </p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.SimonMk116.gendev.benchmark.VerbynDichDescriptionBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerbynDichDescriptionBenchmark {
+
+    private List<String> descriptions;
+
+    @Setup
+    public void loadDescriptions() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        descriptions = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/verbyndich/description-golden.jsonl")) {
+            if (in == null) {
+                throw new IllegalStateException("Golden file not found on the classpath");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode goldenCase = objectMapper.readTree(line);
+                if (!goldenCase.has("error")) {
+                    descriptions.add(goldenCase.get("description").asText());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(RegexVerbynDichDescriptionParser.parse(description));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String description : descriptions) {
+            blackhole.consume(VerbynDichDescriptionParser.parse(description));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(VerbynDichDescriptionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,134 @@
+package com.SimonMk116.gendev.benchmark;
+
+import com.SimonMk116.gendev.service.webwunderservice.JaxbMarshallerPool;
+import com.SimonMk116.gendev.service.webwunderservice.WebWunderRequestTemplate;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.*;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the WebWunder request and response (un)marshalling paths: {@link Jaxb2Marshaller}, which
+ * creates a new JAXB marshaller per call, against a {@link JaxbMarshallerPool} and, for requests, the precompiled
+ * {@link WebWunderRequestTemplate}. Each request invocation builds the request for one address, each response
+ * invocation unmarshals an {@code Output} of 20 products.
+ * <p>
+ * Run after {@code mvn test-compile} with the test classpath, e.g.:
+ * </p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) com.SimonMk116.gendev.benchmark.WebWunderMarshallingBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebWunderMarshallingBenchmark {
+
+    private static final String OFFER_SERVICE_NAMESPACE = "http://webwunder.gendev7.check24.fun/offerservice";
+
+    private Jaxb2Marshaller jaxb2Marshaller;
+    private JaxbMarshallerPool pool;
+    private WebWunderRequestTemplate template;
+    private byte[] output;
+
+    @Setup
+    public void createMarshallers() throws Exception {
+        jaxb2Marshaller = new Jaxb2Marshaller();
+        jaxb2Marshaller.setContextPath("com.SimonMk116.gendev.service.webwunderservice.autogenerated");
+        jaxb2Marshaller.afterPropertiesSet();
+        pool = new JaxbMarshallerPool(jaxb2Marshaller.getJaxbContext(), 4);
+        template = new WebWunderRequestTemplate(jaxb2Marshaller.getJaxbContext());
+
+        StringBuilder xml = new StringBuilder("<Output xmlns:ns2=\"" + OFFER_SERVICE_NAMESPACE + "\">");
+        for (int i = 0; i < 20; i++) {
+            xml.append("<ns2:products><ns2:productId>").append(i).append("</ns2:productId>")
+                    .append("<ns2:providerName>WebWunder ").append(i).append("</ns2:providerName>")
+                    .append("<ns2:productInfo><ns2:speed>100</ns2:speed><ns2:monthlyCostInCent>3999</ns2:monthlyCostInCent>")
+                    .append("<ns2:monthlyCostInCentFrom25thMonth>4999</ns2:monthlyCostInCentFrom25thMonth>")
+                    .append("<ns2:voucher xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:type=\"ns2:percentageVoucher\">")
+                    .append("<ns2:percentage>10</ns2:percentage><ns2:maxDiscountInCent>5000</ns2:maxDiscountInCent></ns2:voucher>")
+                    .append("<ns2:contractDurationInMonths>24</ns2:contractDurationInMonths>")
+                    .append("<ns2:connectionType>DSL</ns2:connectionType></ns2:productInfo></ns2:products>");
+        }
+        output = xml.append("</Output>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] requestJaxb2Marshaller() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        jaxb2Marshaller.marshal(request(), new StreamResult(out));
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] requestPooledMarshaller() throws JAXBException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        Marshaller marshaller = pool.borrowMarshaller();
+        try {
+            marshaller.marshal(request(), out);
+        } finally {
+            pool.release(marshaller);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] requestTemplate() {
+        return template.render(request().getInput());
+    }
+
+    @Benchmark
+    public Object responseJaxb2Marshaller() {
+        return jaxb2Marshaller.unmarshal(new StreamSource(new ByteArrayInputStream(output)));
+    }
+
+    @Benchmark
+    public Object responsePooledUnmarshaller() throws JAXBException {
+        Unmarshaller unmarshaller = pool.borrowUnmarshaller();
+        try {
+            return unmarshaller.unmarshal(new StreamSource(new ByteArrayInputStream(output)));
+        } finally {
+            pool.release(unmarshaller);
+        }
+    }
+
+    private static LegacyGetInternetOffers request() {
+        Address address = new Address();
+        address.setStreet("Hauptstraße");
+        address.setHouseNumber("12a");
+        address.setCity("München");
+        address.setPlz("80331");
+        address.setCountryCode(SupportedCountry.DE);
+        Input input = new Input();
+        input.setAddress(address);
+        input.setConnectionEnum(ConnectionType.DSL);
+        input.setInstallation(true);
+        LegacyGetInternetOffers request = new LegacyGetInternetOffers();
+        request.setInput(input);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(WebWunderMarshallingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.SimonMk116.gendev.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.ws.client.WebServiceIOException;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.xml.transform.StringResult;
+import org.springframework.xml.transform.StringSource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderHttpClientsTest {
+
+    private MockWebServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderHttpClients httpClients;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("provider.webwunder.http.max-per-route", "4")
+                .withProperty("provider.webwunder.http.read-timeout", "PT0.2S");
+        environment.setConversionService(new ApplicationConversionService());
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        httpClients = new ProviderHttpClients(environment, beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClients.closeAll();
+        server.shutdown();
+    }
+
+    private static final String ENVELOPE = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<pong xmlns=\"urn:test\"/></soap:Body></soap:Envelope>";
+
+    private StringResult sendPing(WebServiceTemplate template) {
+        StringResult result = new StringResult();
+        template.sendSourceAndReceiveToResult(server.url("/ws").toString(), new StringSource("<ping xmlns=\"urn:test\"/>"), result);
+        return result;
+    }
+
+    @Test
+    void messageSender_shouldSendSoapMessagesOverKeepAliveConnections() throws InterruptedException {
+        WebServiceTemplate template = new WebServiceTemplate();
+        template.setMessageSender(httpClients.messageSender("webwunder"));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/xml").setBody(ENVELOPE));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/xml").setBody(ENVELOPE));
+
+        for (int i = 0; i < 2; i++) {
+            StringResult result = sendPing(template);
+            assertTrue(result.toString().contains("pong"), "Unexpected response: " + result);
+        }
+
+        // The sequence number counts the requests on the same connection
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    void messageSender_shouldApplyTheReadTimeout() {
+        WebServiceTemplate template = new WebServiceTemplate();
+        template.setMessageSender(httpClients.messageSender("webwunder"));
+        server.enqueue(new MockResponse().setHeader("Content-Type", "text/xml").setBody(ENVELOPE)
+                .setHeadersDelay(2, TimeUnit.SECONDS));
+
+        assertThrows(WebServiceIOException.class, () -> sendPing(template));
+    }
+
+    @Test
+    void forProvider_shouldShareOnePoolPerProviderAndPublishItsMetrics() {
+        assertSame(httpClients.forProvider("webwunder"), httpClients.forProvider("webwunder"));
+        assertNotSame(httpClients.forProvider("webwunder"), httpClients.forProvider("other"));
+
+        assertEquals(4.0, meterRegistry.get("httpcomponents.httpclient.pool.route.max.default")
+                .tag("httpclient", "webwunder").gauge().value());
+        assertNotNull(meterRegistry.find("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "other").gauge());
+    }
+}
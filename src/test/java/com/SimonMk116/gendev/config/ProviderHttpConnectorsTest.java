@@ -0,0 +1,71 @@
+package com.SimonMk116.gendev.config;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderHttpConnectorsTest {
+
+    private MockWebServer server;
+    private ProviderHttpConnectors connectors;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("provider.servus.netty.max-connections", "2")
+                .withProperty("provider.servus.netty.response-timeout", "PT0.2S");
+        environment.setConversionService(new ApplicationConversionService());
+        connectors = new ProviderHttpConnectors(environment);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectors.disposeAll();
+        server.shutdown();
+    }
+
+    @Test
+    void forProvider_shouldReuseWarmConnections() throws InterruptedException {
+        WebClient webClient = WebClient.builder()
+                .baseUrl(server.url("/").toString())
+                .clientConnector(connectors.forProvider("servus"))
+                .build();
+        server.enqueue(new MockResponse().setBody("first"));
+        server.enqueue(new MockResponse().setBody("second"));
+
+        assertEquals("first", webClient.get().uri("/offers").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5)));
+        // The connection goes back to the pool on the event loop, shortly after the body has been delivered
+        Thread.sleep(100);
+        assertEquals("second", webClient.get().uri("/offers").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5)));
+
+        // The sequence number counts the requests on the same connection
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    void forProvider_shouldApplyTheResponseTimeout() {
+        WebClient webClient = WebClient.builder()
+                .baseUrl(server.url("/").toString())
+                .clientConnector(connectors.forProvider("servus"))
+                .build();
+        server.enqueue(new MockResponse().setBody("late").setHeadersDelay(2, TimeUnit.SECONDS));
+
+        assertThrows(WebClientRequestException.class,
+                () -> webClient.get().uri("/offers").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5)));
+    }
+}
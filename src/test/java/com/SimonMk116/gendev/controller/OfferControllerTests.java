@@ -3,8 +3,12 @@ package com.SimonMk116.gendev.controller;
 import com.SimonMk116.gendev.Application;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
 import com.SimonMk116.gendev.service.bytemeservice.ByteMeService;
+import com.SimonMk116.gendev.service.cache.ProviderOfferCache;
 import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectService;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import com.SimonMk116.gendev.service.resilience.CircuitBreakers;
 import com.SimonMk116.gendev.service.servusspeedservice.ServusSpeedClient;
 import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichService;
 import com.SimonMk116.gendev.service.webwunderservice.WebWunderService;
@@ -12,11 +16,13 @@ import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -26,9 +32,13 @@ import reactor.core.publisher.Flux;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -54,8 +64,20 @@ class OfferControllerTests {
 	@MockBean
 	private ServusSpeedClient servusSpeedClient;
 
+	@Autowired
+	private ProviderOfferCache offerCache;
+	@Autowired
+	private CircuitBreakers circuitBreakers;
+	@Autowired
+	private ConfigurableEnvironment environment;
+
 	@BeforeEach
 	void setup() {
+		// The result cache outlives a single test, so start every test without cached offers
+		offerCache.invalidateAll();
+		// Likewise the circuit breakers, so failures of one test cannot skip providers in the next
+		circuitBreakers.resetAll();
+
 		// Default behavior for all mocks: return empty flux to prevent NullPointerExceptions
 		// This makes sure tests where service interaction isn't the focus don't fail
 		when(byteMeService.getOffers(any(RequestAddress.class))).thenReturn(Flux.empty());
@@ -113,6 +135,132 @@ class OfferControllerTests {
 				.andExpect(content().string(org.hamcrest.Matchers.containsString("WebWunder")));
 	}
 
+	@Test
+	void testGetAllOffersShouldSendDuplicateOffersOnlyOnce() throws Exception {
+		// Arrange - two providers deliver the same offer, one of them twice
+		InternetOffer offer = new InternetOffer();
+		offer.setProductId("dup-1");
+		offer.setProviderName("DuplicateProvider");
+		offer.setSpeed(100);
+		offer.setMonthlyCostInCent(2500);
+
+		when(byteMeService.getOffers(any(RequestAddress.class))).thenReturn(Flux.just(offer, offer));
+		when(webWunderService.getOffers(any(RequestAddress.class))).thenReturn(Flux.just(offer));
+
+		// Act
+		MvcResult result = mockMvc.perform(get("/api/offers")
+						.param("street", "dedupstreet")
+						.param("houseNumber", "1")
+						.param("city", "somecity")
+						.param("plz", "12345")
+						.param("land", "DE")
+						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+		result.getAsyncResult(5000);
+
+		// Assert
+		String body = result.getResponse().getContentAsString();
+		assertEquals(1, body.split("DuplicateProvider", -1).length - 1, "Expected the duplicate offer exactly once: " + body);
+	}
+
+	@Test
+	void testGetAllOffersWithFiltersShouldSkipProvidersAndDropNonMatchingOffers() throws Exception {
+		// Arrange
+		InternetOffer matching = new InternetOffer();
+		matching.setProductId("match");
+		matching.setProviderName("MatchingOffer");
+		matching.setSpeed(250);
+		matching.setMonthlyCostInCent(2500);
+		matching.setConnectionType("FIBER");
+
+		InternetOffer tooSlow = new InternetOffer();
+		tooSlow.setProductId("slow");
+		tooSlow.setProviderName("TooSlowOffer");
+		tooSlow.setSpeed(50);
+		tooSlow.setMonthlyCostInCent(2000);
+		tooSlow.setConnectionType("FIBER");
+
+		when(webWunderService.canSatisfy(any(OfferFilter.class))).thenReturn(true);
+		when(webWunderService.getOffers(any(RequestAddress.class), any(OfferFilter.class))).thenReturn(Flux.just(matching, tooSlow));
+
+		// Act
+		MvcResult result = mockMvc.perform(get("/api/offers")
+						.param("street", "filterstreet")
+						.param("houseNumber", "1")
+						.param("city", "somecity")
+						.param("plz", "12345")
+						.param("land", "DE")
+						.param("provider", "WebWunder")
+						.param("connectionType", "Fiber")
+						.param("minSpeed", "100")
+						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+		result.getAsyncResult(5000);
+
+		// Assert
+		String body = result.getResponse().getContentAsString();
+		assertTrue(body.contains("MatchingOffer"), body);
+		assertFalse(body.contains("TooSlowOffer"), body);
+
+		ArgumentCaptor<OfferFilter> filter = ArgumentCaptor.forClass(OfferFilter.class);
+		verify(webWunderService).getOffers(any(RequestAddress.class), filter.capture());
+		assertEquals("FIBER", filter.getValue().getConnectionType());
+		verify(byteMeService, never()).getOffers(any(RequestAddress.class));
+		verify(byteMeService, never()).getOffers(any(RequestAddress.class), any(OfferFilter.class));
+		verify(verbynDichService, never()).getOffers(any(RequestAddress.class), any(OfferFilter.class));
+	}
+
+	@Test
+	void testGetRankedOffersShouldSendOnlyTheTopOffersInOrder() throws Exception {
+		// Arrange
+		List<InternetOffer> offers = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			InternetOffer offer = new InternetOffer();
+			offer.setProductId("ranked-" + i);
+			offer.setProviderName("RankedProvider" + i);
+			offer.setMonthlyCostInCent(5000 - i * 10);
+			offers.add(offer);
+		}
+		when(byteMeService.getOffers(any(RequestAddress.class))).thenReturn(Flux.fromIterable(offers));
+
+		// Act
+		MvcResult result = mockMvc.perform(get("/api/offers")
+						.param("street", "rankedstreet")
+						.param("houseNumber", "1")
+						.param("city", "somecity")
+						.param("plz", "12345")
+						.param("land", "DE")
+						.param("top", "2")
+						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+		result.getAsyncResult(5000);
+
+		// Assert - the final event lists the two cheapest offers, cheapest first
+		String body = result.getResponse().getContentAsString();
+		String finalEvent = body.substring(body.lastIndexOf("event:final"));
+		assertTrue(finalEvent.indexOf("RankedProvider49") < finalEvent.indexOf("RankedProvider48"), body);
+		assertTrue(finalEvent.contains("RankedProvider48"), body);
+		assertFalse(body.contains("RankedProvider47"), body);
+	}
+
+	@Test
+	void testGetRankedOffersWithInvalidSortKey_shouldReturnBadRequest() throws Exception {
+		mockMvc.perform(get("/api/offers")
+						.param("street", "somestreet")
+						.param("houseNumber", "1")
+						.param("city", "somecity")
+						.param("plz", "12345")
+						.param("land", "DE")
+						.param("top", "20")
+						.param("sortKey", "cheapest")
+						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+				.andExpect(status().isBadRequest())
+				.andExpect(result -> assertInstanceOf(ConstraintViolationException.class, result.getResolvedException()));
+	}
+
 	@Test
 	void testGetAllOffersWithMissingRequiredAddressParams_shouldReturnBadRequest() throws Exception {
 		// Perform the GET request with only 'street' provided.
@@ -486,7 +634,7 @@ class OfferControllerTests {
 	@Test
 	void testGetAllOffersWhenNoOffersFound() throws Exception {
 		// This test's setup is fine as it uses the default empty Flux return from mocks
-		mockMvc.perform(get("/api/offers")
+		MvcResult result = mockMvc.perform(get("/api/offers")
 						.param("street", "somestreet")
 						.param("houseNumber", "1")
 						.param("city", "somecity")
@@ -494,21 +642,31 @@ class OfferControllerTests {
 						.param("land", "DE")
 						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
 				.andExpect(status().isOk())
-				.andExpect(content().string("")); // Expect an empty response body for no offers
+				.andReturn();
+		result.getAsyncResult(5000);
+
+		// Expect no offer, only the summary event listing every provider as answered
+		String body = result.getResponse().getContentAsString();
+		assertTrue(body.startsWith("event:summary"), "Expected only the summary event: " + body);
+		assertEquals(1, body.split("data:", -1).length - 1, "Expected a single event: " + body);
+		assertTrue(body.contains("\"timedOut\":[],\"failed\":[]"), "Expected every provider to have answered: " + body);
 	}
 
 	@Test
 	void testGetAllOffersWhenServiceReturnsError() throws Exception {
 		// Arrange - specifically mock one service to throw an error
+		InternetOffer offer = new InternetOffer();
+		offer.setProductId("healthy-1");
+		offer.setProviderName("HealthyProvider");
 		when(byteMeService.getOffers(any(RequestAddress.class))).thenReturn(Flux.error(new RuntimeException("Simulated service error")));
-        when(webWunderService.getOffers(any(RequestAddress.class))).thenReturn(Flux.empty());
+        when(webWunderService.getOffers(any(RequestAddress.class))).thenReturn(Flux.just(offer));
         when(pingPerfectService.getOffers(any(RequestAddress.class))).thenReturn(Flux.empty());
         when(verbynDichService.getOffers(any(RequestAddress.class))).thenReturn(Flux.empty());
         when(servusSpeedClient.getOffers(any(RequestAddress.class))).thenReturn(Flux.empty());
 
 
         MvcResult result = mockMvc.perform(get("/api/offers")
-						.param("street", "somestreet")
+						.param("street", "errorstreet")
 						.param("houseNumber", "1")
 						.param("city", "somecity")
 						.param("plz", "12345")
@@ -516,10 +674,79 @@ class OfferControllerTests {
 						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
 				.andExpect(status().isOk()) // Still expect 200 OK, as per SSE error handling
                 .andReturn();
-        // Assert that the body is effectively empty or contains no valid SSE events
-        // For an immediate error, it's likely to be empty.
+        result.getAsyncResult(5000);
+
+        // The failing provider must not end the stream: the other offers are sent and the summary reports the failure
         String responseBody = result.getResponse().getContentAsString();
-        assertTrue(responseBody.isEmpty(), "Expected an empty response body on service error for SSE");
+        assertTrue(responseBody.contains("HealthyProvider"), "Expected the offers of the other providers: " + responseBody);
+        assertTrue(responseBody.contains("\"failed\":[\"byteme\"]"), "Expected ByteMe to be reported as failed: " + responseBody);
+	}
+
+	@Test
+	void testGetAllOffersShouldCutOffProvidersAtTheirDeadline() throws Exception {
+		// Arrange - ServusSpeed delivers one offer, then never completes; its deadline is lowered for the test
+		InternetOffer early = new InternetOffer();
+		early.setProductId("servus-early");
+		early.setProviderName("SlowProvider");
+		when(servusSpeedClient.getOffers(any(RequestAddress.class))).thenReturn(Flux.just(early).concatWith(Flux.never()));
+		environment.getSystemProperties().put("provider.servus.deadline", "PT0.3S");
+		try {
+			// Act
+			MvcResult result = mockMvc.perform(get("/api/offers")
+							.param("street", "deadlinestreet")
+							.param("houseNumber", "1")
+							.param("city", "somecity")
+							.param("plz", "12345")
+							.param("land", "DE")
+							.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+					.andExpect(status().isOk())
+					.andReturn();
+			result.getAsyncResult(5000);
+
+			// Assert
+			String body = result.getResponse().getContentAsString();
+			assertTrue(body.contains("SlowProvider"), "Expected the offer delivered before the deadline: " + body);
+			assertTrue(body.contains("event:provider-timeout\ndata:{\"provider\":\"servus\",\"deadlineMillis\":300,\"offersDelivered\":1}"),
+					"Expected a provider-timeout event: " + body);
+			assertTrue(body.contains("\"timedOut\":[\"servus\"]"), "Expected the summary to list the timed out provider: " + body);
+			assertTrue(body.lastIndexOf("event:summary") > body.lastIndexOf("event:provider-timeout"), "Expected the summary last: " + body);
+		} finally {
+			environment.getSystemProperties().remove("provider.servus.deadline");
+		}
+	}
+
+	@Test
+	void testGetAllOffersShouldSkipProvidersWithAnOpenCircuitBreaker() throws Exception {
+		// Arrange - open ByteMe's breaker with a window full of failed calls
+		CircuitBreaker breaker = circuitBreakers.forProvider("byteme");
+		for (int i = 0; i < 20 && breaker.getState() == CircuitBreaker.State.CLOSED; i++) {
+			breaker.execute(() -> Flux.error(new IllegalStateException("ByteMe down"))).onErrorResume(e -> Flux.empty()).blockLast();
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		InternetOffer offer = new InternetOffer();
+		offer.setProductId("ww-1");
+		offer.setProviderName("HealthyProvider");
+		when(webWunderService.getOffers(any(RequestAddress.class))).thenReturn(Flux.just(offer));
+
+		// Act
+		MvcResult result = mockMvc.perform(get("/api/offers")
+						.param("street", "breakerstreet")
+						.param("houseNumber", "1")
+						.param("city", "somecity")
+						.param("plz", "12345")
+						.param("land", "DE")
+						.accept(MediaType.TEXT_EVENT_STREAM_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+		result.getAsyncResult(5000);
+
+		// Assert - ByteMe is not called at all and reported as unavailable, the other providers still answer
+		String body = result.getResponse().getContentAsString();
+		verify(byteMeService, never()).getOffers(any(RequestAddress.class));
+		assertTrue(body.contains("HealthyProvider"), "Expected the offers of the healthy providers: " + body);
+		assertTrue(body.contains("event:provider-unavailable\ndata:{\"provider\":\"byteme\""),
+				"Expected a provider-unavailable event: " + body);
+		assertTrue(body.contains("\"unavailable\":[\"byteme\"]"), "Expected the summary to list the skipped provider: " + body);
 	}
 
 	@Test
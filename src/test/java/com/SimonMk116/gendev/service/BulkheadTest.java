@@ -0,0 +1,115 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.resilience.Bulkhead;
+import com.SimonMk116.gendev.service.resilience.Bulkheads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    /**
+     * A blocking call that hangs until the latch is released.
+     */
+    private static Mono<String> hanging(Bulkhead bulkhead, CountDownLatch release) {
+        return Mono.fromCallable(() -> {
+            release.await();
+            return "done";
+        }).subscribeOn(bulkhead.getScheduler());
+    }
+
+    @Test
+    void getScheduler_shouldRejectCallsBeyondThreadsAndQueue() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            hanging(bulkhead, release).subscribe();
+            hanging(bulkhead, release).subscribe();
+            Thread.sleep(50);
+            assertEquals(1, bulkhead.getActiveCount());
+            assertEquals(1, bulkhead.getQueueDepth());
+
+            assertThrows(RejectedExecutionException.class, () -> hanging(bulkhead, release).block(Duration.ofSeconds(1)));
+            assertEquals(1, bulkhead.getRejectedCount());
+        } finally {
+            release.countDown();
+            bulkhead.dispose();
+        }
+    }
+
+    @Test
+    void getScheduler_shouldRunEveryCallOnItsOwnVirtualThreadUpToTheLimit() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 1, true);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            hanging(bulkhead, release).subscribe();
+            hanging(bulkhead, release).subscribe();
+            hanging(bulkhead, release).subscribe();
+            Thread.sleep(50);
+            assertEquals(2, bulkhead.getActiveCount());
+            assertEquals(1, bulkhead.getQueueDepth());
+
+            assertThrows(RejectedExecutionException.class, () -> hanging(bulkhead, release).block(Duration.ofSeconds(1)));
+            assertEquals(1, bulkhead.getRejectedCount());
+
+            release.countDown();
+            Thread.sleep(50);
+            assertEquals(0, bulkhead.getActiveCount());
+            assertEquals(0, bulkhead.getQueueDepth());
+            assertTrue(Mono.fromCallable(() -> Thread.currentThread().isVirtual())
+                    .subscribeOn(bulkhead.getScheduler()).block(Duration.ofSeconds(1)));
+        } finally {
+            release.countDown();
+            bulkhead.dispose();
+        }
+    }
+
+    @Test
+    void forProvider_shouldIsolateTheProviders() {
+        Bulkheads bulkheads = new Bulkheads(new MockEnvironment()
+                .withProperty("provider.pingperfect.bulkhead.threads", "1")
+                .withProperty("provider.pingperfect.bulkhead.queue-capacity", "1"),
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Bulkhead pingPerfect = bulkheads.forProvider("pingperfect");
+            hanging(pingPerfect, release).subscribe();
+            hanging(pingPerfect, release).subscribe();
+
+            // A hung provider does not delay the calls of another one
+            Bulkhead webWunder = bulkheads.forProvider("webwunder");
+            assertNotSame(pingPerfect, webWunder);
+            assertEquals("ok", Mono.fromCallable(() -> "ok").subscribeOn(webWunder.getScheduler()).block(Duration.ofSeconds(1)));
+        } finally {
+            release.countDown();
+            bulkheads.disposeAll();
+        }
+    }
+
+    @Test
+    void forProvider_shouldPublishTheMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", registry);
+        Bulkheads bulkheads = new Bulkheads(new MockEnvironment()
+                .withProperty("provider.webwunder.bulkhead.threads", "4"), beanFactory.getBeanProvider(MeterRegistry.class));
+        try {
+            bulkheads.forProvider("webwunder");
+
+            assertEquals(4.0, registry.get("bulkhead.max.threads").tag("provider", "webwunder").gauge().value());
+            assertEquals(0.0, registry.get("bulkhead.queue.depth").tag("provider", "webwunder").gauge().value());
+            assertEquals(0.0, registry.get("bulkhead.rejected").tag("provider", "webwunder").functionCounter().count());
+        } finally {
+            bulkheads.disposeAll();
+        }
+    }
+}
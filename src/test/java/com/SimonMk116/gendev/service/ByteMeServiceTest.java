@@ -3,42 +3,31 @@ package com.SimonMk116.gendev.service;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
 import com.SimonMk116.gendev.service.bytemeservice.ByteMeService;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 class ByteMeServiceTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private MockWebServer server;
 
-    @InjectMocks
     private ByteMeService byteMeService;
 
     private RequestAddress testAddress;
@@ -49,9 +38,12 @@ class ByteMeServiceTest {
 
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        byteMeService = new ByteMeService(WebClient.builder().build());
         ReflectionTestUtils.setField(byteMeService, "apiKey", "test-api-key");
-        ReflectionTestUtils.setField(byteMeService, "apiUrl", "http://test-byteme-api.com/offers");
+        ReflectionTestUtils.setField(byteMeService, "apiUrl", server.url("/offers").toString());
 
         testAddress = new RequestAddress("TestStreet", "10", "TestCity", "12345", "DE");
 
@@ -76,14 +68,29 @@ class ByteMeServiceTest {
                 "prod2,ByteMe,50,1999,2200,12,,,,5,null,Coupon,50";
     }
 
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private void enqueueCsv(String csv) {
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/csv").setBody(csv));
+    }
+
+    private void enqueueStatus(int status) {
+        server.enqueue(new MockResponse().setResponseCode(status));
+    }
+
+    private void enqueueNetworkError() {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+    }
+
     // --- Happy Path Tests ---
 
     @Test
-    void getOffers_shouldReturnOffers_whenApiCallIsSuccessful() {
+    void getOffers_shouldReturnOffers_whenApiCallIsSuccessful() throws InterruptedException {
         // Arrange
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(dummyCsvResponseValid, HttpStatus.OK));
+        enqueueCsv(dummyCsvResponseValid);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -127,17 +134,47 @@ class ByteMeServiceTest {
                 .expectComplete()
                 .verify();
 
-        verify(restTemplate, times(1)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("test-api-key", request.getHeader("X-API-Key"));
+        assertEquals("/offers?street=TestStreet&houseNumber=10&city=" + testAddress.getStadt() + "&plz=" + testAddress.getPostleitzahl(), request.getPath());
+    }
+
+    @Test
+    void getOffers_shouldParseBodyDeliveredInSmallChunks() {
+        // Arrange - quoted fields, CRLF separators and a multibyte character split across chunks
+        String csv = "productId,providerName,speed,monthlyCostInCent,afterTwoYearsMonthlyCost,tv\r\n" +
+                "prod1,\"ByteMe, \"\"Plus\"\"\",100,2500,2800,\"Sport\nMüller\"\r\n" +
+                "\r\n" +
+                "prod2,ByteMe,50,1999,2200,Basis";
+        server.enqueue(new MockResponse().setResponseCode(200).setChunkedBody(csv, 3));
+
+        // Act
+        Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
+
+        // Assert
+        StepVerifier.create(offersFlux)
+                .expectNextMatches(offer -> {
+                    assertEquals("prod1", offer.getProductId());
+                    assertEquals("ByteMe, \"Plus\"", offer.getProviderName());
+                    assertEquals("Sport\nMüller", offer.getTv());
+                    assertNull(offer.getDurationInMonths()); // Column not present in the header
+                    return true;
+                })
+                .expectNextMatches(offer -> {
+                    assertEquals("prod2", offer.getProductId());
+                    assertEquals("Basis", offer.getTv());
+                    return true;
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
     }
 
     @Test
     void getOffers_shouldReturnEmptyFlux_whenApiReturnsEmptyCsv() {
         // Arrange
         String emptyCsv = "productId,providerName,speed,monthlyCostInCent,afterTwoYearsMonthlyCost,durationInMonths,connectionType,installationService,tv,limitFrom,maxAge,voucherType,voucherValue\n"; // Header only
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(emptyCsv, HttpStatus.OK));
+        enqueueCsv(emptyCsv);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -148,17 +185,14 @@ class ByteMeServiceTest {
                 .expectComplete()
                 .verify();
 
-        verify(restTemplate, times(1)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(1, server.getRequestCount());
     }
 
     @Test
     void getOffers_shouldReturnEmptyFlux_whenApiReturnsMalformedCsv() {
         // Arrange
         String malformedCsv = "productId,providerName,speed\nprod1,ByteMe,100\nprod2,ByteMe,"; // Missing a column value
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(malformedCsv, HttpStatus.OK));
+        enqueueCsv(malformedCsv);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -168,8 +202,7 @@ class ByteMeServiceTest {
                 .expectNextCount(0) // Expect no offers as parsing should fail entirely for bad format
                 .expectComplete()
                 .verify();
-        verify(restTemplate, times(1)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(1, server.getRequestCount());
     }
 
 
@@ -178,10 +211,8 @@ class ByteMeServiceTest {
     @Test
     void getOffers_shouldRetryAndSucceed_onHttpServerError() {
         // Arrange
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)) // First call fails
-                .thenReturn(new ResponseEntity<>(dummyCsvResponseValid, HttpStatus.OK)); // Second call succeeds
+        enqueueStatus(500);
+        enqueueCsv(dummyCsvResponseValid);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -193,17 +224,14 @@ class ByteMeServiceTest {
                 .verify(Duration.ofSeconds(2)); // Add a timeout for asynchronous operations
 
         // Verify that the external API was called twice (initial attempt + 1 retry)
-        verify(restTemplate, times(2)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(2, server.getRequestCount());
     }
 
     @Test
     void getOffers_shouldRetryAndSucceed_onRestClientException() {
         // Arrange
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new RestClientException("Network error")) // First call fails (e.g., network issue)
-                .thenReturn(new ResponseEntity<>(dummyCsvResponseValid, HttpStatus.OK)); // Second call succeeds
+        enqueueNetworkError();
+        enqueueCsv(dummyCsvResponseValid);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -214,16 +242,15 @@ class ByteMeServiceTest {
                 .expectComplete()
                 .verify(Duration.ofSeconds(2)); // Add a timeout
 
-        verify(restTemplate, times(2)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(2, server.getRequestCount());
     }
 
     @Test
     void getOffers_shouldReturnEmptyFlux_afterMaxRetriesReachedForHttpServerError() {
         // Arrange - Make it fail for all 3 retries (total 4 attempts)
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)); // Always throw 500
+        enqueueStatus(500);
+        enqueueStatus(500);
+        enqueueStatus(500);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -235,16 +262,15 @@ class ByteMeServiceTest {
                 .verify(Duration.ofSeconds(4)); // Timeout accounts for retries
 
         // Verify that the external API was called MAX_RETRIES (3) times
-        verify(restTemplate, times(3)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(3, server.getRequestCount());
     }
 
     @Test
     void getOffers_shouldReturnEmptyFlux_afterMaxRetriesReachedForRestClientException() {
         // Arrange - Make it fail for all 3 retries (total 4 attempts)
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new RestClientException("Connection refused")); // Always throw RestClientException
+        enqueueNetworkError();
+        enqueueNetworkError();
+        enqueueNetworkError();
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -255,16 +281,13 @@ class ByteMeServiceTest {
                 .expectComplete()
                 .verify(Duration.ofSeconds(4)); // Timeout accounts for retries
 
-        verify(restTemplate, times(3)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(3, server.getRequestCount());
     }
 
     @Test
     void getOffers_shouldNotRetry_onHttpClientError() {
         // Arrange (e.g., 400 Bad Request, 404 Not Found)
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_REQUEST)); // Not a 5xx error
+        enqueueStatus(400);
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -276,8 +299,7 @@ class ByteMeServiceTest {
                 .verify(Duration.ofSeconds(1)); // No retry delay expected
 
         // Verify that the external API was called only once (no retries for 4xx errors)
-        verify(restTemplate, times(1)).exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        assertEquals(1, server.getRequestCount());
     }
 
     // --- CSV Parsing Robustness Tests ---
@@ -285,9 +307,8 @@ class ByteMeServiceTest {
     @Test
     void getOffers_shouldFilterOutRecordsWithMissingMandatoryFields() {
         // Arrange
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(dummyCsvResponseWithMissingMandatoryFields, HttpStatus.OK));
+        enqueueCsv(dummyCsvResponseWithMissingMandatoryFields);
+        enqueueCsv(dummyCsvResponseWithMissingMandatoryFields); // The result is collected a second time below
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -312,9 +333,8 @@ class ByteMeServiceTest {
     @Test
     void getOffers_shouldFilterOutRecordsWithInvalidNumericData() {
         // Arrange
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(dummyCsvResponseWithInvalidNumericData, HttpStatus.OK));
+        enqueueCsv(dummyCsvResponseWithInvalidNumericData);
+        enqueueCsv(dummyCsvResponseWithInvalidNumericData); // The result is collected a second time below
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -339,9 +359,8 @@ class ByteMeServiceTest {
     @Test
     void getOffers_shouldCorrectlyParseOptionalFields() {
         // Arrange
-        when(restTemplate.exchange(
-                any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
-                .thenReturn(new ResponseEntity<>(dummyCsvResponseWithMissingOptionalFields, HttpStatus.OK));
+        enqueueCsv(dummyCsvResponseWithMissingOptionalFields);
+        enqueueCsv(dummyCsvResponseWithMissingOptionalFields); // The result is collected a second time below
 
         // Act
         Flux<InternetOffer> offersFlux = byteMeService.getOffers(testAddress);
@@ -373,10 +392,4 @@ class ByteMeServiceTest {
         List<InternetOffer> result = offersFlux.collectList().block();
         assertEquals(2, result.size(), "Should parse both records, with nulls for missing optional fields");
     }
-
-    // Helper for sleep delay (as the service has Thread.sleep)
-    // This isn't strictly necessary for the tests to pass, as Mockito handles
-    // the call. If you had a real time-based assertion, you might need it.
-    // For unit tests, it's generally fine to let Mockito just record the call.
-    // However, including a small verify timeout helps with async nature of Flux.
-}
\ No newline at end of file
+}
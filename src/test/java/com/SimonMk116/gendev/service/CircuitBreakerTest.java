@@ -0,0 +1,133 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import com.SimonMk116.gendev.service.resilience.CircuitBreakers;
+import com.SimonMk116.gendev.service.resilience.ProviderUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static Flux<String> failing() {
+        return Flux.error(new IllegalStateException("provider down"));
+    }
+
+    private static void call(CircuitBreaker breaker, Flux<String> request) {
+        breaker.execute(() -> request).onErrorResume(error -> Flux.empty()).blockLast(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void execute_shouldOpenAtTheFailureRateAndFailFast() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 4, 4, Duration.ofMinutes(1), 1);
+
+        call(breaker, Flux.just("ok"));
+        call(breaker, Flux.just("ok"));
+        call(breaker, failing());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        call(breaker, failing());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // While open, the provider is not called at all
+        AtomicInteger invocations = new AtomicInteger();
+        Flux<String> skipped = breaker.execute(() -> {
+            invocations.incrementAndGet();
+            return Flux.just("ok");
+        });
+        ProviderUnavailableException error = assertThrows(ProviderUnavailableException.class, skipped::blockLast);
+        assertEquals("test", error.getProvider());
+        assertTrue(error.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertEquals(0, invocations.get());
+    }
+
+    @Test
+    void execute_shouldCountProvidersThatGaveUp() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 2, 2, Duration.ofMinutes(1), 1);
+
+        // The provider swallows its error and completes empty, but reports that it gave up
+        Flux<String> gaveUp = failing().onErrorResume(CircuitBreaker::giveUp);
+        call(breaker, gaveUp);
+        call(breaker, gaveUp);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void execute_shouldNotCountCancelledCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 2, 2, Duration.ofMinutes(1), 1);
+
+        // E.g. a provider cut off at its deadline
+        for (int i = 0; i < 5; i++) {
+            breaker.execute(Flux::<String>never).take(Duration.ofMillis(10)).blockLast();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void execute_shouldCloseAfterSuccessfulProbes() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 2, 2, Duration.ofMillis(50), 2);
+        call(breaker, failing());
+        call(breaker, failing());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(80);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(List.of("probe"), breaker.execute(() -> Flux.just("probe")).collectList().block());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.execute(() -> Flux.just("probe")).blockLast();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void execute_shouldReopenWhenAProbeFails() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 2, 2, Duration.ofMillis(50), 2);
+        call(breaker, failing());
+        call(breaker, failing());
+
+        Thread.sleep(80);
+        call(breaker, failing());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(ProviderUnavailableException.class, () -> breaker.execute(() -> Flux.just("ok")).blockLast());
+    }
+
+    @Test
+    void execute_shouldLimitTheNumberOfConcurrentProbes() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 2, 2, Duration.ofMillis(50), 1);
+        call(breaker, failing());
+        call(breaker, failing());
+
+        Thread.sleep(80);
+        // The single probe is still in flight, so a second call is rejected
+        breaker.execute(Flux::<String>never).subscribe();
+        assertThrows(ProviderUnavailableException.class, () -> breaker.execute(() -> Flux.just("ok")).blockLast());
+    }
+
+    @Test
+    void forProvider_shouldReadTheProviderConfiguration() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("provider.byteme.circuit-breaker.window", "2")
+                .withProperty("provider.byteme.circuit-breaker.minimum-calls", "2")
+                .withProperty("provider.byteme.circuit-breaker.open-duration", "PT1M");
+        environment.setConversionService(new ApplicationConversionService());
+        CircuitBreakers breakers = new CircuitBreakers(environment);
+
+        CircuitBreaker byteMe = breakers.forProvider("byteme");
+        assertSame(byteMe, breakers.forProvider("byteme"));
+        call(byteMe, failing());
+        call(byteMe, failing());
+        assertEquals(CircuitBreaker.State.OPEN, byteMe.getState());
+
+        breakers.resetAll();
+        assertEquals(CircuitBreaker.State.CLOSED, byteMe.getState());
+    }
+}
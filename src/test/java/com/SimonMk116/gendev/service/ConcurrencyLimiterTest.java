@@ -0,0 +1,135 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiter;
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiters;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    /**
+     * A request that records the highest number of requests in flight at the same time.
+     */
+    private static Flux<String> tracked(AtomicInteger inFlight, AtomicInteger maxInFlight, Duration latency) {
+        return Flux.defer(() -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return Mono.delay(latency).thenReturn("ok").flux()
+                    .doOnTerminate(inFlight::decrementAndGet);
+        });
+    }
+
+    @Test
+    void limit_shouldNotExceedTheLimitAcrossCallers() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 3, 1, 3, 100, 0.5);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        // Two independent "searches" with 5 requests each
+        List<Flux<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(limiter.limit(tracked(inFlight, maxInFlight, Duration.ofMillis(30))));
+        }
+        List<String> results = Flux.merge(Flux.merge(requests.subList(0, 5)), Flux.merge(requests.subList(5, 10)))
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(10, results.size());
+        assertEquals(3, maxInFlight.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limit_shouldGrowWhileLatencyStaysFlat() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, 1, 10, 100, 0.5);
+
+        for (int round = 0; round < 20; round++) {
+            List<Flux<String>> requests = new ArrayList<>();
+            for (int i = 0; i < limiter.getLimit(); i++) {
+                requests.add(limiter.limit(Flux.just("ok").delayElements(Duration.ofMillis(5))));
+            }
+            Flux.merge(requests).blockLast(Duration.ofSeconds(5));
+        }
+
+        assertTrue(limiter.getLimit() > 2, "Expected the limit to grow, was " + limiter.getLimit());
+    }
+
+    @Test
+    void limit_shouldBackOffOnOverloadResponses() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 8, 1, 8, 100, 0.5);
+        WebClientResponseException tooManyRequests = WebClientResponseException.create(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests", null, null, null);
+
+        Flux<String> failing = limiter.limit(Flux.error(tooManyRequests));
+        assertThrows(WebClientResponseException.class, failing::blockLast);
+        assertEquals(4, limiter.getLimit());
+
+        // A client error says nothing about upstream capacity
+        WebClientResponseException badRequest = WebClientResponseException.create(
+                HttpStatus.BAD_REQUEST.value(), "Bad Request", null, null, null);
+        assertThrows(WebClientResponseException.class, () -> limiter.limit(Flux.error(badRequest)).blockLast());
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limit_shouldBackOffOnceForABurstOfConcurrentOverloadResponses() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 8, 1, 8, 100, 0.5);
+        WebClientResponseException unavailable = WebClientResponseException.create(
+                HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", null, null, null);
+
+        List<Flux<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(limiter.limit(Mono.delay(Duration.ofMillis(20)).then(Mono.<String>error(unavailable)).flux())
+                    .onErrorResume(error -> Flux.empty()));
+        }
+        Flux.merge(requests).blockLast(Duration.ofSeconds(5));
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void limit_shouldBackOffWhenLatencyRises() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 4, 1, 4, 2.0, 0.5);
+
+        limiter.limit(Flux.just("fast").delayElements(Duration.ofMillis(10))).blockLast();
+        limiter.limit(Flux.just("slow").delayElements(Duration.ofMillis(200))).blockLast();
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void limit_shouldReleaseTheSlotOfCancelledRequests() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1, 100, 0.5);
+
+        // Requests cancelled while holding the only slot must give it back
+        limiter.limit(Flux.<String>never()).take(Duration.ofMillis(20)).blockLast();
+        limiter.limit(Flux.<String>never()).take(Duration.ofMillis(20)).blockLast();
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals("ok", limiter.limit(Flux.just("ok")).blockLast(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void forProvider_shouldShareOneLimiterPerProvider() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("provider.servus.concurrency.initial", "3")
+                .withProperty("provider.servus.concurrency.max", "16");
+        ConcurrencyLimiters limiters = new ConcurrencyLimiters(environment);
+
+        ConcurrencyLimiter servus = limiters.forProvider("servus");
+        assertSame(servus, limiters.forProvider("servus"));
+        assertEquals(3, servus.getLimit());
+        assertEquals(16, servus.getMaxLimit());
+        assertNotSame(servus, limiters.forProvider("verbyndich"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.pingperfectservice.HmacSigner;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HmacSignerTest {
+
+    private final HmacSigner signer = new HmacSigner("testSecretKey".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void sign_shouldMatchTheHmacOfTimestampAndPayload() throws Exception {
+        String payload = "{\"street\": \"TestStreet\",\"houseNumber\": \"10\",\"city\": \"TestCity\",\"plz\": \"12345\",\"wantsFiber\": false}";
+
+        assertEquals(expectedSignature("1678886400", payload), signer.sign("1678886400", payload));
+        // The pooled Mac is reset after every signature
+        assertEquals(expectedSignature("1678886401", payload), signer.sign("1678886401", payload));
+    }
+
+    @Test
+    void sign_shouldEncodeNonAsciiAndLongPayloadsAsUtf8() throws Exception {
+        String payload = "{\"street\": \"Müllerstraße\",\"city\": \"Łódź 😀 \uD800\"}".repeat(40);
+
+        assertEquals(expectedSignature("1678886400", payload), signer.sign("1678886400", payload));
+    }
+
+    @Test
+    void sign_shouldWriteTheSignatureIntoTheBuffer() throws Exception {
+        byte[] hex = new byte[HmacSigner.SIGNATURE_LENGTH];
+
+        signer.sign("1678886400", "{}", hex);
+
+        assertEquals(expectedSignature("1678886400", "{}"), new String(hex, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void sign_shouldSignSerializedPayloadBuffers() throws Exception {
+        String payload = "{\"street\": \"Müllerstraße\",\"wantsFiber\": true}";
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> buffers = List.of(ByteBuffer.wrap(bytes, 0, 7).slice(),
+                ByteBuffer.allocateDirect(bytes.length - 7).put(bytes, 7, bytes.length - 7).flip());
+
+        assertEquals(expectedSignature("1678886400", payload), signer.sign("1678886400", buffers.iterator()));
+    }
+
+    private static String expectedSignature(String timestamp, String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("testSecretKey".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal((timestamp + ":" + payload).getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,114 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.aggregation.InFlightSearchRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightSearchRegistryTest {
+
+    private InFlightSearchRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InFlightSearchRegistry();
+    }
+
+    @Test
+    void join_shouldShareRunningSearchAndReplayEmittedElements() {
+        // Arrange
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<String> first = registry.join("key", () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asFlux();
+        });
+
+        List<String> firstReceived = new CopyOnWriteArrayList<>();
+        first.subscribe(firstReceived::add);
+        upstream.tryEmitNext("offer1");
+
+        // Act - a second identical search joins while the first one is still running
+        List<String> secondReceived = new CopyOnWriteArrayList<>();
+        registry.join("key", () -> {
+            upstreamCalls.incrementAndGet();
+            return Flux.just("unexpected");
+        }).subscribe(secondReceived::add);
+
+        upstream.tryEmitNext("offer2");
+        upstream.tryEmitComplete();
+
+        // Assert
+        assertEquals(1, upstreamCalls.get(), "Upstream search should only be started once");
+        assertEquals(List.of("offer1", "offer2"), firstReceived);
+        assertEquals(List.of("offer1", "offer2"), secondReceived, "Late subscriber should receive replayed and live offers");
+        assertEquals(0, registry.size(), "Completed search should be removed from the registry");
+    }
+
+    @Test
+    void join_shouldStartSeparateSearchesForDifferentKeys() {
+        // Arrange
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        // Act
+        Flux<String> a = registry.join("a", () -> {
+            upstreamCalls.incrementAndGet();
+            return Flux.just("offerA").delayElements(Duration.ofMillis(50));
+        });
+        Flux<String> b = registry.join("b", () -> {
+            upstreamCalls.incrementAndGet();
+            return Flux.just("offerB").delayElements(Duration.ofMillis(50));
+        });
+
+        // Assert
+        StepVerifier.create(Flux.merge(a, b))
+                .expectNextCount(2)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void join_shouldStartNewSearchAfterPreviousOneCompleted() {
+        // Arrange
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(registry.join("key", () -> {
+                        upstreamCalls.incrementAndGet();
+                        return Flux.just("offer");
+                    }))
+                    .expectNext("offer")
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(1));
+        }
+
+        // Assert
+        assertEquals(2, upstreamCalls.get(), "A finished search must not be served from the registry");
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void join_shouldRemoveSearchWhenAllSubscribersCancel() {
+        // Arrange
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<String> search = registry.join("key", upstream::asFlux);
+
+        // Act
+        search.subscribe().dispose();
+
+        // Assert
+        assertEquals(0, registry.size());
+        assertTrue(upstream.currentSubscriberCount() == 0, "Upstream should be cancelled once nobody listens");
+    }
+}
@@ -0,0 +1,75 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferDeduplicator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OfferDeduplicatorTest {
+
+    private final OfferDeduplicator deduplicator = new OfferDeduplicator();
+
+    private static InternetOffer offer(String productId, int monthlyCostInCent) {
+        return InternetOffer.builder()
+                .productId(productId)
+                .providerName("WebWunder")
+                .speed(100)
+                .monthlyCostInCent(monthlyCostInCent)
+                .connectionType("DSL")
+                .build();
+    }
+
+    @Test
+    void deduplicate_shouldDropRepeatedOffersAndKeepOrder() {
+        // Arrange
+        Flux<InternetOffer> offers = Flux.just(
+                offer("1", 2000), offer("2", 2500), offer("1", 2000), offer("3", 3000), offer("2", 2500));
+
+        // Act & Assert
+        StepVerifier.create(deduplicator.deduplicate(offers).map(InternetOffer::getProductId))
+                .expectNext("1", "2", "3")
+                .verifyComplete();
+    }
+
+    @Test
+    void deduplicate_shouldKeepOffersThatDifferInIdOrContent() {
+        // Arrange
+        Flux<InternetOffer> offers = Flux.just(offer("1", 2000), offer("2", 2000), offer("1", 2100));
+
+        // Act & Assert
+        StepVerifier.create(deduplicator.deduplicate(offers))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void deduplicate_shouldTrackEachSubscriptionSeparately() {
+        // Arrange
+        Flux<InternetOffer> deduplicated = deduplicator.deduplicate(Flux.just(offer("1", 2000), offer("1", 2000)));
+
+        // Act & Assert - a new search starts with an empty fingerprint set
+        StepVerifier.create(deduplicated).expectNextCount(1).verifyComplete();
+        StepVerifier.create(deduplicated).expectNextCount(1).verifyComplete();
+    }
+
+    @Test
+    void deduplicate_shouldPassOffersThroughOnceFingerprintLimitIsReached() {
+        // Arrange
+        ReflectionTestUtils.setField(deduplicator, "maxFingerprints", 2);
+        List<InternetOffer> offers = IntStream.range(0, 4).mapToObj(i -> offer(String.valueOf(i), 2000)).toList();
+
+        // Act
+        List<InternetOffer> result = deduplicator.deduplicate(Flux.concat(
+                Flux.fromIterable(offers), Flux.fromIterable(offers))).collectList().block();
+
+        // Assert - the first two offers are remembered, the later ones can no longer be checked
+        assertEquals(List.of("0", "1", "2", "3", "2", "3"), result.stream().map(InternetOffer::getProductId).toList());
+    }
+}
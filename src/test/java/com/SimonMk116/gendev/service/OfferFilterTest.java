@@ -0,0 +1,129 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.dto.FilterDataDto;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfferFilterTest {
+
+    private static InternetOffer offer() {
+        return InternetOffer.builder()
+                .providerName("WebWunder")
+                .speed(100)
+                .monthlyCostInCent(2500)
+                .connectionType("Fiber")
+                .maxAge(27)
+                .tv("RobynTV+")
+                .installationService(true)
+                .build();
+    }
+
+    @Test
+    void from_shouldReturnEmptyFilterWhenNoCriterionIsSet() {
+        // Arrange
+        FilterDataDto filters = new FilterDataDto();
+        filters.setPlz("10115"); // Address fields are no filter criteria
+        filters.setProvider("all");
+        filters.setConnectionType(" ");
+        filters.setTvIncluded(false);
+
+        // Act & Assert
+        assertSame(OfferFilter.NONE, OfferFilter.from(filters));
+        assertSame(OfferFilter.NONE, OfferFilter.from(null));
+        assertTrue(OfferFilter.NONE.test(new InternetOffer()));
+        assertEquals("", OfferFilter.NONE.key());
+    }
+
+    @Test
+    void test_shouldApplyEveryCriterion() {
+        // Arrange
+        FilterDataDto filters = new FilterDataDto();
+        filters.setMinPrice(2000);
+        filters.setMaxPrice(3000);
+        filters.setMinSpeed(100);
+        filters.setConnectionType("fibre");
+        filters.setIsYoungTariff(true);
+        filters.setTvIncluded(true);
+        filters.setFreeInstallation(true);
+        OfferFilter filter = OfferFilter.from(filters);
+
+        // Act & Assert
+        assertEquals("FIBER", filter.getConnectionType());
+        assertTrue(filter.test(offer()));
+
+        InternetOffer tooExpensive = offer();
+        tooExpensive.setMonthlyCostInCent(3001);
+        assertFalse(filter.test(tooExpensive));
+
+        InternetOffer tooSlow = offer();
+        tooSlow.setSpeed(50);
+        assertFalse(filter.test(tooSlow));
+
+        InternetOffer dsl = offer();
+        dsl.setConnectionType("DSL");
+        assertFalse(filter.test(dsl));
+
+        InternetOffer noAgeLimit = offer();
+        noAgeLimit.setMaxAge(0);
+        assertFalse(filter.test(noAgeLimit));
+
+        InternetOffer withoutTv = offer();
+        withoutTv.setTv(null);
+        assertFalse(filter.test(withoutTv));
+
+        InternetOffer withoutInstallation = offer();
+        withoutInstallation.setInstallationService(null);
+        assertFalse(filter.test(withoutInstallation));
+    }
+
+    @Test
+    void includesProvider_shouldMatchNormalizedProviderName() {
+        // Arrange
+        FilterDataDto filters = new FilterDataDto();
+        filters.setProvider("Servus Speed");
+        OfferFilter filter = OfferFilter.from(filters);
+
+        // Act & Assert
+        assertTrue(filter.includesProvider("servus"));
+        assertFalse(filter.includesProvider("webwunder"));
+        assertTrue(OfferFilter.NONE.includesProvider("webwunder"));
+    }
+
+    @Test
+    void includesProvider_shouldOnlyMatchKnownProvidersExactly() {
+        // Arrange
+        FilterDataDto prefix = new FilterDataDto();
+        prefix.setProvider("p");
+        FilterDataDto garbage = new FilterDataDto();
+        garbage.setProvider("webwunderx");
+        FilterDataDto displayName = new FilterDataDto();
+        displayName.setProvider("Ping Perfect");
+
+        // Act & Assert - unknown providers are ignored instead of prefix-matched
+        assertSame(OfferFilter.NONE, OfferFilter.from(prefix));
+        assertSame(OfferFilter.NONE, OfferFilter.from(garbage));
+        OfferFilter pingPerfect = OfferFilter.from(displayName);
+        assertTrue(pingPerfect.includesProvider("pingperfect"));
+        assertFalse(pingPerfect.includesProvider("ping"));
+        assertFalse(pingPerfect.includesProvider("verbyndich"));
+    }
+
+    @Test
+    void key_shouldBeEqualForEquivalentFilters() {
+        // Arrange
+        FilterDataDto first = new FilterDataDto();
+        first.setConnectionType("fiber");
+        first.setMinSpeed(100);
+        FilterDataDto second = new FilterDataDto();
+        second.setConnectionType("FIBRE");
+        second.setMinSpeed(100);
+
+        // Act & Assert
+        assertEquals(OfferFilter.from(first).key(), OfferFilter.from(second).key());
+        second.setMinSpeed(200);
+        assertNotEquals(OfferFilter.from(first).key(), OfferFilter.from(second).key());
+    }
+}
@@ -0,0 +1,99 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferIds;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfferIdsTest {
+
+    private static InternetOffer offer() {
+        return InternetOffer.builder()
+                .providerName("VerbynDich Basic 50")
+                .speed(50)
+                .monthlyCostInCent(3700)
+                .afterTwoYearsMonthlyCost(4500)
+                .connectionType("DSL")
+                .durationInMonths(24)
+                .installationService(false)
+                .voucherType("ABSOLUTE")
+                .voucherValue(0)
+                .build();
+    }
+
+    @Test
+    void contentId_shouldBeStableForEqualContent() {
+        // Arrange
+        InternetOffer first = offer();
+        InternetOffer second = offer();
+        second.setProductId("ignored");
+
+        // Act
+        String firstId = OfferIds.contentId("VerbynDich-", first);
+        String secondId = OfferIds.contentId("VerbynDich-", second);
+
+        // Assert
+        assertEquals(firstId, secondId);
+        assertTrue(firstId.matches("VerbynDich-[0-9a-f]{16}"), firstId);
+    }
+
+    @Test
+    void contentId_shouldIgnoreCaseAndRedundantWhitespaceInText() {
+        // Arrange
+        InternetOffer normalized = offer();
+        InternetOffer messy = offer();
+        messy.setProviderName("  verbyndich   BASIC 50 ");
+        messy.setConnectionType("dsl");
+
+        // Act & Assert
+        assertEquals(OfferIds.contentId("x-", normalized), OfferIds.contentId("x-", messy));
+    }
+
+    @Test
+    void contentId_shouldCollapseEveryKindOfWhitespaceLikeBefore() {
+        // Arrange
+        InternetOffer messy = offer();
+        messy.setProviderName("\t VerbynDich  Basic\r\n\u000B50 ");
+        messy.setTv(" İ TV\f\f");
+
+        // Act & Assert - ids must not change when the normalization is reimplemented
+        assertEquals("x-1c821e63f72a99e7", OfferIds.contentId("x-", offer()));
+        assertEquals("x-7e18247573f4c72f", OfferIds.contentId("x-", messy));
+    }
+
+    @Test
+    void contentId_shouldDifferWhenContentDiffers() {
+        // Arrange
+        InternetOffer base = offer();
+        InternetOffer otherPrice = offer();
+        otherPrice.setMonthlyCostInCent(3800);
+        InternetOffer withoutDuration = offer();
+        withoutDuration.setDurationInMonths(null);
+        InternetOffer withTv = offer();
+        withTv.setTv("RobynTV+");
+
+        // Act
+        String baseId = OfferIds.contentId("x-", base);
+
+        // Assert
+        assertNotEquals(baseId, OfferIds.contentId("x-", otherPrice));
+        assertNotEquals(baseId, OfferIds.contentId("x-", withoutDuration));
+        assertNotEquals(baseId, OfferIds.contentId("x-", withTv));
+    }
+
+    @Test
+    void fingerprint_shouldCoverProductIdAndContent() {
+        // Arrange
+        InternetOffer first = offer();
+        first.setProductId("p1");
+        InternetOffer same = offer();
+        same.setProductId("p1");
+        InternetOffer otherId = offer();
+        otherId.setProductId("p2");
+
+        // Act & Assert
+        assertEquals(OfferIds.fingerprint(first), OfferIds.fingerprint(same));
+        assertNotEquals(OfferIds.fingerprint(first), OfferIds.fingerprint(otherId));
+    }
+}
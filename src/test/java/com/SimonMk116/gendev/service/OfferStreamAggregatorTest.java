@@ -0,0 +1,133 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferStreamAggregator;
+import com.SimonMk116.gendev.service.aggregation.OfferStreamAggregator.ProviderTimeout;
+import com.SimonMk116.gendev.service.aggregation.OfferStreamAggregator.SearchSummary;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfferStreamAggregatorTest {
+
+    private OfferStreamAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("offers.provider-deadline", "PT5S")
+                .withProperty("provider.slow.deadline", "PT0.2S");
+        environment.setConversionService(new ApplicationConversionService());
+        aggregator = new OfferStreamAggregator(environment);
+    }
+
+    private static InternetOffer offer(String productId) {
+        return InternetOffer.builder().productId(productId).providerName("Provider").build();
+    }
+
+    @Test
+    void deadlineFor_shouldPreferProviderDeadlineOverDefault() {
+        assertEquals(Duration.ofMillis(200), aggregator.deadlineFor("slow"));
+        assertEquals(Duration.ofSeconds(5), aggregator.deadlineFor("fast"));
+    }
+
+    @Test
+    void aggregate_shouldEmitOffersAndSummaryWhenAllProvidersAnswer() {
+        // Arrange
+        Map<String, Flux<InternetOffer>> providers = new LinkedHashMap<>();
+        providers.put("fast", Flux.just(offer("a"), offer("b")));
+        providers.put("empty", Flux.empty());
+
+        // Act
+        List<ServerSentEvent<Object>> events = aggregator.aggregate(providers).collectList().block();
+
+        // Assert
+        assertEquals(3, events.size());
+        assertEquals(List.of("a", "b"), events.subList(0, 2).stream()
+                .map(event -> OfferStreamAggregator.offerOf(event).getProductId()).toList());
+        assertNull(events.get(0).event(), "Offers are sent as unnamed events");
+        ServerSentEvent<Object> last = events.get(2);
+        assertEquals(OfferStreamAggregator.SUMMARY_EVENT, last.event());
+        SearchSummary summary = (SearchSummary) last.data();
+        assertEquals(List.of("fast", "empty"), summary.answered());
+        assertTrue(summary.timedOut().isEmpty());
+        assertTrue(summary.failed().isEmpty());
+    }
+
+    @Test
+    void aggregate_shouldCutOffProviderAtDeadline() {
+        // Arrange - the slow provider delivers one offer and then hangs
+        Map<String, Flux<InternetOffer>> providers = new LinkedHashMap<>();
+        providers.put("slow", Flux.just(offer("early")).concatWith(Flux.never()));
+        providers.put("fast", Flux.just(offer("a")));
+
+        // Act
+        long start = System.nanoTime();
+        List<ServerSentEvent<Object>> events = aggregator.aggregate(providers).collectList().block(Duration.ofSeconds(2));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "Expected the slow provider to be cut off, took " + elapsed);
+        ServerSentEvent<Object> timeout = events.stream()
+                .filter(event -> OfferStreamAggregator.PROVIDER_TIMEOUT_EVENT.equals(event.event()))
+                .findFirst().orElseThrow();
+        assertEquals(new ProviderTimeout("slow", 200, 1), timeout.data());
+        SearchSummary summary = (SearchSummary) events.get(events.size() - 1).data();
+        assertEquals(List.of("fast"), summary.answered());
+        assertEquals(List.of("slow"), summary.timedOut());
+        assertEquals(2, events.stream().filter(event -> OfferStreamAggregator.offerOf(event) != null).count());
+    }
+
+    @Test
+    void aggregate_shouldOpenTheBreakerOfAProviderThatKeepsMissingItsDeadline() {
+        // Arrange - a hanging provider behind a breaker that opens after two failed calls
+        CircuitBreaker breaker = new CircuitBreaker("slow", 50, 2, 2, Duration.ofMinutes(1), 1);
+        Map<String, Flux<InternetOffer>> providers = new LinkedHashMap<>();
+        providers.put("slow", breaker.execute(Flux::never));
+
+        // Act
+        for (int i = 0; i < 2; i++) {
+            SearchSummary summary = summaryOf(aggregator.aggregate(providers).collectList().block(Duration.ofSeconds(2)));
+            assertEquals(List.of("slow"), summary.timedOut());
+        }
+        long start = System.nanoTime();
+        SearchSummary skipped = summaryOf(aggregator.aggregate(providers).collectList().block(Duration.ofSeconds(2)));
+
+        // Assert - the third search skips the provider instead of waiting for its deadline
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(List.of("slow"), skipped.unavailable());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(200)) < 0);
+    }
+
+    private static SearchSummary summaryOf(List<ServerSentEvent<Object>> events) {
+        return (SearchSummary) events.get(events.size() - 1).data();
+    }
+
+    @Test
+    void aggregate_shouldReportFailedProviderWithoutEndingOtherStreams() {
+        // Arrange
+        Map<String, Flux<InternetOffer>> providers = new LinkedHashMap<>();
+        providers.put("broken", Flux.error(new IllegalStateException("upstream down")));
+        providers.put("fast", Flux.just(offer("a")));
+
+        // Act
+        List<ServerSentEvent<Object>> events = aggregator.aggregate(providers).collectList().block();
+
+        // Assert
+        assertEquals("a", OfferStreamAggregator.offerOf(events.get(0)).getProductId());
+        SearchSummary summary = (SearchSummary) events.get(events.size() - 1).data();
+        assertEquals(List.of("fast"), summary.answered());
+        assertEquals(List.of("broken"), summary.failed());
+    }
+}
@@ -1,285 +1,322 @@
-    package com.SimonMk116.gendev.service;
-
-    import com.SimonMk116.gendev.dto.SearchRequests;
-    import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectClient;
-    import com.fasterxml.jackson.databind.JsonNode;
-    import com.fasterxml.jackson.databind.ObjectMapper;
-    import org.junit.jupiter.api.BeforeEach;
-    import org.junit.jupiter.api.Test;
-    import org.junit.jupiter.api.extension.ExtendWith;
-    import org.mockito.ArgumentCaptor;
-    import org.mockito.InjectMocks;
-    import org.mockito.Mock;
-    import org.mockito.junit.jupiter.MockitoExtension;
-    import org.springframework.http.*;
-    import org.springframework.test.util.ReflectionTestUtils;
-    import org.springframework.web.client.HttpServerErrorException;
-    import org.springframework.web.client.RestClientException;
-    import org.springframework.web.client.RestTemplate;
-
-    import javax.crypto.Mac;
-    import javax.crypto.spec.SecretKeySpec;
-    import java.nio.charset.StandardCharsets;
-
-    import static org.junit.jupiter.api.Assertions.*;
-    import static org.mockito.ArgumentMatchers.any;
-    import static org.mockito.ArgumentMatchers.eq;
-    import static org.mockito.Mockito.*;
-
-    @ExtendWith(MockitoExtension.class)
-    class PingPerfectClientTest {
-
-        @Mock
-        private RestTemplate restTemplate;
-
-        @InjectMocks
-        private PingPerfectClient pingPerfectClient;
-
-        private ObjectMapper objectMapper;
-        private SearchRequests testSearchRequest;
-
-        @BeforeEach
-        void setUp() {
-            objectMapper = new ObjectMapper();
-            ReflectionTestUtils.setField(pingPerfectClient, "apiUrl", "http://test-pingperfect-api.com/offers");
-            ReflectionTestUtils.setField(pingPerfectClient, "clientId", "testClientId");
-            ReflectionTestUtils.setField(pingPerfectClient, "signatureSecret", "testSecretKey");
-
-            testSearchRequest = new SearchRequests(
-                    "TestStreet", "10", "TestCity", "12345", false
-            );
-            // For this test, we'll just ensure the `X-Timestamp` header matches our expectation.
-        }
-
-        // Helper to generate expected signature (same logic as in client)
-        private String generateExpectedSignature(String payload) throws Exception {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec("testSecretKey".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKey);
-            byte[] hashBytes = mac.doFinal(("1678886400" + ":" + payload).getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hashBytes);
-        }
-
-        private static String bytesToHex(byte[] hash) {
-            StringBuilder hexString = new StringBuilder(2 * hash.length);
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.dto.SearchRequests;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.pingperfectservice.HmacSigner;
+import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectClient;
+import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectSigningFilter;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PingPerfectClientTest {
+
+    private static final String OFFER = "{\"providerName\":\"PingPerfect\",\"productInfo\":{\"speed\":100,"
+            + "\"contractDurationInMonths\":24,\"connectionType\":\"DSL\"},"
+            + "\"pricingDetails\":{\"monthlyCostInCent\":2000,\"installationService\":\"yes\"}}";
+
+    private static final String EXPECTED_PAYLOAD =
+            "{\"street\": \"TestStreet\",\"houseNumber\": \"10\",\"city\": \"TestCity\",\"plz\": \"12345\",\"wantsFiber\": false}";
+
+    private MockWebServer server;
+
+    private PingPerfectClient pingPerfectClient;
+
+    private SearchRequests testSearchRequest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        pingPerfectClient = new PingPerfectClient(WebClient.builder()
+                .filter(new PingPerfectSigningFilter(new HmacSigner("testSecretKey".getBytes(StandardCharsets.UTF_8))))
+                .build());
+        ReflectionTestUtils.setField(pingPerfectClient, "apiUrl", server.url("/offers").toString());
+        ReflectionTestUtils.setField(pingPerfectClient, "clientId", "testClientId");
+
+        testSearchRequest = new SearchRequests(
+                "TestStreet", "10", "TestCity", "12345", false
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    // Helper to generate expected signature (same logic as the API)
+    private String generateExpectedSignature(String timestamp, String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        SecretKeySpec secretKey = new SecretKeySpec("testSecretKey".getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        mac.init(secretKey);
+        byte[] hashBytes = mac.doFinal((timestamp + ":" + payload).getBytes(StandardCharsets.UTF_8));
+        return bytesToHex(hashBytes);
+    }
+
+    private static String bytesToHex(byte[] hash) {
+        StringBuilder hexString = new StringBuilder(2 * hash.length);
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
             }
-            return hexString.toString();
-        }
-
-        @Test
-        void getInternetOffers_shouldReturnOffers_whenApiCallIsSuccessful() throws Exception {
-            // Arrange
-            JsonNode dummyResponse = objectMapper.readTree("[{\"providerName\":\"PingPerfect\",\"productInfo\":{\"speed\":100},\"pricingDetails\":{\"monthlyCostInCent\":2000}}]");
-            ResponseEntity<JsonNode> successResponse = new ResponseEntity<>(dummyResponse, HttpStatus.OK);
-
-            when(restTemplate.exchange(
-                    eq("http://test-pingperfect-api.com/offers"),
-                    eq(HttpMethod.POST),
-                    any(HttpEntity.class),
-                    eq(JsonNode.class)
-            )).thenReturn(successResponse);
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNotNull(result);
-            assertTrue(result.isArray());
-            assertEquals(1, result.size());
-            assertEquals("PingPerfect", result.get(0).path("providerName").asText());
-
-            // Verify that the exchange method was called with correct headers and body
-            ArgumentCaptor<HttpEntity> httpEntityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
-            verify(restTemplate, times(1)).exchange(
-                    any(String.class), eq(HttpMethod.POST), httpEntityCaptor.capture(), eq(JsonNode.class)
-            );
-
-            HttpEntity capturedEntity = httpEntityCaptor.getValue();
-            assertNotNull(capturedEntity.getHeaders().get("X-Client-Id"));
-            assertNotNull(capturedEntity.getHeaders().get("X-Timestamp"));
-            assertNotNull(capturedEntity.getHeaders().get("X-Signature"));
-            assertEquals(MediaType.APPLICATION_JSON, capturedEntity.getHeaders().getContentType());
-
-            String expectedPayload = "{\"street\": \"TestStreet\",\"houseNumber\": \"10\",\"city\": \"TestCity\",\"plz\": \"12345\",\"wantsFiber\": false}";
-            assertEquals(expectedPayload, capturedEntity.getBody());
-        }
-
-        @Test
-        void getInternetOffers_shouldRetryAndSucceed_onHttpServerError() throws Exception {
-            // Arrange
-            JsonNode dummyResponse = objectMapper.readTree("[{\"providerName\":\"PingPerfect\"}]");
-            ResponseEntity<JsonNode> successResponse = new ResponseEntity<>(dummyResponse, HttpStatus.OK);
-
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            ))
-                    .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)) // First call fails (500)
-                    .thenReturn(successResponse); // Second call succeeds
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNotNull(result);
-            assertEquals(1, result.size());
-            verify(restTemplate, times(2)).exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
-        }
-
-        @Test
-        void getInternetOffers_shouldRetryAndSucceed_onServiceUnavailable() throws Exception {
-            // Arrange
-            JsonNode dummyResponse = objectMapper.readTree("[{\"providerName\":\"PingPerfect\"}]");
-            ResponseEntity<JsonNode> successResponse = new ResponseEntity<>(dummyResponse, HttpStatus.OK);
-
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            ))
-                    .thenThrow(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)) // First call fails (503)
-                    .thenReturn(successResponse); // Second call succeeds
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNotNull(result);
-            assertEquals(1, result.size());
-            verify(restTemplate, times(2)).exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
-        }
-
-        @Test
-        void getInternetOffers_shouldRetryAndSucceed_onRestClientException() throws Exception {
-            // Arrange
-            JsonNode dummyResponse = objectMapper.readTree("[{\"providerName\":\"PingPerfect\"}]");
-            ResponseEntity<JsonNode> successResponse = new ResponseEntity<>(dummyResponse, HttpStatus.OK);
-
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            ))
-                    .thenThrow(new RestClientException("Connection refused")) // First call fails
-                    .thenReturn(successResponse); // Second call succeeds
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNotNull(result);
-            assertEquals(1, result.size());
-            verify(restTemplate, times(2)).exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
-        }
-
-        @Test
-        void getInternetOffers_shouldReturnNull_afterMaxRetriesReachedForHttpServerError() throws Exception {
-            // Arrange
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            )).thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR)); // Always fail
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNull(result); // Should return null after max retries
-            verify(restTemplate, times(3)).exchange( // 1 initial + 2 retries (MAX_RETRIES in client is 3)
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
-        }
-
-        @Test
-        void getInternetOffers_shouldReturnNull_afterMaxRetriesReachedForRestClientException() throws Exception {
-            // Arrange
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            )).thenThrow(new RestClientException("Simulated network issue")); // Always fail
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNull(result); // Should return null after max retries
-            verify(restTemplate, times(3)).exchange( // 1 initial + 2 retries (MAX_RETRIES in client is 3)
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
+            hexString.append(hex);
         }
-
-        @Test
-        void getInternetOffers_shouldReturnNull_onHttpClientError() throws Exception {
-            // Arrange (e.g., 400 Bad Request, 404 Not Found) - not retriable
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            )).thenThrow(new HttpServerErrorException(HttpStatus.BAD_REQUEST)); // Not a 5xx error
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNull(result); // Should return null immediately as it's not retried
-            verify(restTemplate, times(1)).exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
+        return hexString.toString();
+    }
+
+    private void enqueueJson(String body) {
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json").setBody(body));
+    }
+
+    private void enqueueStatus(int status) {
+        server.enqueue(new MockResponse().setResponseCode(status));
+    }
+
+    private void enqueueDisconnect() {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+    }
+
+    private List<InternetOffer> getInternetOffers() {
+        return pingPerfectClient.getInternetOffers(testSearchRequest).collectList().block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void getInternetOffers_shouldReturnOffers_whenApiCallIsSuccessful() throws Exception {
+        // Arrange
+        enqueueJson("[" + OFFER + "]");
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertEquals("PingPerfect", result.get(0).getProviderName());
+        assertEquals(100, result.get(0).getSpeed());
+        assertEquals(2000, result.get(0).getMonthlyCostInCent());
+
+        // Verify that the request was sent with correct headers and body
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/offers", request.getPath());
+        assertEquals("testClientId", request.getHeader("X-Client-Id"));
+        assertNotNull(request.getHeader("X-Timestamp"));
+        assertNotNull(request.getHeader("X-Signature"));
+        assertEquals(MediaType.APPLICATION_JSON, MediaType.parseMediaType(request.getHeader("Content-Type")));
+        assertEquals(EXPECTED_PAYLOAD, request.getBody().readUtf8());
+    }
+
+    @Test
+    void getInternetOffers_shouldSignTheSerializedBody() throws Exception {
+        // Arrange
+        testSearchRequest = new SearchRequests("Müllerstraße", "1a", "München", "80331", true);
+        enqueueJson("[]");
+        long before = Instant.now().getEpochSecond();
+
+        // Act
+        getInternetOffers();
+
+        // Assert
+        RecordedRequest request = server.takeRequest();
+        String timestamp = request.getHeader("X-Timestamp");
+        long epochSecond = Long.parseLong(timestamp);
+        assertTrue(epochSecond >= before && epochSecond <= Instant.now().getEpochSecond());
+        String body = request.getBody().readString(StandardCharsets.UTF_8);
+        assertTrue(body.contains("Müllerstraße"));
+        assertEquals(generateExpectedSignature(timestamp, body), request.getHeader("X-Signature"));
+    }
+
+    @Test
+    void getInternetOffers_shouldRetryAndSucceed_onHttpServerError() throws Exception {
+        // Arrange
+        enqueueStatus(500); // First call fails (500)
+        enqueueJson("[" + OFFER + "]"); // Second call succeeds
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void getInternetOffers_shouldRetryAndSucceed_onServiceUnavailable() throws Exception {
+        // Arrange
+        enqueueStatus(503); // First call fails (503)
+        enqueueJson("[" + OFFER + "]"); // Second call succeeds
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertEquals(2, server.getRequestCount());
+        // Every attempt is signed on its own
+        server.takeRequest();
+        RecordedRequest retried = server.takeRequest();
+        assertEquals(generateExpectedSignature(retried.getHeader("X-Timestamp"), EXPECTED_PAYLOAD), retried.getHeader("X-Signature"));
+    }
+
+    @Test
+    void getInternetOffers_shouldRetryAndSucceed_onNetworkError() throws Exception {
+        // Arrange
+        enqueueDisconnect(); // First call fails
+        enqueueJson("[" + OFFER + "]"); // Second call succeeds
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void getInternetOffers_shouldReturnEmpty_afterMaxRetriesReachedForHttpServerError() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            enqueueStatus(500); // Always fail
         }
 
-        @Test
-        void buildRequestBody_shouldCreateCorrectJsonPayload() {
-            // Arrange handled by beforeEach
-            String expectedPayload = "{\"street\": \"TestStreet\",\"houseNumber\": \"10\",\"city\": \"TestCity\",\"plz\": \"12345\",\"wantsFiber\": false}";
+        // Act
+        List<InternetOffer> result = getInternetOffers();
 
-            // Use ReflectionTestUtils to call the private method
-            String actualPayload = ReflectionTestUtils.invokeMethod(pingPerfectClient, "buildRequestBody", testSearchRequest);
+        // Assert
+        assertTrue(result.isEmpty()); // Should complete empty after max retries
+        assertEquals(3, server.getRequestCount()); // 1 initial + 2 retries (MAX_RETRIES in client is 3)
+    }
 
-            // Assert
-            assertEquals(expectedPayload, actualPayload);
-
-            // Test with wantsFiber = true
-            SearchRequests fiberRequest = new SearchRequests("FibreStreet", "1", "FiberCity", "67890", true);
-            String expectedFiberPayload = "{\"street\": \"FibreStreet\",\"houseNumber\": \"1\",\"city\": \"FiberCity\",\"plz\": \"67890\",\"wantsFiber\": true}";
-            String actualFiberPayload = ReflectionTestUtils.invokeMethod(pingPerfectClient, "buildRequestBody", fiberRequest);
-            assertEquals(expectedFiberPayload, actualFiberPayload);
+    @Test
+    void getInternetOffers_shouldReturnEmpty_afterMaxRetriesReachedForNetworkError() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            enqueueDisconnect(); // Always fail
         }
 
-        @Test
-        void generateSignature_shouldReturnCorrectHmacSha256Signature() throws Exception {
-            // Arrange
-            String payload = "{\"key\":\"value\"}";
-            // Example fixed timestamp for consistent signature
-            // Use fixed timestamp for predictable test
-            String expectedSignature = generateExpectedSignature(payload);
-
-            // Uses ReflectionTestUtils to call the private method
-            // Need to ensure the client's signatureSecret is set correctly for this to work
-            String actualSignature = ReflectionTestUtils.invokeMethod(pingPerfectClient, "generateSignature", "1678886400", payload);
-
-            // Assert
-            assertEquals(expectedSignature, actualSignature);
-        }
-
-        @Test
-        void getInternetOffers_shouldReturnNull_whenApiReturnsNullBody() throws Exception {
-            // Arrange
-            ResponseEntity<JsonNode> nullBodyResponse = new ResponseEntity<>(null, HttpStatus.OK);
-
-            when(restTemplate.exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            )).thenReturn(nullBodyResponse);
-
-            // Act
-            JsonNode result = pingPerfectClient.getInternetOffers(testSearchRequest);
-
-            // Assert
-            assertNull(result);
-            verify(restTemplate, times(1)).exchange(
-                    any(String.class), eq(HttpMethod.POST), any(HttpEntity.class), eq(JsonNode.class)
-            );
-        }
-    }
\ No newline at end of file
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertTrue(result.isEmpty()); // Should complete empty after max retries
+        assertEquals(3, server.getRequestCount()); // 1 initial + 2 retries (MAX_RETRIES in client is 3)
+    }
+
+    @Test
+    void getInternetOffers_shouldReturnEmpty_onHttpClientError() throws Exception {
+        // Arrange (e.g., 400 Bad Request, 404 Not Found) - not retriable
+        enqueueStatus(400);
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertTrue(result.isEmpty()); // Should complete empty immediately as it's not retried
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void getInternetOffers_shouldOnlyCountProviderFailuresAgainstTheCircuitBreaker() {
+        // Arrange: a breaker that opens on the first failed call
+        CircuitBreaker breaker = new CircuitBreaker("pingperfect", 50, 1, 1, Duration.ofMinutes(1), 1);
+        enqueueStatus(401); // e.g. a rejected signature
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json"));
+        enqueueStatus(502);
+
+        // Act & Assert - neither a client error nor an empty body opens the breaker
+        assertTrue(breaker.execute(() -> pingPerfectClient.getInternetOffers(testSearchRequest)).collectList().block(Duration.ofSeconds(10)).isEmpty());
+        assertTrue(breaker.execute(() -> pingPerfectClient.getInternetOffers(testSearchRequest)).collectList().block(Duration.ofSeconds(10)).isEmpty());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // A server error does
+        assertTrue(breaker.execute(() -> pingPerfectClient.getInternetOffers(testSearchRequest)).collectList().block(Duration.ofSeconds(10)).isEmpty());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(3, server.getRequestCount()); // 502 is not retried
+    }
+
+    @Test
+    void getInternetOffers_shouldEmitOffersWhileTheBodyStreamsIn() {
+        // Arrange: the first offer arrives right away, the rest of the body one second later
+        String firstChunk = "[" + OFFER + ",";
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json")
+                .setBody(firstChunk + OFFER + "]")
+                .throttleBody(firstChunk.getBytes(StandardCharsets.UTF_8).length, 1, TimeUnit.SECONDS));
+
+        // Act
+        long millisToFirstOffer = pingPerfectClient.getInternetOffers(testSearchRequest)
+                .elapsed()
+                .blockFirst(Duration.ofSeconds(10))
+                .getT1();
+
+        // Assert
+        assertTrue(millisToFirstOffer < 800, "The first offer should not wait for the complete body, took " + millisToFirstOffer + " ms");
+    }
+
+    @Test
+    void getInternetOffers_shouldNotRetry_onceOffersWereEmitted() {
+        // Arrange: the connection breaks in the middle of the body, after the first offers
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json")
+                .setBody("[" + String.join(",", OFFER, OFFER, OFFER, OFFER) + "]")
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        enqueueJson("[" + OFFER + "]");
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertFalse(result.isEmpty());
+        assertTrue(result.size() < 4);
+        assertEquals(1, server.getRequestCount()); // Retrying would emit the offers twice
+    }
+
+    @Test
+    void buildRequestBody_shouldCreateCorrectJsonPayload() {
+        // Use ReflectionTestUtils to call the private method
+        String actualPayload = ReflectionTestUtils.invokeMethod(pingPerfectClient, "buildRequestBody", testSearchRequest);
+
+        // Assert
+        assertEquals(EXPECTED_PAYLOAD, actualPayload);
+
+        // Test with wantsFiber = true
+        SearchRequests fiberRequest = new SearchRequests("FibreStreet", "1", "FiberCity", "67890", true);
+        String expectedFiberPayload = "{\"street\": \"FibreStreet\",\"houseNumber\": \"1\",\"city\": \"FiberCity\",\"plz\": \"67890\",\"wantsFiber\": true}";
+        String actualFiberPayload = ReflectionTestUtils.invokeMethod(pingPerfectClient, "buildRequestBody", fiberRequest);
+        assertEquals(expectedFiberPayload, actualFiberPayload);
+    }
+
+    @Test
+    void getInternetOffers_shouldReturnEmpty_whenApiReturnsEmptyBody() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json"));
+
+        // Act
+        List<InternetOffer> result = getInternetOffers();
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(1, server.getRequestCount());
+    }
+}
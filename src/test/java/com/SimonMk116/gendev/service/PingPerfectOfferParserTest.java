@@ -0,0 +1,103 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectOfferParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PingPerfectOfferParserTest {
+
+    private static final String FIRST_OFFER = "{\"providerName\":\"PingPerfect\",\"productInfo\":{\"speed\":100,"
+            + "\"contractDurationInMonths\":24,\"connectionType\":\"Glasfaser München\",\"tv\":\"BasicTV\","
+            + "\"limitFrom\":10,\"maxAge\":35,\"extras\":{\"speed\":1,\"tags\":[\"a\",{\"b\":2}]}},"
+            + "\"pricingDetails\":{\"monthlyCostInCent\":2500,\"installationService\":\"yes\"},\"unknown\":[1,2]}";
+    private static final String SECOND_OFFER = "{\"pricingDetails\":{\"installationService\":\"no\",\"monthlyCostInCent\":1999},"
+            + "\"productInfo\":{\"connectionType\":\"DSL\",\"contractDurationInMonths\":12,\"speed\":50,\"tv\":null,"
+            + "\"limitFrom\":\"5\"},\"providerName\":\"PingPerfect\"}";
+
+    @Test
+    void feed_shouldEmitEveryOfferOnceItsObjectIsComplete() {
+        byte[] body = ("[" + FIRST_OFFER + ",\n " + SECOND_OFFER + "]").getBytes(StandardCharsets.UTF_8);
+        int endOfFirstOffer = ("[" + FIRST_OFFER).getBytes(StandardCharsets.UTF_8).length;
+        PingPerfectOfferParser parser = new PingPerfectOfferParser();
+        List<InternetOffer> offers = new ArrayList<>();
+
+        // Byte by byte, which also splits the multibyte characters
+        for (int i = 0; i < body.length; i++) {
+            offers.addAll(parser.feed(ByteBuffer.wrap(body, i, 1)));
+            if (i == endOfFirstOffer - 2) {
+                assertTrue(offers.isEmpty(), "No offer before its closing brace");
+            } else if (i == endOfFirstOffer - 1) {
+                assertEquals(1, offers.size(), "The first offer is emitted with its closing brace");
+            }
+        }
+        offers.addAll(parser.finish());
+
+        assertEquals(2, offers.size());
+        InternetOffer first = offers.get(0);
+        assertEquals("PingPerfect", first.getProviderName());
+        assertEquals(100, first.getSpeed());
+        assertEquals(24, first.getDurationInMonths());
+        assertEquals("Glasfaser München", first.getConnectionType());
+        assertEquals("BasicTV", first.getTv());
+        assertEquals(10, first.getLimitFrom());
+        assertEquals(35, first.getMaxAge());
+        assertEquals(2500, first.getMonthlyCostInCent());
+        assertTrue(first.getInstallationService());
+        assertEquals(0, first.getAfterTwoYearsMonthlyCost());
+        assertTrue(first.getProductId().startsWith("ping-"));
+
+        InternetOffer second = offers.get(1);
+        assertEquals(50, second.getSpeed());
+        assertNull(second.getTv());
+        assertEquals(5, second.getLimitFrom()); // Numeric strings are accepted for optional numbers
+        assertEquals(0, second.getMaxAge());
+        assertFalse(second.getInstallationService());
+
+        // The same content yields the same offers in a single chunk
+        assertEquals(offers.stream().map(InternetOffer::getProductId).toList(),
+                parse("[" + FIRST_OFFER + ",\n " + SECOND_OFFER + "]").stream().map(InternetOffer::getProductId).toList());
+    }
+
+    @Test
+    void feed_shouldSkipInvalidOffers() {
+        String stringSpeed = FIRST_OFFER.replace("\"speed\":100", "\"speed\":\"100\"");
+        String longSpeed = FIRST_OFFER.replace("\"speed\":100", "\"speed\":10000000000");
+        String noPricing = SECOND_OFFER.replace("\"pricingDetails\":{", "\"pricing\":{");
+        String scalarProductInfo = "{\"providerName\":\"PingPerfect\",\"productInfo\":7,"
+                + "\"pricingDetails\":{\"monthlyCostInCent\":2500,\"installationService\":\"yes\"}}";
+
+        List<InternetOffer> offers = parse("[" + String.join(",", stringSpeed, "42", FIRST_OFFER, longSpeed,
+                "[" + SECOND_OFFER + "]", noPricing, scalarProductInfo, "null", SECOND_OFFER) + "]");
+
+        assertEquals(List.of(100, 50), offers.stream().map(InternetOffer::getSpeed).toList());
+    }
+
+    @Test
+    void finish_shouldYieldNoOffers_forNonArrayResponses() {
+        assertTrue(parse("{\"message\":\"error\",\"offers\":[" + FIRST_OFFER + "]}").isEmpty());
+        assertTrue(parse("\"error\"").isEmpty());
+        assertTrue(parse("[]").isEmpty());
+    }
+
+    @Test
+    void finish_shouldFail_forEmptyTruncatedOrInvalidResponses() {
+        assertThrows(DecodingException.class, () -> parse(""));
+        assertThrows(DecodingException.class, () -> parse("[" + FIRST_OFFER + ",{\"providerName\":"));
+        assertThrows(DecodingException.class, () -> parse("[" + FIRST_OFFER + "}"));
+    }
+
+    private static List<InternetOffer> parse(String body) {
+        PingPerfectOfferParser parser = new PingPerfectOfferParser();
+        List<InternetOffer> offers = new ArrayList<>(parser.feed(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))));
+        offers.addAll(parser.finish());
+        return offers;
+    }
+}
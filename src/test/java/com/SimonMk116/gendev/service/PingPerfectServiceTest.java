@@ -1,23 +1,32 @@
 package com.SimonMk116.gendev.service;
 
+import com.SimonMk116.gendev.dto.FilterDataDto;
 import com.SimonMk116.gendev.dto.SearchRequests;
 import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
 import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectClient;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectOfferParser;
 import com.SimonMk116.gendev.service.pingperfectservice.PingPerfectService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,6 +51,16 @@ class PingPerfectServiceTest {
         testAddress = new RequestAddress("TestStreet", "10", "TestCity", "12345", "DE");
     }
 
+    // The client streams the offers of the response through the parser
+    private static Flux<InternetOffer> parse(JsonNode response) {
+        return Flux.defer(() -> {
+            PingPerfectOfferParser parser = new PingPerfectOfferParser();
+            List<InternetOffer> offers = new ArrayList<>(parser.feed(ByteBuffer.wrap(response.toString().getBytes(StandardCharsets.UTF_8))));
+            offers.addAll(parser.finish());
+            return Flux.fromIterable(offers);
+        });
+    }
+
     private ObjectNode createDummyOfferNode(int speed, int monthlyCost, int duration, String connType, String tv, Integer limitFrom, Integer maxAge, String installationServiceText) {
         ObjectNode offerNode = objectMapper.createObjectNode();
         offerNode.put("providerName", "PingPerfect");
@@ -70,7 +89,7 @@ class PingPerfectServiceTest {
         clientResponse.add(createDummyOfferNode(100, 2500, 24, "Fiber", "BasicTV", 10, 35, "yes"));
         clientResponse.add(createDummyOfferNode(50, 1999, 12, "DSL", "PremiumTV", 5, null, "no"));
 
-        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(clientResponse);
+        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(parse(clientResponse));
 
         // Act
         Flux<InternetOffer> offersFlux = pingPerfectService.getOffers(testAddress);
@@ -79,7 +98,7 @@ class PingPerfectServiceTest {
         StepVerifier.create(offersFlux)
                 .expectNextMatches(offer -> {
                     assertEquals("PingPerfect", offer.getProviderName());
-                    assertNotNull(offer.getProductId()); // UUID is random, just check it exists
+                    assertTrue(offer.getProductId().startsWith("ping-")); // Content-derived id
                     assertEquals(100, offer.getSpeed());
                     assertEquals(24, offer.getDurationInMonths());
                     assertEquals("Fiber", offer.getConnectionType());
@@ -112,9 +131,45 @@ class PingPerfectServiceTest {
     }
 
     @Test
-    void getOffers_shouldReturnEmptyFlux_whenClientReturnsNull() {
+    void getOffers_shouldAssignStableContentDerivedProductIds() {
+        // Arrange
+        ArrayNode clientResponse = objectMapper.createArrayNode();
+        clientResponse.add(createDummyOfferNode(100, 2500, 24, "Fiber", "BasicTV", 10, 35, "yes"));
+        clientResponse.add(createDummyOfferNode(50, 1999, 12, "DSL", "PremiumTV", 5, null, "no"));
+
+        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(parse(clientResponse));
+
+        // Act
+        List<String> firstSearch = pingPerfectService.getOffers(testAddress).map(InternetOffer::getProductId).collectList().block();
+        List<String> secondSearch = pingPerfectService.getOffers(testAddress).map(InternetOffer::getProductId).collectList().block();
+
+        // Assert
+        assertEquals(firstSearch, secondSearch, "The same tariff should keep its id across searches");
+        assertNotEquals(firstSearch.get(0), firstSearch.get(1), "Different tariffs should get different ids");
+    }
+
+    @Test
+    void getOffers_shouldRequestFibreOnly_whenFilterAsksForFiber() {
+        // Arrange
+        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(parse(objectMapper.createArrayNode()));
+        FilterDataDto filters = new FilterDataDto();
+        filters.setConnectionType("Fiber");
+
+        // Act
+        StepVerifier.create(pingPerfectService.getOffers(testAddress, OfferFilter.from(filters))).verifyComplete();
+        StepVerifier.create(pingPerfectService.getOffers(testAddress)).verifyComplete();
+
+        // Assert
+        ArgumentCaptor<SearchRequests> captor = ArgumentCaptor.forClass(SearchRequests.class);
+        verify(pingPerfectClient, times(2)).getInternetOffers(captor.capture());
+        assertTrue(captor.getAllValues().get(0).isWantsFibre());
+        assertFalse(captor.getAllValues().get(1).isWantsFibre());
+    }
+
+    @Test
+    void getOffers_shouldReturnEmptyFlux_whenClientCompletesEmpty() {
         // Arrange
-        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(null);
+        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(Flux.empty());
 
         // Act
         Flux<InternetOffer> offersFlux = pingPerfectService.getOffers(testAddress);
@@ -133,7 +188,7 @@ class PingPerfectServiceTest {
         // Arrange
         ObjectNode nonArrayResponse = objectMapper.createObjectNode();
         nonArrayResponse.put("message", "error");
-        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(nonArrayResponse);
+        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(parse(nonArrayResponse));
 
         // Act
         Flux<InternetOffer> offersFlux = pingPerfectService.getOffers(testAddress);
@@ -167,7 +222,7 @@ class PingPerfectServiceTest {
         clientResponse.add(createDummyOfferNode(75, 2200, 18, "Cable", "None", null, null, "no"));
 
 
-        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(clientResponse);
+        when(pingPerfectClient.getInternetOffers(any(SearchRequests.class))).thenReturn(parse(clientResponse));
 
         // Act
         Flux<InternetOffer> offersFlux = pingPerfectService.getOffers(testAddress);
@@ -0,0 +1,204 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.controller.OfferController;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.cache.ProviderOfferCache;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderOfferCacheTest {
+
+    private MockEnvironment environment;
+    private RequestAddress address;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        address = new RequestAddress();
+        address.setStrasse("Hauptstraße");
+        address.setHausnummer("1");
+        address.setPostleitzahl("10115");
+        address.setStadt("Berlin");
+        address.setLand("DE");
+    }
+
+    private static InternetOffer offer(String productId) {
+        InternetOffer offer = new InternetOffer();
+        offer.setProductId(productId);
+        offer.setProviderName("Test");
+        return offer;
+    }
+
+    @Test
+    void wrap_shouldServeRepeatedSearchFromCacheWithinTtl() {
+        // Arrange
+        environment.setProperty("provider.test.cache-ttl", "PT1M");
+        AtomicInteger calls = new AtomicInteger();
+        OfferController.InternetOfferService cached = new ProviderOfferCache(environment).wrap("test", a -> {
+            calls.incrementAndGet();
+            return Flux.just(offer("1"), offer("2"));
+        });
+
+        // Act & Assert
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(2).verifyComplete();
+
+        RequestAddress sameAddress = new RequestAddress();
+        sameAddress.setStrasse("  hauptstraße ");
+        sameAddress.setHausnummer("1");
+        sameAddress.setPostleitzahl("10115");
+        sameAddress.setStadt("BERLIN");
+        sameAddress.setLand("de");
+        StepVerifier.create(cached.getOffers(sameAddress)).expectNextCount(2).verifyComplete();
+
+        assertEquals(1, calls.get(), "Second search for the same normalized address should hit the cache");
+    }
+
+    @Test
+    void wrap_shouldServeStaleEntryAndRefreshInBackground() throws InterruptedException {
+        // Arrange
+        environment.setProperty("provider.test.cache-ttl", "PT0.05S");
+        environment.setProperty("provider.test.cache-stale-while-revalidate", "PT1M");
+        AtomicInteger calls = new AtomicInteger();
+        OfferController.InternetOfferService cached = new ProviderOfferCache(environment).wrap("test", a ->
+                Flux.just(offer("v" + calls.incrementAndGet())));
+
+        StepVerifier.create(cached.getOffers(address))
+                .assertNext(o -> assertEquals("v1", o.getProductId()))
+                .verifyComplete();
+        Thread.sleep(100);
+
+        // Act & Assert - the expired entry is still served while a refresh runs
+        StepVerifier.create(cached.getOffers(address))
+                .assertNext(o -> assertEquals("v1", o.getProductId()))
+                .verifyComplete();
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (calls.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, calls.get(), "A background refresh should have been triggered");
+        Thread.sleep(20); // give the refresh a moment to store its result
+
+        StepVerifier.create(cached.getOffers(address))
+                .assertNext(o -> assertEquals("v2", o.getProductId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void wrap_shouldRefetchOnceStaleWindowHasPassed() throws InterruptedException {
+        // Arrange
+        environment.setProperty("provider.test.cache-ttl", "PT0.02S");
+        environment.setProperty("provider.test.cache-stale-while-revalidate", "PT0.02S");
+        AtomicInteger calls = new AtomicInteger();
+        OfferController.InternetOfferService cached = new ProviderOfferCache(environment).wrap("test", a ->
+                Flux.just(offer("v" + calls.incrementAndGet())));
+
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(1).verifyComplete();
+        Thread.sleep(80);
+
+        // Act & Assert
+        StepVerifier.create(cached.getOffers(address))
+                .assertNext(o -> assertEquals("v2", o.getProductId()))
+                .verifyComplete();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void wrap_shouldNotCacheErrorsOrEmptyResults() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        OfferController.InternetOfferService cached = new ProviderOfferCache(environment).wrap("test", a -> {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                return Flux.concat(Flux.just(offer("partial")), Flux.error(new RuntimeException("boom")));
+            }
+            return Flux.empty();
+        });
+
+        // Act & Assert
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(1).verifyError(RuntimeException.class);
+        StepVerifier.create(cached.getOffers(address)).verifyComplete();
+        StepVerifier.create(cached.getOffers(address)).verifyComplete();
+
+        assertEquals(3, calls.get(), "Failed and empty results must not be served from the cache");
+    }
+
+    @Test
+    void wrap_shouldNotCachePartialResultsOfProvidersThatGaveUp() {
+        // Arrange: like the streaming providers, give up after some offers, behind a circuit breaker
+        CircuitBreaker breaker = new CircuitBreaker("test", 50, 10, 10, Duration.ofSeconds(30), 1);
+        AtomicInteger calls = new AtomicInteger();
+        OfferController.InternetOfferService cached = new ProviderOfferCache(environment).wrap("test", a -> {
+            calls.incrementAndGet();
+            return breaker.execute(() -> Flux.concat(Flux.just(offer("1"), offer("2")), Flux.<InternetOffer>error(new RuntimeException("boom")))
+                    .onErrorResume(CircuitBreaker::giveUp));
+        });
+
+        // Act & Assert
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(2).verifyComplete();
+
+        assertEquals(2, calls.get(), "A partial result must not be served from the cache");
+    }
+
+    @Test
+    void wrap_shouldKeepStaleEntryWhenRefreshGivesUp() throws InterruptedException {
+        // Arrange
+        environment.setProperty("provider.test.cache-ttl", "PT0.05S");
+        environment.setProperty("provider.test.cache-stale-while-revalidate", "PT1M");
+        AtomicInteger calls = new AtomicInteger();
+        OfferController.InternetOfferService cached = new ProviderOfferCache(environment).wrap("test", a -> {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                return Flux.just(offer("v1"), offer("v1b"));
+            }
+            return Flux.concat(Flux.just(offer("v" + call)), Flux.<InternetOffer>error(new RuntimeException("boom")))
+                    .onErrorResume(CircuitBreaker::giveUp);
+        });
+
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(2).verifyComplete();
+        Thread.sleep(100);
+
+        // Act - the expired entry is served while a refresh runs and gives up
+        StepVerifier.create(cached.getOffers(address)).expectNextCount(2).verifyComplete();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (calls.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(20); // give the refresh a moment to finish
+
+        // Assert - the stale entry was not replaced by the partial result
+        StepVerifier.create(cached.getOffers(address))
+                .assertNext(o -> assertEquals("v1", o.getProductId()))
+                .assertNext(o -> assertEquals("v1b", o.getProductId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void wrap_shouldKeepProvidersSeparate() {
+        // Arrange
+        ProviderOfferCache cache = new ProviderOfferCache(environment);
+        OfferController.InternetOfferService first = cache.wrap("first", a -> Flux.just(offer("a")));
+        OfferController.InternetOfferService second = cache.wrap("second", a -> Flux.just(offer("b")));
+
+        // Act & Assert
+        StepVerifier.create(first.getOffers(address))
+                .assertNext(o -> assertEquals("a", o.getProductId()))
+                .verifyComplete();
+        StepVerifier.create(second.getOffers(address))
+                .assertNext(o -> assertEquals("b", o.getProductId()))
+                .verifyComplete();
+    }
+}
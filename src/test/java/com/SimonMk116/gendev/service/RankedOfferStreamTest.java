@@ -0,0 +1,135 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.dto.SortCriteriaDataDto;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.service.aggregation.OfferSortKey;
+import com.SimonMk116.gendev.service.aggregation.RankedOfferStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedOfferStreamTest {
+
+    private RankedOfferStream rankedOfferStream;
+
+    @BeforeEach
+    void setUp() {
+        rankedOfferStream = new RankedOfferStream();
+        ReflectionTestUtils.setField(rankedOfferStream, "snapshotInterval", Duration.ofMillis(50));
+    }
+
+    private static InternetOffer offer(String productId, int monthlyCostInCent, int speed) {
+        return InternetOffer.builder()
+                .productId(productId)
+                .providerName("Provider")
+                .monthlyCostInCent(monthlyCostInCent)
+                .speed(speed)
+                .build();
+    }
+
+    private static SortCriteriaDataDto sortBy(String key, String order) {
+        SortCriteriaDataDto sortCriteria = new SortCriteriaDataDto();
+        sortCriteria.setKey(key);
+        sortCriteria.setOrder(order);
+        return sortCriteria;
+    }
+
+    private static List<String> ids(ServerSentEvent<List<InternetOffer>> event) {
+        return event.data().stream().map(InternetOffer::getProductId).toList();
+    }
+
+    @Test
+    void rank_shouldEmitFinalEventWithTopOffersInOrder() {
+        // Arrange
+        Flux<InternetOffer> offers = Flux.just(
+                offer("a", 3000, 50), offer("b", 1000, 100), offer("c", 2000, 250), offer("d", 500, 16), offer("e", 2500, 1000));
+
+        // Act
+        List<ServerSentEvent<List<InternetOffer>>> events =
+                rankedOfferStream.rank(offers, sortBy("monthlyCost", null), 3).collectList().block();
+
+        // Assert
+        ServerSentEvent<List<InternetOffer>> last = events.get(events.size() - 1);
+        assertEquals(RankedOfferStream.FINAL_EVENT, last.event());
+        assertEquals(List.of("d", "b", "c"), ids(last));
+    }
+
+    @Test
+    void rank_shouldRankSpeedDescendingByDefaultAndHonorExplicitOrder() {
+        // Arrange
+        Flux<InternetOffer> offers = Flux.just(offer("a", 3000, 50), offer("b", 1000, 100), offer("c", 2000, 250));
+
+        // Act
+        List<ServerSentEvent<List<InternetOffer>>> bySpeed =
+                rankedOfferStream.rank(offers, sortBy("speed", null), 2).collectList().block();
+        List<ServerSentEvent<List<InternetOffer>>> bySpeedAscending =
+                rankedOfferStream.rank(offers, sortBy("speed", "asc"), 2).collectList().block();
+
+        // Assert
+        assertEquals(List.of("c", "b"), ids(bySpeed.get(bySpeed.size() - 1)));
+        assertEquals(List.of("a", "b"), ids(bySpeedAscending.get(bySpeedAscending.size() - 1)));
+    }
+
+    @Test
+    void rank_shouldEmitSnapshotsWhileOffersStreamIn() {
+        // Arrange - the second batch arrives well after the first snapshot interval
+        Flux<InternetOffer> offers = Flux.concat(
+                Flux.just(offer("a", 3000, 50), offer("b", 2000, 50)),
+                Flux.just(offer("c", 1000, 50)).delaySubscription(Duration.ofMillis(200)));
+
+        // Act & Assert
+        StepVerifier.create(rankedOfferStream.rank(offers, sortBy("monthlyCost", "asc"), 2))
+                .assertNext(event -> {
+                    assertEquals(RankedOfferStream.SNAPSHOT_EVENT, event.event());
+                    assertEquals(List.of("b", "a"), ids(event));
+                })
+                .assertNext(event -> {
+                    assertEquals(RankedOfferStream.SNAPSHOT_EVENT, event.event());
+                    assertEquals(List.of("c", "b"), ids(event));
+                })
+                .assertNext(event -> {
+                    assertEquals(RankedOfferStream.FINAL_EVENT, event.event());
+                    assertEquals(List.of("c", "b"), ids(event));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void effectivePrice_shouldDeductVouchersOverTwentyFourMonths() {
+        // Arrange - 40 EUR/month, 120 EUR absolute voucher => 35 EUR/month effective
+        InternetOffer absolute = offer("abs", 4000, 100);
+        absolute.setVoucherType("ABSOLUTE");
+        absolute.setDiscountInCent(12000);
+        // 38 EUR/month, 10 % capped at 48 EUR => 36 EUR/month effective
+        InternetOffer percentage = offer("pct", 3800, 100);
+        percentage.setVoucherType("PERCENTAGE");
+        percentage.setPercentage(10);
+        percentage.setMaxDiscountInCent(4800);
+        // 36.50 EUR/month, voucher not applicable below its minimum order value
+        InternetOffer belowMinimum = offer("min", 3650, 100);
+        belowMinimum.setVoucherType("ABSOLUTE");
+        belowMinimum.setDiscountInCent(12000);
+        belowMinimum.setMinOrderValueInCent(100000);
+
+        // Act
+        List<ServerSentEvent<List<InternetOffer>>> events = rankedOfferStream.rank(
+                Flux.just(percentage, belowMinimum, absolute), sortBy("effectivePrice", null), 3).collectList().block();
+
+        // Assert
+        assertEquals(List.of("abs", "pct", "min"), ids(events.get(events.size() - 1)));
+    }
+
+    @Test
+    void fromKey_shouldRejectUnknownKey() {
+        assertThrows(IllegalArgumentException.class, () -> OfferSortKey.fromKey("cheapest"));
+        assertEquals(OfferSortKey.EFFECTIVE_PRICE, OfferSortKey.fromKey("effectiveprice"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.resilience.ConcurrencyLimiter;
+import com.SimonMk116.gendev.service.resilience.RequestHedger;
+import com.SimonMk116.gendev.service.resilience.RequestHedgers;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+    private static final Duration MIN_DELAY = Duration.ofMillis(50);
+
+    /**
+     * A cold request whose first subscription answers after {@code firstDelay}, later ones immediately.
+     */
+    private static Mono<String> slowFirstAttempt(AtomicInteger attempts, Duration firstDelay) {
+        return Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.delay(firstDelay).thenReturn("primary")
+                : Mono.just("hedge"));
+    }
+
+    private static void warmUp(RequestHedger hedger, int requests) {
+        for (int i = 0; i < requests; i++) {
+            hedger.hedge(Mono.just("fast")).block();
+        }
+    }
+
+    @Test
+    void hedge_shouldPassRequestThroughWhenDisabled() {
+        RequestHedger hedger = RequestHedger.disabled("test");
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.hedge(slowFirstAttempt(attempts, Duration.ofMillis(200))).block();
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedger.getHedges());
+    }
+
+    @Test
+    void hedge_shouldNotHedgeBeforeEnoughLatenciesAreKnown() {
+        RequestHedger hedger = new RequestHedger("test", true, 100, 5, 16, MIN_DELAY);
+        warmUp(hedger, 4);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedger.hedge(slowFirstAttempt(attempts, Duration.ofMillis(200))).block();
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void hedge_shouldTakeTheHedgeWhenThePrimaryIsSlow() {
+        RequestHedger hedger = new RequestHedger("test", true, 100, 5, 16, MIN_DELAY);
+        warmUp(hedger, 5);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = hedger.hedge(slowFirstAttempt(attempts, Duration.ofSeconds(5))).block(Duration.ofSeconds(2));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, hedger.getHedges());
+        assertTrue(elapsed.compareTo(MIN_DELAY) >= 0, "The hedge must wait for the hedge delay, took " + elapsed);
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "Expected the hedge to win, took " + elapsed);
+    }
+
+    @Test
+    void hedge_shouldKeepHedgesWithinBudget() {
+        // 25 percent budget: the 8 warm-up requests earn 2 hedge tokens, every further request another quarter
+        RequestHedger hedger = new RequestHedger("test", true, 25, 5, 16, MIN_DELAY);
+        warmUp(hedger, 8);
+        StringBuilder results = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            AtomicInteger attempts = new AtomicInteger();
+            Mono<String> primaryHangs = Mono.defer(() -> attempts.incrementAndGet() == 1 ? Mono.never() : Mono.just("hedge"));
+            results.append(hedger.hedge(primaryHangs).timeout(Duration.ofMillis(300), Mono.just("timeout")).block()).append(',');
+        }
+
+        assertEquals(14, hedger.getRequests());
+        assertEquals(3, hedger.getHedges());
+        assertTrue(hedger.getHedges() <= hedger.getRequests() * 0.25);
+        assertEquals("hedge,hedge,timeout,hedge,timeout,timeout,", results.toString());
+    }
+
+    @Test
+    void hedgeMany_shouldEmitOnlyTheElementsOfTheWinningAttempt() {
+        RequestHedger hedger = new RequestHedger("test", true, 100, 5, 16, MIN_DELAY);
+        warmUp(hedger, 5);
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<String> request = Flux.defer(() -> attempts.incrementAndGet() == 1
+                ? Flux.just("p1").concatWith(Flux.just("p2").delayElements(Duration.ofSeconds(5)))
+                : Flux.just("h1", "h2"));
+
+        List<String> result = hedger.hedgeMany(request).collectList().block(Duration.ofSeconds(2));
+
+        assertEquals(List.of("h1", "h2"), result);
+    }
+
+    @Test
+    void hedgeMany_shouldNotHedgeWhileWaitingForALimiterSlot() {
+        RequestHedger hedger = new RequestHedger("test", true, 100, 5, 16, MIN_DELAY);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1, 2, 0.5);
+        for (int i = 0; i < 5; i++) {
+            hedger.hedgeMany(Flux.just("fast"), limiter).blockLast();
+        }
+        // Another request holds the only slot for several hedge delays
+        Disposable occupant = limiter.limit(Flux.never()).subscribe();
+        Mono.delay(Duration.ofMillis(300)).subscribe(tick -> occupant.dispose());
+        AtomicInteger attempts = new AtomicInteger();
+        Flux<String> request = Flux.defer(() -> {
+            attempts.incrementAndGet();
+            return Flux.just("answer");
+        });
+
+        List<String> result = hedger.hedgeMany(request, limiter).collectList().block(Duration.ofSeconds(2));
+
+        assertEquals(List.of("answer"), result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedger.getHedges());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void hedgeMany_shouldLetTheHedgeWaitForASlotOfItsOwn() {
+        RequestHedger hedger = new RequestHedger("test", true, 100, 5, 16, MIN_DELAY);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, 2, 2, 2, 0.5);
+        for (int i = 0; i < 5; i++) {
+            hedger.hedgeMany(Flux.just("fast"), limiter).blockLast();
+        }
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Flux<String> request = Flux.defer(() -> {
+            maxInFlight.accumulateAndGet(limiter.getInFlight(), Math::max);
+            return attempts.incrementAndGet() == 1 ? Flux.never() : Flux.just("hedge");
+        });
+
+        List<String> result = hedger.hedgeMany(request, limiter).collectList().block(Duration.ofSeconds(2));
+
+        assertEquals(List.of("hedge"), result);
+        assertEquals(1, hedger.getHedges());
+        assertEquals(2, maxInFlight.get(), "Primary and hedge should each hold a slot");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void forProvider_shouldOnlyEnableConfiguredProviders() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("provider.servus.hedge.enabled", "true")
+                .withProperty("provider.servus.hedge.min-delay", "PT0.1S");
+        environment.setConversionService(new ApplicationConversionService());
+        RequestHedgers hedgers = new RequestHedgers(environment);
+
+        assertTrue(hedgers.forProvider("servus").isEnabled());
+        assertFalse(hedgers.forProvider("verbyndich").isEnabled());
+        assertSame(hedgers.forProvider("servus"), hedgers.forProvider("servus"));
+    }
+}
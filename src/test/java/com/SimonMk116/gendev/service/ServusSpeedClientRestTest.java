@@ -1,59 +1,71 @@
 package com.SimonMk116.gendev.service;
 
+import com.SimonMk116.gendev.model.InternetOffer;
 import com.SimonMk116.gendev.model.RequestAddress;
 import com.SimonMk116.gendev.service.servusspeedservice.ServusSpeedClient;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.*;
 
-@ExtendWith(MockitoExtension.class)
 public class ServusSpeedClientRestTest {
 
-    @Mock
-    private RestTemplate restTemplate;
+    private MockWebServer server;
 
-    @Mock // WebClient needs to be mocked even if not directly used in this test method, due to @Autowired in client
-    private WebClient webClient;
-
-    @InjectMocks
     private ServusSpeedClient servusSpeedClient;
 
     private ObjectMapper objectMapper;
     private RequestAddress testAddress;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         objectMapper = new ObjectMapper();
-        // Manually inject ObjectMapper since @Autowired is on the field and @InjectMocks won't do it automatically for ObjectMapper
-        ReflectionTestUtils.setField(servusSpeedClient, "objectMapper", objectMapper);
-        ReflectionTestUtils.setField(servusSpeedClient, "baseUrl", "http://test-servusspeed-api.com");
+        server = new MockWebServer();
+        server.start();
+        servusSpeedClient = new ServusSpeedClient(WebClient.builder().build());
+        String baseUrl = server.url("/").toString();
+        ReflectionTestUtils.setField(servusSpeedClient, "baseUrl", baseUrl.substring(0, baseUrl.length() - 1));
 
         testAddress = new RequestAddress("TestStreet", "10", "TestCity", "12345", "DE");
     }
 
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private void enqueueJson(JsonNode body) {
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json").setBody(body.toString()));
+    }
+
+    private void enqueueStatus(int status) {
+        server.enqueue(new MockResponse().setResponseCode(status));
+    }
+
+    private List<String> getAvailableProductIds() {
+        Mono<List<String>> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        assertNotNull(result);
+        return result.block();
+    }
+
     private ObjectNode createProductIdsResponse(List<String> productIds) {
         ObjectNode responseNode = objectMapper.createObjectNode();
         ArrayNode productsArray = objectMapper.createArrayNode();
@@ -63,39 +75,36 @@ public class ServusSpeedClientRestTest {
     }
 
     @Test
-    void getAvailableProductIds_shouldReturnProductIds_whenApiCallIsSuccessful() {
+    void getAvailableProductIds_shouldReturnProductIds_whenApiCallIsSuccessful() throws Exception {
         // Arrange
         List<String> expectedIds = List.of("prod1", "prod2", "prod3");
         ObjectNode dummyResponse = createProductIdsResponse(expectedIds);
-        ResponseEntity<JsonNode> successResponse = new ResponseEntity<>(dummyResponse, HttpStatus.OK);
-
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenReturn(successResponse);
+        enqueueJson(dummyResponse);
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
         assertEquals(expectedIds.size(), result.size());
         assertTrue(result.containsAll(expectedIds));
-        verify(restTemplate, times(1)).postForEntity(
-                eq("http://test-servusspeed-api.com/api/external/available-products"), any(HttpEntity.class), eq(JsonNode.class));
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/api/external/available-products", request.getPath());
+        JsonNode sentAddress = objectMapper.readTree(request.getBody().readUtf8()).get("address");
+        assertEquals("TestStreet", sentAddress.get("strasse").asText());
+        assertEquals("DE", sentAddress.get("land").asText());
     }
 
     @Test
     void getAvailableProductIds_shouldReturnEmptyList_whenApiReturnsEmptyProductsArray() {
         // Arrange
         ObjectNode dummyResponse = createProductIdsResponse(List.of());
-        ResponseEntity<JsonNode> successResponse = new ResponseEntity<>(dummyResponse, HttpStatus.OK);
-
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenReturn(successResponse);
+        enqueueJson(dummyResponse);
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
@@ -105,14 +114,10 @@ public class ServusSpeedClientRestTest {
     @Test
     void getAvailableProductIds_shouldReturnEmptyList_whenApiReturnsNullBody() {
         // Arrange
-        ResponseEntity<JsonNode> nullBodyResponse = new ResponseEntity<>(null, HttpStatus.OK);
-
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenReturn(nullBodyResponse);
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json"));
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
@@ -123,14 +128,10 @@ public class ServusSpeedClientRestTest {
     void getAvailableProductIds_shouldReturnEmptyList_whenApiReturnsNonObjectResponse() {
         // Arrange (e.g., just a string or an array directly)
         JsonNode nonObjectResponse = objectMapper.createArrayNode().add("id1").add("id2"); // Not an object with "availableProducts"
-        ResponseEntity<JsonNode> response = new ResponseEntity<>(nonObjectResponse, HttpStatus.OK);
-
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenReturn(response);
+        enqueueJson(nonObjectResponse);
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
@@ -141,14 +142,10 @@ public class ServusSpeedClientRestTest {
     void getAvailableProductIds_shouldReturnEmptyList_whenApiReturnsObjectWithoutAvailableProducts() {
         // Arrange (e.g., just a string or an array directly)
         ObjectNode missingFieldResponse = objectMapper.createObjectNode().put("someOtherField", "value");
-        ResponseEntity<JsonNode> response = new ResponseEntity<>(missingFieldResponse, HttpStatus.OK);
-
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenReturn(response);
+        enqueueJson(missingFieldResponse);
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
@@ -158,45 +155,61 @@ public class ServusSpeedClientRestTest {
     @Test
     void getAvailableProductIds_shouldReturnEmptyList_onHttpClientError() {
         // Arrange (4xx error)
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        enqueueStatus(400);
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
+        assertEquals(1, server.getRequestCount(), "Client errors must not be retried");
     }
 
     @Test
     void getAvailableProductIds_shouldReturnEmptyList_onHttpServerError() {
         // Arrange (5xx error)
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+        enqueueStatus(500);
+        enqueueStatus(500);
+        enqueueStatus(500);
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
+        assertEquals(ServusSpeedClient.MAX_RETRIES, server.getRequestCount());
     }
 
     @Test
-    void getAvailableProductIds_shouldReturnEmptyList_onRestClientException() {
+    void getAvailableProductIds_shouldReturnEmptyList_onNetworkError() {
         // Arrange (network error, etc.)
-        when(restTemplate.postForEntity(
-                any(String.class), any(HttpEntity.class), eq(JsonNode.class)))
-                .thenThrow(new RestClientException("Connection refused"));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
 
         // Act
-        List<String> result = ReflectionTestUtils.invokeMethod(servusSpeedClient, "getAvailableProductIds", testAddress);
+        List<String> result = getAvailableProductIds();
 
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void getOffers_shouldNotCallApiBeforeSubscription() throws Exception {
+        // Arrange
+        enqueueJson(createProductIdsResponse(List.of()));
+
+        // Act
+        Flux<InternetOffer> offersFlux = servusSpeedClient.getOffers(testAddress);
+
+        // Assert - assembling the Flux must not block on or trigger the available-products call
+        assertEquals(0, server.getRequestCount());
+        StepVerifier.create(offersFlux)
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        assertEquals(1, server.getRequestCount());
+    }
 }
@@ -0,0 +1,96 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.benchmark.RegexVerbynDichDescriptionParser;
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichDescriptionParser;
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichDescriptionParser.ParsedDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerbynDichDescriptionParserTest {
+
+    private static final String GOLDEN_FILE = "/verbyndich/description-golden.jsonl";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<JsonNode> readGoldenFile() throws IOException {
+        List<JsonNode> cases = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream(GOLDEN_FILE)) {
+            assertNotNull(in, "Golden file missing: " + GOLDEN_FILE);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    cases.add(objectMapper.readTree(line));
+                }
+            }
+        }
+        return cases;
+    }
+
+    @Test
+    void parse_shouldMatchGoldenFile() throws IOException {
+        // Arrange
+        List<JsonNode> cases = readGoldenFile();
+        assertFalse(cases.isEmpty());
+
+        for (JsonNode goldenCase : cases) {
+            String description = goldenCase.get("description").asText();
+
+            // Act & Assert - the golden file was recorded from the former regex implementation
+            if (goldenCase.has("error")) {
+                assertThrows(NumberFormatException.class, () -> VerbynDichDescriptionParser.parse(description), description);
+                assertThrows(NumberFormatException.class, () -> RegexVerbynDichDescriptionParser.parse(description), description);
+            } else {
+                JsonNode expected = goldenCase.get("expected");
+                assertEquals(expected, objectMapper.valueToTree(VerbynDichDescriptionParser.parse(description)), description);
+                assertEquals(expected, objectMapper.valueToTree(RegexVerbynDichDescriptionParser.parse(description)), description);
+            }
+        }
+    }
+
+    @Test
+    void parse_shouldMatchRegexImplementationOnGeneratedDescriptions() {
+        // Arrange - random concatenations of grammar fragments, near misses and separators
+        String[] fragments = {
+                "Für nur ", "€ im Monat", " Mbit/s", "Mbit/s", "monatliche Preis ", "Mindestvertragslaufzeit ", " Monate",
+                "nur für Personen unter ", "einmaligen Rabatt von ", "maximale", "maximaler", "maximalen", "maximales",
+                " Rabatt beträgt ", "€", "E", "Fernsehsender enthalten", ":", " ", "\n", "\t", "\r", ".", ",",
+                "RobynTV+", "Ab ", "GB pro Monat", "Mindestbestellwert beträgt ", "DSL", "dsl", "Cable", "cABLE",
+                "Fiber", "FIBER", "Fibre", "ſ", "ı", "İ", "K", "٣", "0", "7", "42", "1000", "99999999999", "ä", "x"
+        };
+        Random random = new Random(4711);
+
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder description = new StringBuilder();
+            int parts = random.nextInt(12);
+            for (int i = 0; i < parts; i++) {
+                description.append(fragments[random.nextInt(fragments.length)]);
+            }
+            String text = description.toString();
+
+            // Act
+            ParsedDescription expected;
+            try {
+                expected = RegexVerbynDichDescriptionParser.parse(text);
+            } catch (NumberFormatException e) {
+                assertThrows(NumberFormatException.class, () -> VerbynDichDescriptionParser.parse(text), text);
+                continue;
+            }
+
+            // Assert
+            assertEquals(expected, VerbynDichDescriptionParser.parse(text), text);
+        }
+    }
+}
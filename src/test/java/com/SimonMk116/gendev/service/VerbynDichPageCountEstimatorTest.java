@@ -0,0 +1,66 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichPageCountEstimator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VerbynDichPageCountEstimatorTest {
+
+    private MockEnvironment environment;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+    }
+
+    @Test
+    void estimatePages_shouldUseDefaultForUnknownPrefix() {
+        // Arrange
+        environment.setProperty("provider.verbyndich.page-estimate.default-pages", "4");
+        VerbynDichPageCountEstimator estimator = new VerbynDichPageCountEstimator(environment);
+
+        // Act & Assert
+        assertEquals(4, estimator.estimatePages("10115"));
+        assertEquals(4, estimator.estimatePages(null));
+    }
+
+    @Test
+    void recordPages_shouldLearnPerPrefixWithMovingAverage() {
+        // Arrange
+        environment.setProperty("provider.verbyndich.page-estimate.alpha", "0.5");
+        VerbynDichPageCountEstimator estimator = new VerbynDichPageCountEstimator(environment);
+
+        // Act
+        estimator.recordPages("10115", 2);
+        estimator.recordPages("10117", 6);
+        estimator.recordPages("80331", 9);
+
+        // Assert - 101xx: first observation 2, then 2 + 0.5 * (6 - 2) = 4
+        assertEquals(4, estimator.estimatePages("10178"));
+        assertEquals(9, estimator.estimatePages("80333"));
+    }
+
+    @Test
+    void estimatePages_shouldDecayTowardsGlobalAverage() throws InterruptedException {
+        // Arrange
+        environment.setProperty("provider.verbyndich.page-estimate.alpha", "0.5");
+        environment.setProperty("provider.verbyndich.page-estimate.default-pages", "10");
+        environment.setProperty("provider.verbyndich.page-estimate.half-life", "PT0.05S");
+        VerbynDichPageCountEstimator estimator = new VerbynDichPageCountEstimator(environment);
+
+        // Global average: 10 + 0.5 * (2 - 10) = 6
+        estimator.recordPages("10115", 2);
+        assertEquals(2, estimator.estimatePages("10115"));
+
+        // Act
+        Thread.sleep(300);
+
+        // Assert - after six half-lives the prefix estimate has almost no weight left
+        assertEquals(6, estimator.estimatePages("10115"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichPageCountEstimator;
+import com.SimonMk116.gendev.service.verbyndichservice.VerbynDichService;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerbynDichServiceTest {
+
+    private MockWebServer server;
+    private VerbynDichPageCountEstimator estimator;
+    private VerbynDichService verbynDichService;
+    private RequestAddress address;
+    private final Set<Integer> requestedPages = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, AtomicInteger> requestsPerPage = new ConcurrentHashMap<>();
+    private volatile int totalPages;
+    private volatile long responseDelayMillis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull RecordedRequest request) {
+                int page = Integer.parseInt(request.getRequestUrl().queryParameter("page"));
+                requestedPages.add(page);
+                requestsPerPage.computeIfAbsent(page, p -> new AtomicInteger()).incrementAndGet();
+                String body = page < totalPages
+                        ? "[{\"product\":\"VerbynDich " + page + "\",\"description\":\"Für nur " + (20 + page)
+                        + "€ im Monat erhalten Sie eine DSL-Verbindung mit einer Geschwindigkeit von 50 Mbit/s.\","
+                        + "\"last\":" + (page == totalPages - 1) + ",\"valid\":true}]"
+                        : "[]";
+                return new MockResponse()
+                        .setHeader("Content-Type", "application/json")
+                        .setBody(body)
+                        .setHeadersDelay(responseDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        estimator = new VerbynDichPageCountEstimator(environment);
+        verbynDichService = new VerbynDichService(WebClient.create(server.url("/check24/data").toString()), estimator);
+        ReflectionTestUtils.setField(verbynDichService, "apiKey", "test-api-key");
+
+        address = new RequestAddress();
+        address.setStrasse("Hauptstraße");
+        address.setHausnummer("1");
+        address.setPostleitzahl("10115");
+        address.setStadt("Berlin");
+        address.setLand("DE");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private List<String> fetchProviderNames() {
+        List<InternetOffer> offers = verbynDichService.getOffers(address).collectList().block();
+        return offers.stream().map(InternetOffer::getProviderName).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void getOffers_shouldFetchAllPagesAndSendApiKeyAndAddress() throws InterruptedException {
+        // Arrange
+        totalPages = 3;
+
+        // Act & Assert
+        StepVerifier.create(verbynDichService.getOffers(address))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("test-api-key", request.getRequestUrl().queryParameter("apiKey"));
+        assertEquals("Hauptstraße;1;Berlin;10115", request.getBody().readUtf8());
+    }
+
+    @Test
+    void getOffers_shouldOnlyRequestLearnedPageCountOnRepeatedSearch() {
+        // Arrange
+        totalPages = 2;
+        List<String> firstRun = fetchProviderNames();
+        // Without an estimate the default of 5 pages is requested up front
+        assertTrue(requestedPages.containsAll(Set.of(0, 1, 2, 3, 4)));
+        requestedPages.clear();
+        int requestsBefore = server.getRequestCount();
+
+        // Act
+        List<String> secondRun = fetchProviderNames();
+
+        // Assert
+        assertEquals(List.of("VerbynDich 0", "VerbynDich 1"), firstRun);
+        assertEquals(firstRun, secondRun);
+        assertEquals(Set.of(0, 1), requestedPages, "No page past the learned end should be requested");
+        assertEquals(2, server.getRequestCount() - requestsBefore);
+    }
+
+    @Test
+    void getOffers_shouldFetchPagesBeyondTooLowEstimateWithoutOvershooting() {
+        // Arrange
+        estimator.recordPages("10115", 2);
+        totalPages = 5;
+
+        // Act
+        List<String> providerNames = fetchProviderNames();
+
+        // Assert
+        assertEquals(List.of("VerbynDich 0", "VerbynDich 1", "VerbynDich 2", "VerbynDich 3", "VerbynDich 4"), providerNames);
+        assertEquals(Set.of(0, 1, 2, 3, 4), requestedPages);
+        assertEquals(5, server.getRequestCount());
+        assertEquals(3, estimator.estimatePages("10115"), "The estimate should move towards the observed page count");
+    }
+
+    @Test
+    void getOffers_shouldRequestEveryPageExactlyOnceAcrossParallelReaders() {
+        // Arrange: 8 readers on a slow upstream, with pages beyond the estimate that wait for their gate page
+        totalPages = 24;
+        responseDelayMillis = 20;
+
+        // Several rounds, as readers only race when their pages complete at the same time
+        for (int round = 0; round < 5; round++) {
+            String postalCode = "2000" + round;
+            address.setPostleitzahl(postalCode);
+            estimator.recordPages(postalCode, 16);
+            requestsPerPage.clear();
+
+            // Act
+            List<InternetOffer> offers = verbynDichService.getOffers(address).collectList().block(Duration.ofSeconds(20));
+
+            // Assert
+            assertEquals(24, offers.size());
+            for (int page = 0; page < 24; page++) {
+                AtomicInteger requests = requestsPerPage.get(page);
+                assertEquals(1, requests == null ? 0 : requests.get(), "Page " + page + " should be requested exactly once");
+            }
+            requestsPerPage.forEach((page, requests) ->
+                    assertEquals(1, requests.get(), "Page " + page + " should be requested at most once"));
+        }
+    }
+}
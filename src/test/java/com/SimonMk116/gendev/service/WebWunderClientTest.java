@@ -0,0 +1,181 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.config.ProviderHttpClients;
+import com.SimonMk116.gendev.dto.SearchRequests;
+import com.SimonMk116.gendev.service.webwunderservice.WebWunderClient;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.ConnectionType;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.Output;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ws.client.core.WebServiceTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebWunderClientTest {
+
+    private static final String ENVELOPE_START = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soap:Body><ns2:Output xmlns:ns2=\"http://webwunder.gendev7.check24.fun/offerservice\">";
+    private static final String ENVELOPE_END = "</ns2:Output></soap:Body></soap:Envelope>";
+
+    private MockWebServer server;
+    private ProviderHttpClients httpClients;
+    private WebWunderClient client;
+    private SearchRequests searchRequests;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+        marshaller.setContextPath("com.SimonMk116.gendev.service.webwunderservice.autogenerated");
+        marshaller.afterPropertiesSet();
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        httpClients = new ProviderHttpClients(environment, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+
+        WebServiceTemplate template = new WebServiceTemplate(marshaller);
+        template.setDefaultUri(server.url("/ws").toString());
+        template.setMessageSender(httpClients.messageSender("webwunder"));
+
+        client = new WebWunderClient(template);
+        client.setHttpClients(httpClients);
+        ReflectionTestUtils.setField(client, "apiKey", "test-key");
+        searchRequests = new SearchRequests("Street", "1", "City", "12345", "DE");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClients.closeAll();
+        server.shutdown();
+    }
+
+    @Test
+    void getInternetOffers_shouldUnmarshalTheOutput() throws InterruptedException {
+        // The Output element of the schema classes is unqualified
+        String output = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<Output xmlns:ns2=\"http://webwunder.gendev7.check24.fun/offerservice\">"
+                + product(1, "WebWunder Basic") + product(2, "WebWunder Pro") + "</Output></soap:Body></soap:Envelope>";
+        server.enqueue(soapResponse(output));
+        server.enqueue(soapResponse(output));
+
+        // The second call reuses the pooled marshaller and unmarshaller
+        for (int i = 0; i < 2; i++) {
+            Output result = client.getInternetOffers(searchRequests, ConnectionType.CABLE, true).block(Duration.ofSeconds(5));
+            assertNotNull(result);
+            assertEquals(List.of(1, 2), result.getProducts().stream().map(Product::getProductId).toList());
+        }
+
+        String body = server.takeRequest().getBody().readString(StandardCharsets.UTF_8);
+        assertTrue(body.contains("CABLE") && body.contains("legacyGetInternetOffers"), "Unexpected request: " + body);
+    }
+
+    @Test
+    void streamInternetOffers_shouldEmitTheProductsOfTheResponse() throws InterruptedException {
+        server.enqueue(soapResponse(ENVELOPE_START + product(1, "WebWunder Basic") + product(2, "WebWunder Pro") + ENVELOPE_END));
+
+        List<Product> products = client.streamInternetOffers(searchRequests, ConnectionType.DSL, true)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(products);
+        assertEquals(List.of(1, 2), products.stream().map(Product::getProductId).toList());
+        assertEquals("WebWunder Pro", products.get(1).getProviderName());
+        assertEquals(ConnectionType.DSL, products.get(1).getProductInfo().getConnectionType());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("test-key", request.getHeader("X-Api-Key"));
+        assertEquals("\"\"", request.getHeader("SOAPAction"));
+        String body = request.getBody().readString(StandardCharsets.UTF_8);
+        assertTrue(body.contains("legacyGetInternetOffers") && body.contains("Envelope"), "Unexpected request: " + body);
+    }
+
+    @Test
+    void streamInternetOffers_shouldReuseTheConnectionOnceTheResponseHasBeenRead() throws InterruptedException {
+        server.enqueue(soapResponse(ENVELOPE_START + product(1, "WebWunder Basic") + ENVELOPE_END));
+        server.enqueue(soapResponse(ENVELOPE_START + product(2, "WebWunder Pro") + ENVELOPE_END));
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(1, client.streamInternetOffers(searchRequests, ConnectionType.DSL, true)
+                    .count().block(Duration.ofSeconds(5)));
+        }
+
+        // The sequence number counts the requests on the same connection
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    void streamInternetOffers_shouldEmitTheFirstProductBeforeTheResponseIsComplete() {
+        String head = ENVELOPE_START + product(1, "WebWunder Basic");
+        // The rest of the body only follows after two seconds
+        server.enqueue(soapResponse(head + product(2, "WebWunder Pro") + ENVELOPE_END)
+                .throttleBody(head.getBytes(StandardCharsets.UTF_8).length, 2, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        Product first = client.streamInternetOffers(searchRequests, ConnectionType.DSL, true)
+                .blockFirst(Duration.ofSeconds(5));
+
+        assertNotNull(first);
+        assertEquals(1, first.getProductId());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0,
+                "The first product should not wait for the rest of the response");
+    }
+
+    @Test
+    void streamInternetOffers_shouldRetryAfterASoapFault() {
+        server.enqueue(soapResponse("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<soap:Fault><faultcode>soap:Server</faultcode><faultstring>Try again</faultstring></soap:Fault>"
+                + "</soap:Body></soap:Envelope>").setResponseCode(500));
+        server.enqueue(soapResponse(ENVELOPE_START + product(1, "WebWunder Basic") + ENVELOPE_END));
+
+        List<Product> products = client.streamInternetOffers(searchRequests, ConnectionType.DSL, true)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(products);
+        assertEquals(1, products.size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void streamInternetOffers_shouldNotRetryOnceProductsHaveBeenEmitted() {
+        // The body breaks off after the first product
+        server.enqueue(soapResponse(ENVELOPE_START + product(1, "WebWunder Basic") + "<ns2:prod"));
+
+        List<Product> products = client.streamInternetOffers(searchRequests, ConnectionType.DSL, true)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(products);
+        assertEquals(1, products.size());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private static MockResponse soapResponse(String body) {
+        return new MockResponse().setHeader("Content-Type", "text/xml; charset=utf-8").setBody(body);
+    }
+
+    private static String product(int productId, String providerName) {
+        return "<ns2:products><ns2:productId>" + productId + "</ns2:productId>"
+                + "<ns2:providerName>" + providerName + "</ns2:providerName>"
+                + "<ns2:productInfo><ns2:speed>100</ns2:speed><ns2:monthlyCostInCent>3999</ns2:monthlyCostInCent>"
+                + "<ns2:monthlyCostInCentFrom25thMonth>4999</ns2:monthlyCostInCentFrom25thMonth>"
+                + "<ns2:contractDurationInMonths>24</ns2:contractDurationInMonths>"
+                + "<ns2:connectionType>DSL</ns2:connectionType></ns2:productInfo></ns2:products>";
+    }
+}
@@ -0,0 +1,91 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.service.webwunderservice.WebWunderRequestTemplate;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.*;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebWunderRequestTemplateTest {
+
+    private static JAXBContext context;
+    private static WebWunderRequestTemplate template;
+
+    @BeforeAll
+    static void setUp() throws JAXBException {
+        context = JAXBContext.newInstance(LegacyGetInternetOffers.class);
+        template = new WebWunderRequestTemplate(context);
+    }
+
+    @Test
+    void render_shouldProduceTheSameEnvelopeAsJaxb() throws JAXBException {
+        Input input = input("Hauptstraße", "12a", "München", "80331", SupportedCountry.AT, ConnectionType.FIBER, false);
+
+        String rendered = new String(template.render(input), StandardCharsets.UTF_8);
+
+        assertEquals("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + marshal(input) + "</soap:Body></soap:Envelope>", rendered);
+    }
+
+    @Test
+    void render_shouldEscapeTheAddressFields() throws Exception {
+        Input input = input("Müller & Söhne <Hof>", "1\u0007", null, "12345", SupportedCountry.DE, ConnectionType.DSL, true);
+
+        Document envelope = parse(template.render(input));
+
+        assertEquals("Müller & Söhne <Hof>", text(envelope, "street"));
+        // Control characters are not allowed in XML 1.0
+        assertEquals("1", text(envelope, "houseNumber"));
+        assertEquals("", text(envelope, "city"));
+        assertEquals("DSL", text(envelope, "connectionEnum"));
+        assertEquals("true", text(envelope, "installation"));
+    }
+
+    private static Input input(String street, String houseNumber, String city, String plz,
+                               SupportedCountry country, ConnectionType connectionType, boolean installation) {
+        Address address = new Address();
+        address.setStreet(street);
+        address.setHouseNumber(houseNumber);
+        address.setCity(city);
+        address.setPlz(plz);
+        address.setCountryCode(country);
+        Input input = new Input();
+        input.setAddress(address);
+        input.setConnectionEnum(connectionType);
+        input.setInstallation(installation);
+        return input;
+    }
+
+    private static String marshal(Input input) throws JAXBException {
+        LegacyGetInternetOffers request = new LegacyGetInternetOffers();
+        request.setInput(input);
+        Marshaller marshaller = context.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter xml = new StringWriter();
+        marshaller.marshal(request, xml);
+        return xml.toString();
+    }
+
+    private static Document parse(byte[] xml) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private static String text(Document document, String localName) {
+        Node node = document.getElementsByTagNameNS("http://webwunder.gendev7.check24.fun/offerservice", localName).item(0);
+        assertNotNull(node, "Missing element " + localName);
+        return node.getTextContent();
+    }
+}
@@ -0,0 +1,151 @@
+package com.SimonMk116.gendev.service;
+
+import com.SimonMk116.gendev.dto.FilterDataDto;
+import com.SimonMk116.gendev.dto.SearchRequests;
+import com.SimonMk116.gendev.model.InternetOffer;
+import com.SimonMk116.gendev.model.RequestAddress;
+import com.SimonMk116.gendev.service.aggregation.OfferFilter;
+import com.SimonMk116.gendev.service.resilience.CircuitBreaker;
+import com.SimonMk116.gendev.service.webwunderservice.ConnectionTypeOfferCache;
+import com.SimonMk116.gendev.service.webwunderservice.WebWunderClient;
+import com.SimonMk116.gendev.service.webwunderservice.WebWunderService;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.ConnectionType;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.Output;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.Product;
+import com.SimonMk116.gendev.service.webwunderservice.autogenerated.ProductInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebWunderServiceTest {
+
+    @Mock
+    private WebWunderClient webWunderClient;
+
+    private WebWunderService webWunderService;
+    private RequestAddress testAddress;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        webWunderService = new WebWunderService(webWunderClient, new ConnectionTypeOfferCache(environment));
+        testAddress = new RequestAddress("TestStreet", "10", "TestCity", "12345", "DE");
+    }
+
+    @Test
+    void getOffers_shouldOnlyQueryConnectionTypesWithoutCachedOffers() {
+        when(webWunderClient.getInternetOffers(any(SearchRequests.class), any(ConnectionType.class), anyBoolean()))
+                .thenAnswer(invocation -> Mono.just(output(invocation.getArgument(1))));
+
+        // A search filtered by connection type only queries that connection type
+        assertEquals(1, collect(webWunderService.getOffers(testAddress, connectionTypeFilter("DSL"))).size());
+        verify(webWunderClient).getInternetOffers(any(SearchRequests.class), eq(ConnectionType.DSL), eq(true));
+
+        // The complete search reuses the cached DSL offers
+        List<InternetOffer> offers = collect(webWunderService.getOffers(testAddress));
+        assertEquals(4, offers.size());
+        verify(webWunderClient, times(1)).getInternetOffers(any(SearchRequests.class), eq(ConnectionType.DSL), anyBoolean());
+        verify(webWunderClient, times(4)).getInternetOffers(any(SearchRequests.class), any(ConnectionType.class), anyBoolean());
+
+        // A repeated search is served from the cache entirely
+        assertEquals(4, collect(webWunderService.getOffers(testAddress)).size());
+        verifyNoMoreInteractions(webWunderClient);
+    }
+
+    @Test
+    void getOffers_shouldNotKeepConnectionTypesLongerThanTheAggregatedCache() throws InterruptedException {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("provider.webwunder.cache-ttl", "PT0.05S")
+                .withProperty("provider.webwunder.connection-type-cache.ttl", "PT2H");
+        environment.setConversionService(new ApplicationConversionService());
+        webWunderService = new WebWunderService(webWunderClient, new ConnectionTypeOfferCache(environment));
+        when(webWunderClient.getInternetOffers(any(SearchRequests.class), any(ConnectionType.class), anyBoolean()))
+                .thenAnswer(invocation -> Mono.just(output(invocation.getArgument(1))));
+
+        assertEquals(4, collect(webWunderService.getOffers(testAddress)).size());
+        Thread.sleep(100);
+        // A revalidation of the aggregated cache must not be answered from older per-type entries
+        assertEquals(4, collect(webWunderService.getOffers(testAddress)).size());
+
+        verify(webWunderClient, times(8)).getInternetOffers(any(SearchRequests.class), any(ConnectionType.class), anyBoolean());
+    }
+
+    @Test
+    void getOffers_shouldNotCacheFailedConnectionTypes() {
+        when(webWunderClient.getInternetOffers(any(SearchRequests.class), any(ConnectionType.class), anyBoolean()))
+                .thenAnswer(invocation -> Mono.just(output(invocation.getArgument(1))));
+        // A failed call ends empty, like after the client's retries are exhausted
+        when(webWunderClient.getInternetOffers(any(SearchRequests.class), eq(ConnectionType.FIBER), anyBoolean()))
+                .thenReturn(Mono.empty());
+
+        assertEquals(3, collect(webWunderService.getOffers(testAddress)).size());
+        assertEquals(3, collect(webWunderService.getOffers(testAddress)).size());
+
+        // Only the failed connection type is queried again
+        verify(webWunderClient, times(2)).getInternetOffers(any(SearchRequests.class), eq(ConnectionType.FIBER), anyBoolean());
+        verify(webWunderClient, times(1)).getInternetOffers(any(SearchRequests.class), eq(ConnectionType.CABLE), anyBoolean());
+    }
+
+    @Test
+    void getOffers_shouldNotCachePartiallyStreamedConnectionTypes() {
+        ReflectionTestUtils.setField(webWunderService, "streaming", true);
+        when(webWunderClient.streamInternetOffers(any(SearchRequests.class), any(ConnectionType.class), anyBoolean()))
+                .thenAnswer(invocation -> Flux.fromIterable(output(invocation.getArgument(1)).getProducts()));
+        // The response breaks off after the first product and the client gives up
+        when(webWunderClient.streamInternetOffers(any(SearchRequests.class), eq(ConnectionType.FIBER), anyBoolean()))
+                .thenAnswer(invocation -> Flux.concat(
+                                Flux.fromIterable(output(ConnectionType.FIBER).getProducts()),
+                                Flux.<Product>error(new IllegalStateException("Connection reset")))
+                        .onErrorResume(CircuitBreaker::giveUp));
+
+        assertEquals(4, collect(webWunderService.getOffers(testAddress)).size());
+        assertEquals(4, collect(webWunderService.getOffers(testAddress)).size());
+
+        // Only the connection type the client gave up on is queried again
+        verify(webWunderClient, times(2)).streamInternetOffers(any(SearchRequests.class), eq(ConnectionType.FIBER), anyBoolean());
+        verify(webWunderClient, times(1)).streamInternetOffers(any(SearchRequests.class), eq(ConnectionType.CABLE), anyBoolean());
+    }
+
+    private static List<InternetOffer> collect(Flux<InternetOffer> offers) {
+        return offers.collectList().block(Duration.ofSeconds(5));
+    }
+
+    private static OfferFilter connectionTypeFilter(String connectionType) {
+        FilterDataDto filters = new FilterDataDto();
+        filters.setConnectionType(connectionType);
+        return OfferFilter.from(filters);
+    }
+
+    private static Output output(ConnectionType connectionType) {
+        ProductInfo info = new ProductInfo();
+        info.setSpeed(100);
+        info.setMonthlyCostInCent(3999);
+        info.setContractDurationInMonths(24);
+        info.setConnectionType(connectionType);
+        Product product = new Product();
+        product.setProductId(connectionType.ordinal());
+        product.setProviderName("WebWunder " + connectionType.value());
+        product.setProductInfo(info);
+        Output output = new Output();
+        output.getProducts().add(product);
+        return output;
+    }
+}